@@ -0,0 +1,155 @@
+package com.example.cessionappbackend.services;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.cessionappbackend.dto.ClearanceCertificateDocumentDTO;
+import com.example.cessionappbackend.dto.ReleaseRequestDocumentDTO;
+import com.example.cessionappbackend.dto.SalaryAssignmentDocumentDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * PDF generation benchmarks, for the three documents.
+ * Throughput and latency are measured by {@link PdfThroughputBenchmark} and
+ * {@link PdfLatencyBenchmark}; the GC profiler adds bytes allocated per document
+ * (gc.alloc.rate.norm). Run them from the backend directory with
+ *
+ *   mvn -Pbenchmark verify
+ *
+ * which also writes target/jmh-result.json. Once the profile's dependencies have been
+ * downloaded, add -o to run offline. Other JMH options go in jmh.args, for example
+ * -Djmh.args="-prof gc -f 1 -wi 1 -i 3 Salary".
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public abstract class PdfGenerationBenchmark {
+
+    private SalaryAssignmentPdfGeneratorService salaryGenerator;
+    private ClearanceCertificatePdfGeneratorService clearanceGenerator;
+    private ReleaseRequestPdfGeneratorService releaseGenerator;
+
+    private SalaryAssignmentDocumentDTO salaryData;
+    private ClearanceCertificateDocumentDTO clearanceData;
+    private ReleaseRequestDocumentDTO releaseData;
+
+    @Setup
+    public void setUp() {
+        // Outside Spring, logback would print the generators' debug output for every document
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        PdfFontRegistry fontRegistry = new PdfFontRegistry();
+        fontRegistry.loadFonts();
+        ArabicTextService arabicTextService = new ArabicTextService();
+        ReflectionTestUtils.setField(arabicTextService, "fontRegistry", fontRegistry);
+        ReflectionTestUtils.setField(arabicTextService, "maxCacheEntries", 2000);
+        ReflectionTestUtils.setField(arabicTextService, "maxCachedLength", 200);
+
+        salaryGenerator = new SalaryAssignmentPdfGeneratorService();
+        ReflectionTestUtils.setField(salaryGenerator, "arabicTextService", arabicTextService);
+        clearanceGenerator = new ClearanceCertificatePdfGeneratorService();
+        releaseGenerator = new ReleaseRequestPdfGeneratorService();
+        for (Object generator : new Object[]{salaryGenerator, clearanceGenerator, releaseGenerator}) {
+            ReflectionTestUtils.setField(generator, "fontRegistry", fontRegistry);
+            ReflectionTestUtils.invokeMethod(generator, "initFonts");
+        }
+
+        salaryData = salaryData();
+        clearanceData = clearanceData();
+        releaseData = releaseData();
+
+        // A null result means the generator failed: better to stop than to time the failure
+        if (salaryGenerator.generatePdf(salaryData) == null
+                || clearanceGenerator.generatePdf(clearanceData) == null
+                || releaseGenerator.generatePdf(releaseData) == null) {
+            throw new IllegalStateException("PDF generation failed, see the log above");
+        }
+    }
+
+    @Benchmark
+    public byte[] salaryAssignment() {
+        return salaryGenerator.generatePdf(salaryData);
+    }
+
+    @Benchmark
+    public byte[] clearanceCertificate() {
+        return clearanceGenerator.generatePdf(clearanceData);
+    }
+
+    @Benchmark
+    public byte[] releaseRequest() {
+        return releaseGenerator.generatePdf(releaseData);
+    }
+
+    // No client id: the worker number is taken as is instead of from the database
+    private static SalaryAssignmentDocumentDTO salaryData() {
+        SalaryAssignmentDocumentDTO data = new SalaryAssignmentDocumentDTO();
+        data.setCourtName("المحكمة الابتدائية بتونس");
+        data.setBookNumber("12");
+        data.setPageNumber("145");
+        data.setDate("2025-09-15");
+        data.setSupplierTaxId("1234567/A/M/000");
+        data.setSupplierName("شركة الأمل للتجهيزات المنزلية");
+        data.setSupplierAddress("شارع الحبيب بورقيبة، تونس");
+        data.setSupplierBankAccount("08 006 0123456789012 34");
+        data.setWorkerNumber("0123456789");
+        data.setFullName("محمد بن علي الطرابلسي");
+        data.setCin("12345678");
+        data.setPersonalAddress("نهج الحرية عدد 15، أريانة");
+        data.setWorkplace("وزارة الداخلية");
+        data.setJobTitle("عريف");
+        data.setEmploymentStatus("مباشر");
+        data.setBankAccountNumber("10 201 0987654321098 76");
+        data.setItemDescription("ثلاجة Samsung RT38 وآلة غسيل LG");
+        data.setAmountInWords("ألفان وأربعمائة وثلاثون دينارا");
+        data.setTotalAmountNumeric(2430.0);
+        data.setMonthlyPayment(135.0);
+        data.setLoanDuration("18");
+        data.setFirstDeductionMonthArabic("سبتمبر 2025");
+        return data;
+    }
+
+    private static ClearanceCertificateDocumentDTO clearanceData() {
+        ClearanceCertificateDocumentDTO data = new ClearanceCertificateDocumentDTO();
+        data.setCourt("المحكمة الابتدائية بتونس");
+        data.setRegisterNumber("12");
+        data.setPageNumber("145");
+        data.setRegistrationDate("2024-03-01");
+        data.setWorkerNumber("0123456789");
+        data.setFullName("محمد بن علي الطرابلسي");
+        data.setNationalId("12345678");
+        data.setCessionTotalValue("2430.000");
+        data.setCessionMonthlyValue("135.000");
+        data.setIssuerName("شركة الأمل للتجهيزات المنزلية");
+        data.setIssuerTaxId("1234567/A/M/000");
+        data.setIssuerActivity("بيع التجهيزات المنزلية");
+        data.setIssuerAddress("شارع الحبيب بورقيبة، تونس");
+        data.setPrintingDate("2025-09-15");
+        return data;
+    }
+
+    private static ReleaseRequestDocumentDTO releaseData() {
+        ReleaseRequestDocumentDTO data = new ReleaseRequestDocumentDTO();
+        data.setCourt("المحكمة الابتدائية بتونس");
+        data.setRegisterNumber("12");
+        data.setPageNumber("145");
+        data.setRegistrationDate("2024-03-01");
+        data.setWorkerNumber("0123456789");
+        data.setFullName("محمد بن علي الطرابلسي");
+        data.setNationalId("12345678");
+        data.setCessionTotalValue("2430.000");
+        data.setCessionMonthlyValue("135.000");
+        data.setIssuerName("شركة الأمل للتجهيزات المنزلية");
+        data.setIssuerTaxId("1234567/A/M/000");
+        data.setPrintingDate("2025-09-15");
+        return data;
+    }
+}
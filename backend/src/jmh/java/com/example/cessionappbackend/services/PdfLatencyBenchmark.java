@@ -0,0 +1,15 @@
+package com.example.cessionappbackend.services;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time per document, sampled: the report lists its percentiles (p0.99 and above).
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PdfLatencyBenchmark extends PdfGenerationBenchmark {
+}
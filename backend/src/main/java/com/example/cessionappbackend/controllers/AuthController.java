@@ -6,18 +6,23 @@ import com.example.cessionappbackend.dto.SignupRequest;
 import com.example.cessionappbackend.dto.UserDto;
 import com.example.cessionappbackend.entities.User;
 import com.example.cessionappbackend.repositories.UserRepository;
+import com.example.cessionappbackend.security.LoginThrottle;
 import com.example.cessionappbackend.services.AuthService;
 import com.example.cessionappbackend.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -35,10 +40,21 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private LoginThrottle loginThrottle;
+
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
         logger.info("Received login request for email: {}", loginRequest.getEmail());
-        
+
+        long retryAfter = loginThrottle.tryAcquire(loginRequest.getEmail(), request.getRemoteAddr());
+        if (retryAfter > 0) {
+            logger.warn("Too many sign-in attempts for {} from {}", loginRequest.getEmail(), request.getRemoteAddr());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body("Too many sign-in attempts, try again later");
+        }
+
         try {
             // Check if user exists
             if (!userRepository.existsByEmail(loginRequest.getEmail())) {
@@ -49,9 +65,15 @@ public class AuthController {
 
             // Attempt authentication
             AuthResponse authResponse = authService.login(loginRequest);
+            loginThrottle.loginSucceeded(loginRequest.getEmail());
             logger.info("User authenticated successfully: {}", loginRequest.getEmail());
 
             return ResponseEntity.ok(authResponse);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Sign-in queue full, refusing login for: {}", loginRequest.getEmail());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many sign-ins in progress, try again later");
         } catch (Exception e) {
             logger.error("Authentication failed for user: {} - Error: {}", loginRequest.getEmail(), e.getMessage());
             return ResponseEntity.status(403)
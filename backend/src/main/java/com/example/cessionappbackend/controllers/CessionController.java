@@ -2,6 +2,7 @@ package com.example.cessionappbackend.controllers;
 
 import com.example.cessionappbackend.dto.CessionDTO;
 import com.example.cessionappbackend.services.CessionService;
+import com.example.cessionappbackend.services.DataVersionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -9,6 +10,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
@@ -27,6 +29,9 @@ public class CessionController {
 
     private final CessionService cessionService;
 
+    @Autowired
+    private DataVersionService dataVersionService;
+
     @Autowired
     public CessionController(CessionService cessionService) {
         this.cessionService = cessionService;
@@ -34,8 +39,11 @@ public class CessionController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<CessionDTO>> getAllCessions() {
-        return ResponseEntity.ok(cessionService.getAllCessions());
+    public ResponseEntity<List<CessionDTO>> getAllCessions(WebRequest request) {
+        // Each cession carries its client, the client's workplace and job, and its contract document
+        return dataVersionService.conditionalGet(request, cessionService::getAllCessions,
+                DataVersionService.CESSION, DataVersionService.PAYMENT, DataVersionService.CLIENT,
+                DataVersionService.WORKPLACE, DataVersionService.JOB, DataVersionService.DOCUMENT);
     }
 
     @GetMapping("/search")
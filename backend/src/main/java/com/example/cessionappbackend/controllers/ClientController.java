@@ -2,12 +2,14 @@ package com.example.cessionappbackend.controllers;
 
 import com.example.cessionappbackend.dto.ClientDTO;
 import com.example.cessionappbackend.services.ClientService;
+import com.example.cessionappbackend.services.DataVersionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,13 +28,16 @@ public class ClientController {
     @Autowired
     private ClientService clientService;
 
+    @Autowired
+    private DataVersionService dataVersionService;
+
     // GET /api/v1/clients - Get all clients
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<ClientDTO>> getAllClients() {
+    public ResponseEntity<List<ClientDTO>> getAllClients(WebRequest request) {
         logger.debug("Attempting to get all clients. Current authentication: {}", SecurityContextHolder.getContext().getAuthentication());
-        List<ClientDTO> clients = clientService.getAllClients();
-        return ResponseEntity.ok(clients);
+        return dataVersionService.conditionalGet(request, clientService::getAllClients,
+                DataVersionService.CLIENT, DataVersionService.WORKPLACE, DataVersionService.JOB);
     }
     
     // GET /api/v1/clients/search - Search clients by name or job
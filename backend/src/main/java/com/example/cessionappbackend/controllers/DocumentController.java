@@ -1,18 +1,30 @@
 package com.example.cessionappbackend.controllers;
 
+import com.example.cessionappbackend.dto.BulkUploadResultDTO;
 import com.example.cessionappbackend.dto.DocumentDTO;
+import com.example.cessionappbackend.dto.PdfBatchJobDTO;
+import com.example.cessionappbackend.dto.PdfBatchRequestDTO;
+import com.example.cessionappbackend.dto.PdfJobDTO;
 import com.example.cessionappbackend.services.DocumentService;
 import com.example.cessionappbackend.repositories.ClientRepository;
 import com.example.cessionappbackend.entities.Client;
 import com.example.cessionappbackend.dto.SalaryAssignmentDocumentDTO;
-import com.example.cessionappbackend.services.SalaryAssignmentPdfGeneratorService;
 import com.example.cessionappbackend.dto.ClearanceCertificateDocumentDTO;
-import com.example.cessionappbackend.services.ClearanceCertificatePdfGeneratorService;
 import com.example.cessionappbackend.dto.ReleaseRequestDocumentDTO;
-import com.example.cessionappbackend.services.ReleaseRequestPdfGeneratorService;
+import com.example.cessionappbackend.services.DocumentBundleService;
+import com.example.cessionappbackend.services.PdfBatchService;
+import com.example.cessionappbackend.services.PdfBatchService.DocumentType;
+import com.example.cessionappbackend.services.PdfJobService;
+import com.example.cessionappbackend.services.RenderedPdf;
+import com.example.cessionappbackend.utils.MultipartStreamParser;
+import com.itextpdf.text.DocumentException;
 
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -20,10 +32,15 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/v1/documents")
@@ -37,13 +54,13 @@ public class DocumentController {
     private ClientRepository clientRepository;
 
     @Autowired
-    private SalaryAssignmentPdfGeneratorService salaryAssignmentPdfGeneratorService;
+    private DocumentBundleService documentBundleService;
 
     @Autowired
-    private ClearanceCertificatePdfGeneratorService clearanceCertificatePdfGeneratorService;
+    private PdfBatchService pdfBatchService;
 
     @Autowired
-    private ReleaseRequestPdfGeneratorService releaseRequestPdfGeneratorService;
+    private PdfJobService pdfJobService;
 
     // GET /api/v1/documents/client/{clientId} - Get documents by client ID
     @GetMapping("/client/{clientId}")
@@ -59,6 +76,40 @@ public class DocumentController {
         return ResponseEntity.ok(documents);
     }
 
+    // GET /api/v1/documents/client/{clientId}/bundle - Stream every document of a client as a ZIP
+    @GetMapping(value = "/client/{clientId}/bundle", produces = "application/zip")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> downloadClientBundle(
+            @PathVariable UUID clientId,
+            @RequestParam(value = "includeGenerated", defaultValue = "false") boolean includeGenerated) {
+        try {
+            return streamBundle(documentBundleService.prepareClientBundle(clientId, includeGenerated));
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    // GET /api/v1/documents/cession/{cessionId}/bundle - Stream every document of a cession as a ZIP
+    @GetMapping(value = "/cession/{cessionId}/bundle", produces = "application/zip")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> downloadCessionBundle(
+            @PathVariable UUID cessionId,
+            @RequestParam(value = "includeGenerated", defaultValue = "false") boolean includeGenerated) {
+        try {
+            return streamBundle(documentBundleService.prepareCessionBundle(cessionId, includeGenerated));
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamBundle(DocumentBundleService.DocumentBundle bundle) {
+        StreamingResponseBody body = outputStream -> documentBundleService.writeZip(bundle, outputStream);
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"" + bundle.getFileName() + "\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
     // GET /api/v1/documents/{id} - Get document by ID
     @GetMapping("/{id}")
     public ResponseEntity<DocumentDTO> getDocumentById(@PathVariable UUID id) {
@@ -69,61 +120,167 @@ public class DocumentController {
 
     // POST /api/v1/documents/salary-assignment - Generate Salary Assignment Document (PDF)
     @PostMapping(value = "/salary-assignment", produces = MediaType.APPLICATION_PDF_VALUE)
-    public ResponseEntity<byte[]> generateSalaryAssignmentPdf(@RequestBody SalaryAssignmentDocumentDTO documentData) {
+    public ResponseEntity<StreamingResponseBody> generateSalaryAssignmentPdf(@RequestBody SalaryAssignmentDocumentDTO documentData) {
         try {
-            byte[] pdfBytes = salaryAssignmentPdfGeneratorService.generatePdf(documentData);
-            if (pdfBytes == null) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-            }
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"إحالة_على_الأجر_تجارية.pdf\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfBytes);
-        } catch (Exception e) {
-            System.err.println("Error generating salary assignment PDF: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return pdfResponse(pdfJobService.render(DocumentType.SALARY_ASSIGNMENT, documentData), "إحالة_على_الأجر_تجارية.pdf");
+        } catch (RejectedExecutionException e) {
+            throw renderQueueFull();
+        } catch (DocumentException | IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate salary assignment PDF: " + e.getMessage());
         }
     }
 
     // POST /api/v1/documents/clearance-certificate - Generate Clearance Certificate Document (PDF)
     @PostMapping(value = "/clearance-certificate", produces = MediaType.APPLICATION_PDF_VALUE)
-    public ResponseEntity<byte[]> generateClearanceCertificatePdf(@RequestBody ClearanceCertificateDocumentDTO documentData) {
+    public ResponseEntity<StreamingResponseBody> generateClearanceCertificatePdf(@RequestBody ClearanceCertificateDocumentDTO documentData) {
         try {
-            byte[] pdfBytes = clearanceCertificatePdfGeneratorService.generatePdf(documentData);
-            if (pdfBytes == null) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-            }
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"شهادة_خلاص_ورفع_يد.pdf\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfBytes);
-        } catch (Exception e) {
-            System.err.println("Error generating clearance certificate PDF: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return pdfResponse(pdfJobService.render(DocumentType.CLEARANCE_CERTIFICATE, documentData), "شهادة_خلاص_ورفع_يد.pdf");
+        } catch (RejectedExecutionException e) {
+            throw renderQueueFull();
+        } catch (DocumentException | IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate clearance certificate PDF: " + e.getMessage());
         }
     }
 
     // POST /api/v1/documents/release-request - Generate Release Request Document (PDF)
     @PostMapping(value = "/release-request", produces = MediaType.APPLICATION_PDF_VALUE)
-    public ResponseEntity<byte[]> generateReleaseRequestPdf(@RequestBody ReleaseRequestDocumentDTO documentData) {
+    public ResponseEntity<StreamingResponseBody> generateReleaseRequestPdf(@RequestBody ReleaseRequestDocumentDTO documentData) {
         try {
-            byte[] pdfBytes = releaseRequestPdfGeneratorService.generatePdf(documentData);
-            if (pdfBytes == null) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            return pdfResponse(pdfJobService.render(DocumentType.RELEASE_REQUEST, documentData), "مطلب_في_رفع_يد.pdf");
+        } catch (RejectedExecutionException e) {
+            throw renderQueueFull();
+        } catch (DocumentException | IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate release request PDF: " + e.getMessage());
+        }
+    }
+
+    // The document is written in full to a file on the render pool before the response starts, so
+    // generation errors above still get a proper status and the response only streams the file
+    private ResponseEntity<StreamingResponseBody> pdfResponse(RenderedPdf pdf, String fileName) {
+        StreamingResponseBody body = outputStream -> {
+            try (pdf) {
+                pdf.transferTo(outputStream);
             }
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"مطلب_في_رفع_يد.pdf\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfBytes);
-        } catch (Exception e) {
-            System.err.println("Error generating release request PDF: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        };
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .contentLength(pdf.getSize())
+                .body(body);
+    }
+
+    // POST /api/v1/documents/jobs/salary-assignment - Queue a Salary Assignment PDF, poll the returned job, then download it
+    @PostMapping("/jobs/salary-assignment")
+    public ResponseEntity<PdfJobDTO> submitSalaryAssignmentJob(@RequestBody SalaryAssignmentDocumentDTO documentData) {
+        return submitPdfJob(DocumentType.SALARY_ASSIGNMENT, documentData);
+    }
+
+    // POST /api/v1/documents/jobs/clearance-certificate - Queue a Clearance Certificate PDF
+    @PostMapping("/jobs/clearance-certificate")
+    public ResponseEntity<PdfJobDTO> submitClearanceCertificateJob(@RequestBody ClearanceCertificateDocumentDTO documentData) {
+        return submitPdfJob(DocumentType.CLEARANCE_CERTIFICATE, documentData);
+    }
+
+    // POST /api/v1/documents/jobs/release-request - Queue a Release Request PDF
+    @PostMapping("/jobs/release-request")
+    public ResponseEntity<PdfJobDTO> submitReleaseRequestJob(@RequestBody ReleaseRequestDocumentDTO documentData) {
+        return submitPdfJob(DocumentType.RELEASE_REQUEST, documentData);
+    }
+
+    private ResponseEntity<PdfJobDTO> submitPdfJob(DocumentType documentType, Object documentData) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(pdfJobService.submit(documentType, documentData));
+        } catch (RejectedExecutionException e) {
+            throw renderQueueFull();
+        }
+    }
+
+    // GET /api/v1/documents/jobs/{jobId} - Get the state of a PDF job
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<PdfJobDTO> getPdfJob(@PathVariable UUID jobId) {
+        try {
+            return ResponseEntity.ok(pdfJobService.getJob(jobId));
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    // GET /api/v1/documents/jobs/{jobId}/download - Download the PDF of a completed job
+    @GetMapping(value = "/jobs/{jobId}/download", produces = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<StreamingResponseBody> downloadPdfJob(@PathVariable UUID jobId) {
+        Path output;
+        String fileName;
+        try {
+            output = pdfJobService.getOutput(jobId);
+            fileName = pdfJobService.getOutputFileName(jobId);
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+        StreamingResponseBody body = outputStream -> Files.copy(output, outputStream);
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
+    }
+
+    // 429 with a Retry-After estimated from the work already queued
+    private ResponseStatusException renderQueueFull() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(pdfJobService.retryAfterSeconds()));
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many PDFs are being rendered, try again later") {
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+
+    // POST /api/v1/documents/batch - Start a background job rendering one document type for many cessions
+    // Poll the returned job for progress, then download its output once it has completed
+    @PostMapping("/batch")
+    public ResponseEntity<PdfBatchJobDTO> startPdfBatch(@Valid @RequestBody PdfBatchRequestDTO request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(pdfBatchService.submit(request));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many batch jobs are queued, try again later");
         }
     }
 
+    // GET /api/v1/documents/batch/{jobId} - Get the progress of a batch job
+    @GetMapping("/batch/{jobId}")
+    public ResponseEntity<PdfBatchJobDTO> getPdfBatch(@PathVariable UUID jobId) {
+        try {
+            return ResponseEntity.ok(pdfBatchService.getJob(jobId));
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    // GET /api/v1/documents/batch/{jobId}/download - Download the merged PDF or ZIP of a completed batch job
+    @GetMapping("/batch/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> downloadPdfBatch(@PathVariable UUID jobId) {
+        PdfBatchService.BatchOutputFile output;
+        try {
+            output = pdfBatchService.getOutput(jobId);
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+        StreamingResponseBody body = outputStream -> Files.copy(output.getPath(), outputStream);
+        MediaType contentType = output.getFormat() == PdfBatchService.OutputFormat.ZIP
+                ? MediaType.parseMediaType("application/zip")
+                : MediaType.APPLICATION_PDF;
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"" + output.getFileName() + "\"")
+                .contentType(contentType)
+                .body(body);
+    }
+
     // POST /api/v1/documents/client/{clientId}/{documentType} - Upload client document
     // This endpoint is for general document uploads where clientNumber is not required for naming
     @PostMapping("/clients/{clientId}/documents")
@@ -168,6 +325,65 @@ public class DocumentController {
         }
     }
 
+    // POST /api/v1/documents/client/{clientId}/specific/{documentType}/stream - Streaming upload of a specific client document
+    // The multipart body is parsed incrementally and the "file" part is written straight to storage,
+    // so large scans are neither held in memory nor spooled to the servlet temp directory first
+    @PostMapping(value = "/client/{clientId}/specific/{documentType}/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DocumentDTO> streamSpecificClientDocument(
+            @PathVariable UUID clientId,
+            @PathVariable String documentType,
+            HttpServletRequest request) {
+        String boundary = MultipartStreamParser.extractBoundary(request.getContentType());
+        if (boundary == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a multipart/form-data request with a boundary");
+        }
+        try {
+            MultipartStreamParser parser = new MultipartStreamParser(request.getInputStream(), boundary);
+            while (parser.nextPart()) {
+                if ("file".equals(parser.getFieldName()) && parser.getFileName() != null) {
+                    DocumentDTO uploadedDocument = documentService.uploadClientDocumentStream(
+                            clientId, documentType, parser.getFileName(), parser.getContentType(), parser.getPartStream());
+                    return ResponseEntity.status(HttpStatus.CREATED).body(uploadedDocument);
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing 'file' part");
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to upload document: " + e.getMessage());
+        }
+    }
+
+    // POST /api/v1/documents/client/bulk - Upload many specific client documents in one request
+    // files[i] belongs to the client numbered clientNumbers[i]; documentTypes is either one type per
+    // file or a single type applied to every file. Per-file outcomes are reported in the response body
+    @PostMapping(value = "/client/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkUploadResultDTO> uploadClientDocumentsBulk(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam("clientNumbers") List<Integer> clientNumbers,
+            @RequestParam("documentTypes") List<String> documentTypes) {
+        if (files.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No files to upload");
+        }
+        if (clientNumbers.size() != files.size()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected one client number per file");
+        }
+        if (documentTypes.size() != 1 && documentTypes.size() != files.size()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected one document type, or one per file");
+        }
+
+        List<DocumentService.BulkUploadItem> items = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            String documentType = documentTypes.size() == 1 ? documentTypes.get(0) : documentTypes.get(i);
+            items.add(new DocumentService.BulkUploadItem(files.get(i), clientNumbers.get(i), documentType));
+        }
+        return ResponseEntity.ok(documentService.uploadClientDocumentsBulk(items));
+    }
+
     // POST /api/v1/documents/cession/{cessionId} - Upload cession contract document
     @PostMapping(value = "/cession/{cessionId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
@@ -0,0 +1,33 @@
+package com.example.cessionappbackend.controllers;
+
+import com.example.cessionappbackend.services.EventStreamService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/v1/events")
+public class EventStreamController {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventStreamController.class);
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    // GET /api/v1/events/stream?topics=data,export,low-stock - Server-Sent Events for the chosen topics (all by default)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter stream(@RequestParam(required = false) String topics,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Set<String> parsedTopics = EventStreamService.parseTopics(topics);
+        logger.info("Received subscription to {} events{}", parsedTopics,
+                lastEventId != null ? " after " + lastEventId : "");
+        return eventStreamService.subscribe(parsedTopics, lastEventId);
+    }
+}
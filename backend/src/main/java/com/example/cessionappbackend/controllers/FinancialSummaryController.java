@@ -1,5 +1,6 @@
 package com.example.cessionappbackend.controllers;
 
+import com.example.cessionappbackend.dto.FinancialMonthDTO;
 import com.example.cessionappbackend.dto.FinancialSummaryDTO;
 import com.example.cessionappbackend.services.FinancialSummaryService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +8,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.YearMonth;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -27,4 +30,14 @@ public class FinancialSummaryController {
             @RequestParam int month) {
         return ResponseEntity.ok(financialSummaryService.getMonthlySummary(userId, year, month));
     }
-} 
\ No newline at end of file
+
+    // GET /api/v1/financial/summary/range?userId=...&from=2024-01&to=2024-12
+    @GetMapping("/summary/range")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<FinancialMonthDTO>> getRangeSummary(
+            @RequestParam UUID userId,
+            @RequestParam YearMonth from,
+            @RequestParam YearMonth to) {
+        return ResponseEntity.ok(financialSummaryService.getRangeSummary(userId, from, to));
+    }
+} 
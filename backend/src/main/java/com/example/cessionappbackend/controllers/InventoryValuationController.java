@@ -0,0 +1,45 @@
+package com.example.cessionappbackend.controllers;
+
+import com.example.cessionappbackend.dto.InventoryCostMonthDTO;
+import com.example.cessionappbackend.dto.InventoryValuationDTO;
+import com.example.cessionappbackend.services.InventoryValuationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/inventory/valuation")
+public class InventoryValuationController {
+
+    @Autowired
+    private InventoryValuationService inventoryValuationService;
+
+    // GET /api/v1/inventory/valuation
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<InventoryValuationDTO> getValuation() {
+        return ResponseEntity.ok(inventoryValuationService.getValuation());
+    }
+
+    // GET /api/v1/inventory/valuation/monthly?from=2024-01&to=2024-12&productId=...
+    @GetMapping("/monthly")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<InventoryCostMonthDTO>> getMonthlyCosts(
+            @RequestParam YearMonth from,
+            @RequestParam YearMonth to,
+            @RequestParam(required = false) Long productId) {
+        return ResponseEntity.ok(inventoryValuationService.getMonthlyCosts(from, to, productId));
+    }
+
+    // POST /api/v1/inventory/valuation/run?rebuild=false
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> run(@RequestParam(defaultValue = "false") boolean rebuild) {
+        return ResponseEntity.ok(inventoryValuationService.runNow(rebuild));
+    }
+}
@@ -1,12 +1,14 @@
 package com.example.cessionappbackend.controllers;
 
 import com.example.cessionappbackend.dto.JobDTO;
+import com.example.cessionappbackend.services.DataVersionService;
 import com.example.cessionappbackend.services.JobService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -18,9 +20,13 @@ public class JobController {
     @Autowired
     private JobService jobService;
 
+    @Autowired
+    private DataVersionService dataVersionService;
+
     @GetMapping
-    public ResponseEntity<List<JobDTO>> getAllJobs() {
-        return ResponseEntity.ok(jobService.getAllJobs());
+    public ResponseEntity<List<JobDTO>> getAllJobs(WebRequest request) {
+        return dataVersionService.conditionalGet(request, jobService::getAllJobs,
+                DataVersionService.JOB, DataVersionService.WORKPLACE);
     }
 
     @PostMapping
@@ -1,10 +1,16 @@
 package com.example.cessionappbackend.controllers;
 
+import com.example.cessionappbackend.dto.ProductCatalogSearchDTO;
 import com.example.cessionappbackend.dto.ProductDTO;
+import com.example.cessionappbackend.services.DataVersionService;
+import com.example.cessionappbackend.services.ProductCatalogIndex;
 import com.example.cessionappbackend.services.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.List;
@@ -18,13 +24,15 @@ public class ProductController {
 
     @Autowired
     private ProductService productService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
     
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<ProductDTO>> getAllProducts() {
+    public ResponseEntity<List<ProductDTO>> getAllProducts(WebRequest request) {
         logger.info("Received request to get all products");
-        List<ProductDTO> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+        return dataVersionService.conditionalGet(request, productService::getAllProducts, DataVersionService.PRODUCT);
     }
     
     @GetMapping("/{id}")
@@ -94,6 +102,14 @@ public class ProductController {
         return ResponseEntity.ok(lowStockProducts);
     }
     
+    // GET /api/v1/products/low-stock/stream - Server-Sent Events: a snapshot, then enter/change/leave transitions
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter streamLowStockProducts() {
+        logger.info("Received subscription to low stock events");
+        return productService.subscribeToLowStock();
+    }
+    
     @GetMapping("/search")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<ProductDTO>> searchProducts(@RequestParam String query) {
@@ -101,4 +117,18 @@ public class ProductController {
         List<ProductDTO> products = productService.searchProducts(query);
         return ResponseEntity.ok(products);
     }
-} 
\ No newline at end of file
+
+    // GET /api/v1/products/catalog?query=...&categoryId=...&supplier=...&stockState=LOW_STOCK - Search with facet counts
+    @GetMapping("/catalog")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductCatalogSearchDTO> searchCatalog(
+        @RequestParam(required = false) String query,
+        @RequestParam(required = false) Long categoryId,
+        @RequestParam(required = false) String supplier,
+        @RequestParam(required = false) ProductCatalogIndex.StockState stockState,
+        @RequestParam(defaultValue = "50") int limit
+    ) {
+        logger.debug("Received catalog search: query={}, categoryId={}, supplier={}, stockState={}", query, categoryId, supplier, stockState);
+        return ResponseEntity.ok(productService.searchCatalog(query, categoryId, supplier, stockState, limit));
+    }
+} 
@@ -0,0 +1,32 @@
+package com.example.cessionappbackend.controllers;
+
+import com.example.cessionappbackend.dto.ProfitabilityDTO;
+import com.example.cessionappbackend.entities.DailyProfit;
+import com.example.cessionappbackend.services.ProfitabilityRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/profitability")
+public class ProfitabilityController {
+
+    @Autowired
+    private ProfitabilityRollupService profitabilityRollupService;
+
+    // GET /api/v1/profitability/top?by=CATEGORY&from=2024-01-01&to=2024-12-31&rankBy=MARGIN&limit=10
+    @GetMapping("/top")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ProfitabilityDTO>> getTop(
+            @RequestParam(defaultValue = "PRODUCT") DailyProfit.Dimension by,
+            @RequestParam LocalDate from,
+            @RequestParam LocalDate to,
+            @RequestParam(defaultValue = "MARGIN") ProfitabilityRollupService.RankBy rankBy,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(profitabilityRollupService.getTop(by, from, to, rankBy, limit));
+    }
+}
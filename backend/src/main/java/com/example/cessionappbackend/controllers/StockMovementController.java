@@ -1,12 +1,19 @@
 package com.example.cessionappbackend.controllers;
 
-import com.example.cessionappbackend.entities.StockMovement;
 import com.example.cessionappbackend.services.StockMovementService;
+import com.example.cessionappbackend.dto.SaleRequestDTO;
 import com.example.cessionappbackend.dto.StockMovementDTO;
+import com.example.cessionappbackend.dto.StockMovementHistoryDTO;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.math.BigDecimal;
@@ -17,22 +24,42 @@ public class StockMovementController {
     @Autowired
     private StockMovementService stockMovementService;
     
+    // GET /api/v1/stock-movements?page=0&size=50 - Newest first
     @GetMapping
-    public ResponseEntity<List<StockMovement>> getAllStockMovements() {
-        return ResponseEntity.ok(stockMovementService.getAllStockMovements());
+    public ResponseEntity<Page<StockMovementHistoryDTO>> getAllStockMovements(
+        @PageableDefault(size = 50) Pageable pageable
+    ) {
+        return ResponseEntity.ok(stockMovementService.getStockMovements(pageable));
     }
     
+    // GET /api/v1/stock-movements/product/{productId} - Newest first, with the stock level after each movement
     @GetMapping("/product/{productId}")
-    public ResponseEntity<List<StockMovement>> getStockMovementsByProduct(@PathVariable Long productId) {
-        return ResponseEntity.ok(stockMovementService.getStockMovementsByProduct(productId));
+    public ResponseEntity<Page<StockMovementHistoryDTO>> getStockMovementsByProduct(
+        @PathVariable Long productId,
+        @PageableDefault(size = 50) Pageable pageable
+    ) {
+        return ResponseEntity.ok(stockMovementService.getStockMovementsByProduct(productId, pageable));
     }
     
     @GetMapping("/date-range")
-    public ResponseEntity<List<StockMovement>> getStockMovementsByDateRange(
+    public ResponseEntity<Page<StockMovementHistoryDTO>> getStockMovementsByDateRange(
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+        @PageableDefault(size = 50) Pageable pageable
+    ) {
+        return ResponseEntity.ok(stockMovementService.getStockMovementsByDateRange(startDate, endDate, pageable));
+    }
+
+    // GET /api/v1/stock-movements/export - The whole range as one streamed JSON array, oldest first
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportStockMovements(
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate
     ) {
-        return ResponseEntity.ok(stockMovementService.getStockMovementsByDateRange(startDate, endDate));
+        StreamingResponseBody body = outputStream -> stockMovementService.exportStockMovements(startDate, endDate, outputStream);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
     }
     
     @GetMapping("/recent")
@@ -61,4 +88,15 @@ public class StockMovementController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    // POST /api/v1/stock-movements/sale - Sell several products at once; every line is recorded or none is
+    @PostMapping("/sale")
+    public ResponseEntity<?> recordSale(@Valid @RequestBody SaleRequestDTO request) {
+        try {
+            List<StockMovementDTO> result = stockMovementService.recordSale(request.getLines(), request.getNotes());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
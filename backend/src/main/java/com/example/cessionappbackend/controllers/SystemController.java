@@ -2,6 +2,18 @@ package com.example.cessionappbackend.controllers;
 
 import com.example.cessionappbackend.dto.ComponentStatus;
 import com.example.cessionappbackend.dto.LoadingProgressDTO;
+import com.example.cessionappbackend.security.AuthenticatedPrincipalCache;
+import com.example.cessionappbackend.security.LoginThrottle;
+import com.example.cessionappbackend.services.AuthService;
+import com.example.cessionappbackend.services.ArabicTextService;
+import com.example.cessionappbackend.services.DataVersionService;
+import com.example.cessionappbackend.services.EventStreamService;
+import com.example.cessionappbackend.services.LowStockTracker;
+import com.example.cessionappbackend.services.PdfFontRegistry;
+import com.example.cessionappbackend.services.PdfJobService;
+import com.example.cessionappbackend.services.PdfOutputCache;
+import com.example.cessionappbackend.services.ProductCatalogIndex;
+import com.example.cessionappbackend.services.ThreadingModeMonitor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +26,110 @@ public class SystemController {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private PdfFontRegistry pdfFontRegistry;
+
+    @Autowired
+    private PdfOutputCache pdfOutputCache;
+
+    @Autowired
+    private PdfJobService pdfJobService;
+
+    @Autowired
+    private ArabicTextService arabicTextService;
+
+    @Autowired
+    private ProductCatalogIndex productCatalogIndex;
+
+    @Autowired
+    private LowStockTracker lowStockTracker;
+
+    @Autowired
+    private AuthenticatedPrincipalCache authenticatedPrincipalCache;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private ThreadingModeMonitor threadingModeMonitor;
+
+    // GET /api/v1/system/pdf-fonts - Load time and memory figures of the shared PDF fonts
+    @GetMapping("/pdf-fonts")
+    public Map<String, Object> getPdfFontStats() {
+        return pdfFontRegistry.getStats();
+    }
+
+    // GET /api/v1/system/pdf-cache - Hit/miss counts and size of the generated PDF cache
+    @GetMapping("/pdf-cache")
+    public Map<String, Object> getPdfCacheStats() {
+        return pdfOutputCache.getStats();
+    }
+
+    // GET /api/v1/system/pdf-jobs - Render pool queue depth, render times and rejections
+    @GetMapping("/pdf-jobs")
+    public Map<String, Object> getPdfJobStats() {
+        return pdfJobService.getStats();
+    }
+
+    // GET /api/v1/system/pdf-shaping - Hit/miss counts of the memoized Arabic text shaping
+    @GetMapping("/pdf-shaping")
+    public Map<String, Object> getPdfShapingStats() {
+        return arabicTextService.getStats();
+    }
+
+    // GET /api/v1/system/product-catalog - Size of the product search index and search latency
+    @GetMapping("/product-catalog")
+    public Map<String, Object> getProductCatalogStats() {
+        return productCatalogIndex.getStats();
+    }
+
+    // GET /api/v1/system/low-stock - Tracked low-stock products, event subscribers and transitions
+    @GetMapping("/low-stock")
+    public Map<String, Object> getLowStockStats() {
+        return lowStockTracker.getStats();
+    }
+
+    // GET /api/v1/system/auth-principals - Hit/miss counts of the cached token principals
+    @GetMapping("/auth-principals")
+    public Map<String, Object> getAuthPrincipalStats() {
+        return authenticatedPrincipalCache.getStats();
+    }
+
+    // GET /api/v1/system/login - Credential verification pool, sign-in throttling and pending last-login writes
+    @GetMapping("/login")
+    public Map<String, Object> getLoginStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(authService.getLoginStats());
+        stats.put("throttle", loginThrottle.getStats());
+        return stats;
+    }
+
+    // GET /api/v1/system/data-versions - Change counts behind the list ETags, and how many requests got 304
+    @GetMapping("/data-versions")
+    public Map<String, Object> getDataVersionStats() {
+        return dataVersionService.getStats();
+    }
+
+    // GET /api/v1/system/event-stream - Change feed subscribers, replayed and dropped events
+    @GetMapping("/event-stream")
+    public Map<String, Object> getEventStreamStats() {
+        return eventStreamService.getStats();
+    }
+
+    // GET /api/v1/system/threads - Platform or virtual thread mode, thread counts and where virtual threads got pinned
+    @GetMapping("/threads")
+    public Map<String, Object> getThreadStats() {
+        return threadingModeMonitor.getStats();
+    }
+
     @GetMapping("/loading-progress")
     public LoadingProgressDTO getLoadingProgress() {
         long startTime = System.currentTimeMillis();
@@ -1,12 +1,14 @@
 package com.example.cessionappbackend.controllers;
 
 import com.example.cessionappbackend.dto.WorkplaceDTO;
+import com.example.cessionappbackend.services.DataVersionService;
 import com.example.cessionappbackend.services.WorkplaceService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -18,9 +20,13 @@ public class WorkplaceController {
     @Autowired
     private WorkplaceService workplaceService;
 
+    @Autowired
+    private DataVersionService dataVersionService;
+
     @GetMapping
-    public ResponseEntity<List<WorkplaceDTO>> getAllWorkplaces() {
-        return ResponseEntity.ok(workplaceService.getAllWorkplaces());
+    public ResponseEntity<List<WorkplaceDTO>> getAllWorkplaces(WebRequest request) {
+        return dataVersionService.conditionalGet(request, workplaceService::getAllWorkplaces,
+                DataVersionService.WORKPLACE, DataVersionService.JOB);
     }
 
     @PostMapping
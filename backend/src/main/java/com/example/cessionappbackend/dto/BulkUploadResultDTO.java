@@ -0,0 +1,34 @@
+package com.example.cessionappbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a bulk document upload, with one entry per submitted file in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUploadResultDTO {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private long durationMs;
+    private List<FileResult> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FileResult {
+        private String fileName;
+        private Integer clientNumber;
+        private String documentType;
+        private boolean success;
+        private UUID documentId; // Set when the document was stored
+        private String error; // Set when the file was rejected
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.cessionappbackend.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Data
+public class FinancialMonthDTO {
+    private int year;
+    private int month;
+    private BigDecimal salesRevenue;
+    private BigDecimal costOfGoods;
+    private BigDecimal otherIncome;
+    private Map<String, BigDecimal> incomeBySource;
+    private BigDecimal totalExpenses;
+    private Map<String, BigDecimal> expensesByCategory;
+    // Sales revenue less cost of goods, plus other income, less expenses
+    private BigDecimal profit;
+
+    public static FinancialMonthDTO empty(YearMonth yearMonth) {
+        FinancialMonthDTO dto = new FinancialMonthDTO();
+        dto.setYear(yearMonth.getYear());
+        dto.setMonth(yearMonth.getMonthValue());
+        dto.setSalesRevenue(BigDecimal.ZERO);
+        dto.setCostOfGoods(BigDecimal.ZERO);
+        dto.setIncomeBySource(new TreeMap<>());
+        dto.setExpensesByCategory(new TreeMap<>());
+        return dto;
+    }
+
+    public void computeTotals() {
+        otherIncome = incomeBySource.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        totalExpenses = expensesByCategory.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        profit = salesRevenue.subtract(costOfGoods).add(otherIncome).subtract(totalExpenses);
+    }
+}
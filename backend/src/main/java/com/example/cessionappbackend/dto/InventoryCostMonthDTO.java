@@ -0,0 +1,18 @@
+package com.example.cessionappbackend.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class InventoryCostMonthDTO {
+    private Long productId;
+    private String productName;
+    private int year;
+    private int month;
+    private Long unitsSold;
+    private BigDecimal revenue;
+    private BigDecimal cogs;
+    private BigDecimal margin;
+    private BigDecimal marginRate;
+}
@@ -0,0 +1,38 @@
+package com.example.cessionappbackend.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Value of the stock on hand and margin on cost of goods sold, per product and in total,
+ * as of the last stock movement the inventory valuation applied.
+ */
+@Data
+public class InventoryValuationDTO {
+    private String costingMethod;
+    private LocalDateTime processedThrough;
+    private Long movementsProcessed;
+    private BigDecimal totalOnHandValue;
+    private BigDecimal totalRevenue;
+    private BigDecimal totalCogs;
+    private BigDecimal totalMargin;
+    private List<ProductValuation> products;
+
+    @Data
+    public static class ProductValuation {
+        private Long productId;
+        private String productName;
+        private Integer onHandQuantity;
+        private BigDecimal averageUnitCost;
+        private BigDecimal onHandValue;
+        private Long unitsSold;
+        private BigDecimal revenue;
+        private BigDecimal cogs;
+        private BigDecimal margin;
+        // Margin over revenue; null without revenue
+        private BigDecimal marginRate;
+    }
+}
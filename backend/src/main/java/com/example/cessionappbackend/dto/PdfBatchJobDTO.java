@@ -0,0 +1,29 @@
+package com.example.cessionappbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress of a batch PDF job, as returned when polling it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfBatchJobDTO {
+    private UUID jobId;
+    private String status; // QUEUED, RUNNING, COMPLETED or FAILED
+    private String documentType;
+    private String format;
+    private int total;
+    private int processed;
+    private int failed;
+    private List<String> errors; // First failures, as "cessionId: reason"
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private Long fileSizeBytes; // Set once the output is ready for download
+}
@@ -0,0 +1,26 @@
+package com.example.cessionappbackend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request to render one document type for many cessions in a background job.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfBatchRequestDTO {
+    @NotEmpty(message = "At least one cession ID is required")
+    private List<UUID> cessionIds;
+
+    @NotBlank(message = "Document type is required")
+    private String documentType; // SALARY_ASSIGNMENT, CLEARANCE_CERTIFICATE or RELEASE_REQUEST
+
+    private String format = "PDF"; // PDF for one merged file, ZIP for one file per cession
+}
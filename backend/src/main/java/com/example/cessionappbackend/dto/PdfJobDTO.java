@@ -0,0 +1,25 @@
+package com.example.cessionappbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * State of a single-document PDF job, as returned when polling it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfJobDTO {
+    private UUID jobId;
+    private String status; // QUEUED, RUNNING, COMPLETED or FAILED
+    private String documentType;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private Long renderTimeMs;
+    private Long fileSizeBytes; // Set once the PDF is ready for download
+    private String error;
+}
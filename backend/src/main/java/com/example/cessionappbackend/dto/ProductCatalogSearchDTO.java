@@ -0,0 +1,30 @@
+package com.example.cessionappbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of a catalog search: the matching products and, for each facet, how many
+ * products each value would give with the other active filters kept.
+ */
+@Data
+public class ProductCatalogSearchDTO {
+    private int total;
+    private List<ProductDTO> products;
+    private List<FacetCount> categories;
+    private List<FacetCount> suppliers;
+    private List<FacetCount> stockStates;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+        // The value to filter on: a category ID, a supplier or a stock state
+        private String value;
+        private String label;
+        private long count;
+    }
+}
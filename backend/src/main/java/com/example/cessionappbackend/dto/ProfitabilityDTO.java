@@ -0,0 +1,24 @@
+package com.example.cessionappbackend.dto;
+
+import com.example.cessionappbackend.entities.DailyProfit;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales of one product or item category over a period, as ranked by the profitability endpoint.
+ */
+@Data
+public class ProfitabilityDTO {
+    private DailyProfit.Dimension dimension;
+    // Product or category id; 0 for products without a category
+    private Long id;
+    private String name;
+    private BigDecimal revenue;
+    private BigDecimal cost;
+    private BigDecimal margin;
+    // Margin over revenue; null without revenue
+    private BigDecimal marginRate;
+    private Long unitsSold;
+    private Long saleCount;
+}
@@ -0,0 +1,40 @@
+package com.example.cessionappbackend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A sale of several products, recorded in full or not at all.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleRequestDTO {
+    @NotEmpty
+    @Valid
+    private List<Line> lines;
+
+    private String notes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        @NotNull
+        private Long productId;
+
+        @NotNull
+        @Positive
+        private Integer quantity; // Units sold
+
+        private BigDecimal sellingPrice; // Defaults to the product's selling price
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.cessionappbackend.dto;
+
+import com.example.cessionappbackend.entities.StockMovement.MovementType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A stock movement as listed in the history endpoints, selected column by column
+ * instead of loading the movement and its product.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementHistoryDTO {
+    private Long id;
+    private Long productId;
+    private String productName;
+    private MovementType type;
+    private Integer quantity;
+    private Integer previousQuantity;
+    private Integer newQuantity;
+    private BigDecimal sellingPriceAtSale;
+    private String notes;
+    private LocalDateTime createdAt;
+
+    // The product's stock right after this movement; only set in a single product's history
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer stockLevel;
+
+    public StockMovementHistoryDTO(Long id, Long productId, String productName, MovementType type, Integer quantity,
+                                   Integer previousQuantity, Integer newQuantity, BigDecimal sellingPriceAtSale,
+                                   String notes, LocalDateTime createdAt) {
+        this(id, productId, productName, type, quantity, previousQuantity, newQuantity, sellingPriceAtSale,
+             notes, createdAt, null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.cessionappbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales of one product, or of one item category, on one day: revenue, cost of the units
+ * sold at the time of the sale, units and sale count. Products without a category are
+ * counted under {@link #UNCATEGORIZED}.
+ */
+@Entity
+@Table(name = "daily_profits", indexes = {
+    @Index(name = "idx_daily_profits_dimension_date", columnList = "dimension, sale_date")
+})
+@Data
+@NoArgsConstructor
+public class DailyProfit {
+
+    public static final long UNCATEGORIZED = 0L;
+
+    public enum Dimension {
+        PRODUCT,
+        CATEGORY
+    }
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false, precision = 15, scale = 3)
+    private BigDecimal revenue;
+
+    @Column(nullable = false, precision = 15, scale = 3)
+    private BigDecimal cost;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold;
+
+    @Column(name = "sale_count", nullable = false)
+    private Long saleCount;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "sale_date", nullable = false)
+        private LocalDate saleDate;
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false, length = 10)
+        private Dimension dimension;
+
+        // Product or category id
+        @Column(name = "dimension_id", nullable = false)
+        private Long dimensionId;
+    }
+}
@@ -9,8 +9,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+// Expenses are always read for one user over a date range; with category and amount in the
+// index too, the per-category totals never touch the table
 @Entity
-@Table(name = "expenses")
+@Table(name = "expenses", indexes = {
+    @Index(name = "idx_expenses_user_date", columnList = "user_id, date, category, amount")
+})
 @Data
 public class Expense {
     @Id
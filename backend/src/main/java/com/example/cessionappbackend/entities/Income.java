@@ -10,7 +10,9 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "incomes")
+@Table(name = "incomes", indexes = {
+    @Index(name = "idx_incomes_user_date", columnList = "user_id, date, source, amount")
+})
 @Data
 public class Income {
     @Id
@@ -0,0 +1,49 @@
+package com.example.cessionappbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Units sold, revenue and cost of goods sold of one product in one month, as costed by
+ * the inventory valuation.
+ */
+@Entity
+@Table(name = "inventory_cost_months")
+@Data
+@NoArgsConstructor
+public class InventoryCostMonth {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold = 0L;
+
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal cogs = BigDecimal.ZERO;
+
+    public InventoryCostMonth(Key id) {
+        this.id = id;
+    }
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "product_id", nullable = false)
+        private Long productId;
+
+        @Column(name = "month_start", nullable = false)
+        private LocalDate monthStart;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.cessionappbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Running cost state of one product, as left by the last valuation run: the quantity on
+ * hand, its value, the unconsumed FIFO lots and the lifetime sales totals.
+ */
+@Entity
+@Table(name = "inventory_cost_states")
+@Data
+public class InventoryCostState {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity = 0;
+
+    @Column(name = "stock_value", nullable = false, precision = 19, scale = 6)
+    private BigDecimal value = BigDecimal.ZERO;
+
+    // "quantity@unitCost" lots, oldest first, separated by ';'; only kept under FIFO costing
+    @Lob
+    @Column(name = "fifo_lots")
+    private String fifoLots;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold = 0L;
+
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal cogs = BigDecimal.ZERO;
+}
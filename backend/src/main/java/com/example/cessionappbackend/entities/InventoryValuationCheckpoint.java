@@ -0,0 +1,42 @@
+package com.example.cessionappbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far the inventory valuation has replayed the stock movements: the position of the
+ * last movement applied, in (created at, id) order, and the costing method used.
+ */
+@Entity
+@Table(name = "inventory_valuation_checkpoints")
+@Data
+public class InventoryValuationCheckpoint {
+
+    public static final int SINGLETON_ID = 1;
+
+    public enum CostingMethod {
+        WEIGHTED_AVERAGE,
+        FIFO
+    }
+
+    @Id
+    private Integer id = SINGLETON_ID;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "costing_method", nullable = false, length = 20)
+    private CostingMethod costingMethod;
+
+    @Column(name = "last_created_at")
+    private LocalDateTime lastCreatedAt;
+
+    @Column(name = "last_movement_id")
+    private Long lastMovementId;
+
+    @Column(name = "movements_processed", nullable = false)
+    private Long movementsProcessed = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,61 @@
+package com.example.cessionappbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * One cell of the monthly financial cube: the total of one kind of entry for a user,
+ * a month and a key (the income source or expense category). Product sales are not
+ * tied to a user and are stored under {@link #SHOP_WIDE}.
+ */
+@Entity
+@Table(name = "monthly_financials", indexes = {
+    @Index(name = "idx_monthly_financials_user_month", columnList = "user_id, month_start")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyFinancial {
+
+    public static final UUID SHOP_WIDE = new UUID(0L, 0L);
+
+    public enum EntryType {
+        SALES,
+        COST_OF_GOODS,
+        INCOME,
+        EXPENSE
+    }
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false, precision = 15, scale = 3)
+    private BigDecimal amount;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "user_id", nullable = false)
+        private UUID userId;
+
+        @Column(name = "month_start", nullable = false)
+        private LocalDate monthStart;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "entry_type", nullable = false, length = 20)
+        private EntryType entryType;
+
+        // Income source or expense category; empty for sales and cost of goods
+        @Column(name = "entry_key", nullable = false)
+        private String entryKey;
+    }
+}
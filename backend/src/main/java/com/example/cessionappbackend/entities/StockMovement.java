@@ -7,7 +7,11 @@ import java.math.BigDecimal;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @Entity
-@Table(name = "stock_movements")
+@Table(name = "stock_movements", indexes = {
+    @Index(name = "idx_stock_movements_type_created_at", columnList = "type, created_at"),
+    @Index(name = "idx_stock_movements_product_created_at", columnList = "product_id, created_at"),
+    @Index(name = "idx_stock_movements_created_at", columnList = "created_at")
+})
 @Data
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class StockMovement {
@@ -35,6 +39,10 @@ public class StockMovement {
     @Column(name = "selling_price_at_sale", precision = 10, scale = 3)
     private BigDecimal sellingPriceAtSale;
 
+    // The product's purchase price when the movement was recorded
+    @Column(name = "unit_cost", precision = 10, scale = 3)
+    private BigDecimal unitCost;
+
     @Column(length = 500)
     private String notes;
 
@@ -1,5 +1,6 @@
 package com.example.cessionappbackend.entities;
 
+import com.example.cessionappbackend.security.UserPrincipalInvalidator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -15,6 +16,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(UserPrincipalInvalidator.class)
 @Table(name = "users",
        uniqueConstraints = {
            @UniqueConstraint(columnNames = "email")
@@ -0,0 +1,42 @@
+package com.example.cessionappbackend.events;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Event fired when products change in a way the product catalog index must follow.
+ * An event without product IDs asks for the whole catalog to be reindexed.
+ */
+public class ProductCatalogChangeEvent {
+
+    private final Collection<Long> productIds;
+
+    private ProductCatalogChangeEvent(Collection<Long> productIds) {
+        this.productIds = productIds;
+    }
+
+    public static ProductCatalogChangeEvent of(Collection<Long> productIds) {
+        return new ProductCatalogChangeEvent(List.copyOf(productIds));
+    }
+
+    public static ProductCatalogChangeEvent of(Long productId) {
+        return new ProductCatalogChangeEvent(List.of(productId));
+    }
+
+    public static ProductCatalogChangeEvent all() {
+        return new ProductCatalogChangeEvent(null);
+    }
+
+    public boolean isAll() {
+        return productIds == null;
+    }
+
+    public Collection<Long> getProductIds() {
+        return productIds;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCatalogChangeEvent{productIds=" + (isAll() ? "all" : productIds) + '}';
+    }
+}
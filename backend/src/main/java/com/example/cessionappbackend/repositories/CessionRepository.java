@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -22,6 +23,13 @@ public interface CessionRepository extends JpaRepository<Cession, UUID> {
     List<Cession> findByClientIdAndStatus(UUID clientId, String status);
     List<Cession> findByStartDateBetween(LocalDate start, LocalDate end);
 
+    /**
+     * Cessions with everything the document generators read, in a single query
+     */
+    @Query("SELECT c FROM Cession c JOIN FETCH c.client cl LEFT JOIN FETCH cl.workplace LEFT JOIN FETCH cl.job " +
+           "WHERE c.id IN :ids")
+    List<Cession> findWithDocumentDataByIdIn(@Param("ids") Collection<UUID> ids);
+
     /**
      * Advanced search query with improved performance and combined criteria support
      */
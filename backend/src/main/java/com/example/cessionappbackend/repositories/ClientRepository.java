@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,6 +14,7 @@ import java.util.UUID;
 public interface ClientRepository extends JpaRepository<Client, UUID>, JpaSpecificationExecutor<Client> {
     Optional<Client> findByCin(String cin);
     Optional<Client> findByClientNumber(Integer clientNumber);
+    List<Client> findByClientNumberIn(Collection<Integer> clientNumbers);
     Optional<Client> findByFullName(String fullName);
     Optional<Client> findByWorkerNumber(String workerNumber);
     // Add custom query methods if needed, e.g., find by name containing
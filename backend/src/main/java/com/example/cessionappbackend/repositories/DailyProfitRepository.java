@@ -0,0 +1,76 @@
+package com.example.cessionappbackend.repositories;
+
+import com.example.cessionappbackend.entities.DailyProfit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailyProfitRepository extends JpaRepository<DailyProfit, DailyProfit.Key> {
+
+    String INSERT_COLUMNS = "INSERT INTO daily_profits (sale_date, dimension, dimension_id, revenue, cost, units_sold, sale_count) ";
+
+    // Revenue and cost of sale movements; movements from before unit costs were recorded use the product's price
+    String SALES_TOTALS = "SUM(COALESCE(sm.selling_price_at_sale, 0) * sm.quantity), " +
+                          "SUM(COALESCE(sm.unit_cost, p.purchase_price, 0) * sm.quantity), SUM(sm.quantity), COUNT(*) " +
+                          "FROM stock_movements sm JOIN product p ON p.id = sm.product_id " +
+                          "WHERE sm.type = 'OUTBOUND' AND sm.created_at IS NOT NULL ";
+
+    String PRODUCT_ROWS = INSERT_COLUMNS + "SELECT CAST(sm.created_at AS DATE), 'PRODUCT', sm.product_id, " + SALES_TOTALS;
+
+    String CATEGORY_ROWS = INSERT_COLUMNS + "SELECT CAST(sm.created_at AS DATE), 'CATEGORY', COALESCE(p.category_id, 0), " + SALES_TOTALS;
+
+    // Creates the row if needed, so that the increment below always has a row to update
+    @Modifying
+    @Query(value = "INSERT INTO daily_profits (sale_date, dimension, dimension_id, revenue, cost, units_sold, sale_count) " +
+                   "VALUES (:saleDate, :dimension, :dimensionId, 0, 0, 0, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("saleDate") LocalDate saleDate, @Param("dimension") String dimension,
+                       @Param("dimensionId") Long dimensionId);
+
+    @Modifying
+    @Query("UPDATE DailyProfit r SET r.revenue = r.revenue + :revenue, r.cost = r.cost + :cost, " +
+           "r.unitsSold = r.unitsSold + :units, r.saleCount = r.saleCount + :sales WHERE r.id = :id")
+    int addSales(@Param("id") DailyProfit.Key id, @Param("revenue") BigDecimal revenue, @Param("cost") BigDecimal cost,
+                 @Param("units") long units, @Param("sales") long sales);
+
+    /**
+     * Totals per product or category over [fromDate, toDate): id, revenue, cost, units sold, sale count.
+     */
+    @Query("SELECT r.id.dimensionId, SUM(r.revenue), SUM(r.cost), SUM(r.unitsSold), SUM(r.saleCount) " +
+           "FROM DailyProfit r WHERE r.id.dimension = :dimension " +
+           "AND r.id.saleDate >= :fromDate AND r.id.saleDate < :toDate GROUP BY r.id.dimensionId")
+    List<Object[]> sumByDimension(@Param("dimension") DailyProfit.Dimension dimension,
+                                  @Param("fromDate") LocalDate fromDate,
+                                  @Param("toDate") LocalDate toDate);
+
+    @Modifying
+    @Query("DELETE FROM DailyProfit r WHERE r.id.saleDate IN :saleDates")
+    int deleteBySaleDates(@Param("saleDates") Collection<LocalDate> saleDates);
+
+    // Rebuild queries: they insert into days that were just deleted, or into an empty rollup
+
+    @Modifying
+    @Query(value = PRODUCT_ROWS + "AND CAST(sm.created_at AS DATE) IN (:saleDates) " +
+                   "GROUP BY CAST(sm.created_at AS DATE), sm.product_id", nativeQuery = true)
+    int rebuildProductDays(@Param("saleDates") Collection<LocalDate> saleDates);
+
+    @Modifying
+    @Query(value = CATEGORY_ROWS + "AND CAST(sm.created_at AS DATE) IN (:saleDates) " +
+                   "GROUP BY CAST(sm.created_at AS DATE), COALESCE(p.category_id, 0)", nativeQuery = true)
+    int rebuildCategoryDays(@Param("saleDates") Collection<LocalDate> saleDates);
+
+    @Modifying
+    @Query(value = PRODUCT_ROWS + "GROUP BY CAST(sm.created_at AS DATE), sm.product_id", nativeQuery = true)
+    int rebuildAllProducts();
+
+    @Modifying
+    @Query(value = CATEGORY_ROWS + "GROUP BY CAST(sm.created_at AS DATE), COALESCE(p.category_id, 0)", nativeQuery = true)
+    int rebuildAllCategories();
+}
@@ -4,6 +4,7 @@ import com.example.cessionappbackend.entities.Document;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,6 +14,7 @@ public interface DocumentRepository extends JpaRepository<Document, UUID> {
     List<Document> findByClientId(UUID clientId);
     List<Document> findByCessionId(UUID cessionId);
     Optional<Document> findByStoragePath(String storagePath);
+    List<Document> findByStoragePathIn(Collection<String> storagePaths);
     // Find documents by client and type (e.g., find NATIONAL_ID for a client)
     Optional<Document> findByClientIdAndDocumentType(UUID clientId, String documentType);
 }
@@ -10,44 +10,37 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Date ranges are half-open, {@code fromDate} included and {@code toDate} excluded, and
+ * compared on the column itself so the (user_id, date) index can serve them.
+ */
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, UUID> {
-    List<Expense> findByUserIdAndDateBetween(UUID userId, LocalDate startDate, LocalDate endDate);
-
-    Page<Expense> findByUserId(UUID userId, Pageable pageable);
-
-    @Query("SELECT e FROM Expense e WHERE e.userId = :userId AND YEAR(e.date) = :year AND MONTH(e.date) = :month")
-    List<Expense> findByUserIdAndYearAndMonth(
+    @Query("SELECT e FROM Expense e WHERE e.userId = :userId AND e.date >= :fromDate AND e.date < :toDate")
+    List<Expense> findByUserIdInRange(
         @Param("userId") UUID userId,
-        @Param("year") int year,
-        @Param("month") int month
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate
     );
 
-    @Query("SELECT e FROM Expense e WHERE e.userId = :userId AND e.date BETWEEN :startDate AND :endDate ORDER BY e.date DESC")
+    Page<Expense> findByUserId(UUID userId, Pageable pageable);
+
+    @Query("SELECT e FROM Expense e WHERE e.userId = :userId AND e.date >= :fromDate AND e.date < :toDate ORDER BY e.date DESC")
     Page<Expense> findByUserIdAndDateRange(
         @Param("userId") UUID userId,
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate,
         Pageable pageable
     );
 
-    @Query("SELECT e.category, SUM(e.amount) FROM Expense e WHERE e.userId = :userId AND YEAR(e.date) = :year AND MONTH(e.date) = :month GROUP BY e.category")
-    List<Object[]> getExpensesByCategoryForMonth(
-        @Param("userId") UUID userId,
-        @Param("year") int year,
-        @Param("month") int month
-    );
-
-    @Query("SELECT e.category as category, SUM(e.amount) as total " +
-           "FROM Expense e " +
-           "WHERE e.userId = :userId AND e.date BETWEEN :startDate AND :endDate " +
+    @Query("SELECT e.category, SUM(e.amount) FROM Expense e " +
+           "WHERE e.userId = :userId AND e.date >= :fromDate AND e.date < :toDate " +
            "GROUP BY e.category")
-    List<Map<String, Object>> getExpensesByCategoryForPeriod(
+    List<Object[]> sumByCategoryInRange(
         @Param("userId") UUID userId,
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate
     );
-} 
\ No newline at end of file
+}
@@ -8,43 +8,47 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * Date ranges are half-open: {@code fromDate} included, {@code toDate} excluded.
+ */
 @Repository
 public interface IncomeRepository extends JpaRepository<Income, UUID> {
-    List<Income> findByUserIdAndDateBetween(UUID userId, LocalDate startDate, LocalDate endDate);
-    
-    Page<Income> findByUserId(UUID userId, Pageable pageable);
-    
-    @Query("SELECT i FROM Income i WHERE i.userId = :userId AND YEAR(i.date) = :year AND MONTH(i.date) = :month")
-    List<Income> findByUserIdAndYearAndMonth(
+    @Query("SELECT i FROM Income i WHERE i.userId = :userId AND i.date >= :fromDate AND i.date < :toDate")
+    List<Income> findByUserIdInRange(
         @Param("userId") UUID userId,
-        @Param("year") int year,
-        @Param("month") int month
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate
     );
-    
-    @Query("SELECT i FROM Income i WHERE i.userId = :userId AND i.date BETWEEN :startDate AND :endDate ORDER BY i.date DESC")
+
+    Page<Income> findByUserId(UUID userId, Pageable pageable);
+
+    @Query("SELECT i FROM Income i WHERE i.userId = :userId AND i.date >= :fromDate AND i.date < :toDate ORDER BY i.date DESC")
     Page<Income> findByUserIdAndDateRange(
         @Param("userId") UUID userId,
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate,
         Pageable pageable
     );
-    
-    @Query("SELECT i.source, SUM(i.amount) FROM Income i WHERE i.userId = :userId AND YEAR(i.date) = :year AND MONTH(i.date) = :month GROUP BY i.source")
-    List<Object[]> getIncomesBySourceForMonth(
+
+    @Query("SELECT i.source, SUM(i.amount) FROM Income i " +
+           "WHERE i.userId = :userId AND i.date >= :fromDate AND i.date < :toDate " +
+           "GROUP BY i.source")
+    List<Object[]> sumBySourceInRange(
         @Param("userId") UUID userId,
-        @Param("year") int year,
-        @Param("month") int month
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate
     );
 
     @Query("SELECT SUM(i.amount) FROM Income i " +
-           "WHERE i.userId = :userId AND i.date BETWEEN :startDate AND :endDate")
-    Double getTotalIncomeForPeriod(
+           "WHERE i.userId = :userId AND i.date >= :fromDate AND i.date < :toDate")
+    BigDecimal sumInRange(
         @Param("userId") UUID userId,
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate
     );
-} 
\ No newline at end of file
+}
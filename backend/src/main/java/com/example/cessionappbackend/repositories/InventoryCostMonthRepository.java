@@ -0,0 +1,29 @@
+package com.example.cessionappbackend.repositories;
+
+import com.example.cessionappbackend.entities.InventoryCostMonth;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface InventoryCostMonthRepository extends JpaRepository<InventoryCostMonth, InventoryCostMonth.Key> {
+
+    @Query("SELECT m FROM InventoryCostMonth m WHERE m.id.monthStart BETWEEN :fromMonth AND :toMonth " +
+           "AND (:productId IS NULL OR m.id.productId = :productId) ORDER BY m.id.monthStart, m.id.productId")
+    List<InventoryCostMonth> findByMonths(@Param("fromMonth") LocalDate fromMonth,
+                                          @Param("toMonth") LocalDate toMonth,
+                                          @Param("productId") Long productId);
+
+    @Modifying
+    @Query("DELETE FROM InventoryCostMonth m WHERE m.id.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("DELETE FROM InventoryCostMonth m")
+    int deleteAllMonths();
+}
@@ -0,0 +1,15 @@
+package com.example.cessionappbackend.repositories;
+
+import com.example.cessionappbackend.entities.InventoryCostState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryCostStateRepository extends JpaRepository<InventoryCostState, Long> {
+
+    @Modifying
+    @Query("DELETE FROM InventoryCostState s")
+    int deleteAllStates();
+}
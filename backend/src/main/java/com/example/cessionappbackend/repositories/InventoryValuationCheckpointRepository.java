@@ -0,0 +1,9 @@
+package com.example.cessionappbackend.repositories;
+
+import com.example.cessionappbackend.entities.InventoryValuationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryValuationCheckpointRepository extends JpaRepository<InventoryValuationCheckpoint, Integer> {
+}
@@ -0,0 +1,93 @@
+package com.example.cessionappbackend.repositories;
+
+import com.example.cessionappbackend.entities.MonthlyFinancial;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MonthlyFinancialRepository extends JpaRepository<MonthlyFinancial, MonthlyFinancial.Key> {
+
+    @Query("SELECT m FROM MonthlyFinancial m WHERE m.id.userId IN :userIds " +
+           "AND m.id.monthStart BETWEEN :fromMonth AND :toMonth")
+    List<MonthlyFinancial> findByUsersAndMonths(@Param("userIds") Collection<UUID> userIds,
+                                                @Param("fromMonth") LocalDate fromMonth,
+                                                @Param("toMonth") LocalDate toMonth);
+
+    // Creates the cell if needed, so that the increment below always has a row to update
+    @Modifying
+    @Query(value = "INSERT INTO monthly_financials (user_id, month_start, entry_type, entry_key, amount) " +
+                   "VALUES (:userId, :monthStart, :entryType, :entryKey, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") UUID userId, @Param("monthStart") LocalDate monthStart,
+                       @Param("entryType") String entryType, @Param("entryKey") String entryKey);
+
+    @Modifying
+    @Query("UPDATE MonthlyFinancial m SET m.amount = m.amount + :amount WHERE m.id = :id")
+    int addAmount(@Param("id") MonthlyFinancial.Key id, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("DELETE FROM MonthlyFinancial m WHERE m.id.userId = :userId AND m.id.monthStart IN :monthStarts " +
+           "AND m.id.entryType IN :entryTypes")
+    int deleteCells(@Param("userId") UUID userId, @Param("monthStarts") Collection<LocalDate> monthStarts,
+                    @Param("entryTypes") Collection<MonthlyFinancial.EntryType> entryTypes);
+
+    // Rebuild queries: they insert into cells that were just deleted, or into an empty cube. Cost of
+    // goods uses the unit cost recorded with each sale, as the incremental path does; movements from
+    // before unit costs were recorded fall back to the product's price
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_financials (user_id, month_start, entry_type, entry_key, amount) " +
+                   "SELECT :shopWide, CAST(DATE_TRUNC('MONTH', sm.created_at) AS DATE), 'SALES', '', " +
+                   "SUM(COALESCE(sm.selling_price_at_sale, 0) * sm.quantity) " +
+                   "FROM stock_movements sm WHERE sm.type = 'OUTBOUND' AND sm.created_at IS NOT NULL " +
+                   "AND CAST(DATE_TRUNC('MONTH', sm.created_at) AS DATE) IN (:monthStarts) " +
+                   "GROUP BY CAST(DATE_TRUNC('MONTH', sm.created_at) AS DATE)", nativeQuery = true)
+    int rebuildSales(@Param("shopWide") UUID shopWide, @Param("monthStarts") Collection<LocalDate> monthStarts);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_financials (user_id, month_start, entry_type, entry_key, amount) " +
+                   "SELECT :shopWide, CAST(DATE_TRUNC('MONTH', sm.created_at) AS DATE), 'COST_OF_GOODS', '', " +
+                   "SUM(COALESCE(sm.unit_cost, p.purchase_price, 0) * sm.quantity) " +
+                   "FROM stock_movements sm JOIN product p ON p.id = sm.product_id " +
+                   "WHERE sm.type = 'OUTBOUND' AND sm.created_at IS NOT NULL " +
+                   "AND CAST(DATE_TRUNC('MONTH', sm.created_at) AS DATE) IN (:monthStarts) " +
+                   "GROUP BY CAST(DATE_TRUNC('MONTH', sm.created_at) AS DATE)", nativeQuery = true)
+    int rebuildCostOfGoods(@Param("shopWide") UUID shopWide, @Param("monthStarts") Collection<LocalDate> monthStarts);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_financials (user_id, month_start, entry_type, entry_key, amount) " +
+                   "SELECT :shopWide, CAST(DATE_TRUNC('MONTH', sm.created_at) AS DATE), 'SALES', '', " +
+                   "SUM(COALESCE(sm.selling_price_at_sale, 0) * sm.quantity) " +
+                   "FROM stock_movements sm WHERE sm.type = 'OUTBOUND' AND sm.created_at IS NOT NULL " +
+                   "GROUP BY CAST(DATE_TRUNC('MONTH', sm.created_at) AS DATE)", nativeQuery = true)
+    int rebuildAllSales(@Param("shopWide") UUID shopWide);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_financials (user_id, month_start, entry_type, entry_key, amount) " +
+                   "SELECT :shopWide, CAST(DATE_TRUNC('MONTH', sm.created_at) AS DATE), 'COST_OF_GOODS', '', " +
+                   "SUM(COALESCE(sm.unit_cost, p.purchase_price, 0) * sm.quantity) " +
+                   "FROM stock_movements sm JOIN product p ON p.id = sm.product_id " +
+                   "WHERE sm.type = 'OUTBOUND' AND sm.created_at IS NOT NULL " +
+                   "GROUP BY CAST(DATE_TRUNC('MONTH', sm.created_at) AS DATE)", nativeQuery = true)
+    int rebuildAllCostOfGoods(@Param("shopWide") UUID shopWide);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_financials (user_id, month_start, entry_type, entry_key, amount) " +
+                   "SELECT e.user_id, CAST(DATE_TRUNC('MONTH', e.date) AS DATE), 'EXPENSE', e.category, SUM(e.amount) " +
+                   "FROM expenses e GROUP BY e.user_id, CAST(DATE_TRUNC('MONTH', e.date) AS DATE), e.category", nativeQuery = true)
+    int rebuildAllExpenses();
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_financials (user_id, month_start, entry_type, entry_key, amount) " +
+                   "SELECT i.user_id, CAST(DATE_TRUNC('MONTH', i.date) AS DATE), 'INCOME', i.source, SUM(i.amount) " +
+                   "FROM incomes i GROUP BY i.user_id, CAST(DATE_TRUNC('MONTH', i.date) AS DATE), i.source", nativeQuery = true)
+    int rebuildAllIncomes();
+}
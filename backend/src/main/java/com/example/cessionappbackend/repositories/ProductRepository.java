@@ -3,9 +3,12 @@ package com.example.cessionappbackend.repositories;
 import com.example.cessionappbackend.entities.Product;
 import com.example.cessionappbackend.entities.ItemCategory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +26,42 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     List<Product> findByStockQuantityLessThanEqual(Integer reorderPoint);
     List<Product> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(String name, String description);
-} 
\ No newline at end of file
+
+    // One conditional UPDATE: concurrent changes queue on the row lock and none can take the stock below zero.
+    // Returns 0 when the product does not exist or has too little stock
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :delta WHERE p.id = :id AND p.stockQuantity + :delta >= 0")
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta);
+
+    // Read from the database, not from an entity loaded before adjustStock
+    @Query("SELECT p.stockQuantity FROM Product p WHERE p.id = :id")
+    Integer findStockQuantityById(@Param("id") Long id);
+
+    // Column values for the catalog index, read fresh rather than from entities a caller may still hold
+    String CATALOG_SELECT = "SELECT p.id AS id, p.name AS name, p.description AS description, p.sku AS sku, " +
+            "c.id AS categoryId, c.name AS categoryName, p.supplier AS supplier, p.stockQuantity AS stockQuantity, " +
+            "p.reorderPoint AS reorderPoint, p.imageUrl AS imageUrl, p.purchasePrice AS purchasePrice, " +
+            "p.sellingPrice AS sellingPrice, p.specs AS specs FROM Product p LEFT JOIN p.category c";
+
+    @Query(CATALOG_SELECT)
+    List<CatalogRow> findCatalogRows();
+
+    @Query(CATALOG_SELECT + " WHERE p.id IN :ids")
+    List<CatalogRow> findCatalogRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface CatalogRow {
+        Long getId();
+        String getName();
+        String getDescription();
+        String getSku();
+        Long getCategoryId();
+        String getCategoryName();
+        String getSupplier();
+        Integer getStockQuantity();
+        Integer getReorderPoint();
+        String getImageUrl();
+        BigDecimal getPurchasePrice();
+        BigDecimal getSellingPrice();
+        String getSpecs();
+    }
+}
@@ -1,19 +1,33 @@
 package com.example.cessionappbackend.repositories;
 
+import com.example.cessionappbackend.dto.StockMovementHistoryDTO;
 import com.example.cessionappbackend.entities.StockMovement;
 import com.example.cessionappbackend.entities.StockMovement.MovementType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.EntityGraph;
 
 @Repository
 public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    String HISTORY_SELECT = "SELECT new com.example.cessionappbackend.dto.StockMovementHistoryDTO(" +
+            "sm.id, p.id, p.name, sm.type, sm.quantity, sm.previousQuantity, sm.newQuantity, " +
+            "sm.sellingPriceAtSale, sm.notes, sm.createdAt) FROM StockMovement sm JOIN sm.product p ";
+
+    // Signed change of stock made by a movement, for the native history query
+    String STOCK_CHANGE = "CASE sm.type WHEN 'INBOUND' THEN sm.quantity WHEN 'OUTBOUND' THEN -sm.quantity " +
+            "ELSE COALESCE(sm.new_quantity - sm.previous_quantity, 0) END";
+
     List<StockMovement> findByProductId(Long productId);
     
     List<StockMovement> findByType(MovementType type);
@@ -28,4 +42,77 @@ public interface StockMovementRepository extends JpaRepository<StockMovement, Lo
 
     @Query("SELECT sm FROM StockMovement sm LEFT JOIN FETCH sm.product p WHERE (:type IS NULL OR sm.type = :type) ORDER BY sm.createdAt DESC")
     Page<StockMovement> findRecentStockMovements(@Param("type") MovementType type, Pageable pageable);
-} 
\ No newline at end of file
+
+    @Query("SELECT DISTINCT CAST(sm.createdAt AS LocalDate) FROM StockMovement sm " +
+           "WHERE sm.product.id = :productId AND sm.type = :type AND sm.createdAt IS NOT NULL")
+    List<LocalDate> findMovementDatesByProductId(@Param("productId") Long productId, @Param("type") MovementType type);
+
+    @Query(value = HISTORY_SELECT + "ORDER BY sm.createdAt DESC, sm.id DESC",
+           countQuery = "SELECT COUNT(sm) FROM StockMovement sm")
+    Page<StockMovementHistoryDTO> findHistory(Pageable pageable);
+
+    @Query(value = HISTORY_SELECT + "WHERE sm.createdAt BETWEEN :startDate AND :endDate ORDER BY sm.createdAt DESC, sm.id DESC",
+           countQuery = "SELECT COUNT(sm) FROM StockMovement sm WHERE sm.createdAt BETWEEN :startDate AND :endDate")
+    Page<StockMovementHistoryDTO> findHistoryByDateRange(@Param("startDate") LocalDateTime startDate,
+                                                         @Param("endDate") LocalDateTime endDate,
+                                                         Pageable pageable);
+
+    // Read row by row for exports; the caller must close the stream inside a transaction
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query(HISTORY_SELECT + "WHERE sm.createdAt BETWEEN :startDate AND :endDate ORDER BY sm.createdAt, sm.id")
+    Stream<StockMovementHistoryDTO> streamHistoryByDateRange(@Param("startDate") LocalDateTime startDate,
+                                                             @Param("endDate") LocalDateTime endDate);
+
+    // The stock level after each movement is the current stock less every later movement's change,
+    // summed by a window over the (product_id, created_at) index, so it holds for products whose
+    // opening stock was never recorded as a movement
+    @Query(value = "SELECT sm.id AS id, sm.product_id AS productId, p.name AS productName, sm.type AS type, " +
+                   "sm.quantity AS quantity, sm.previous_quantity AS previousQuantity, sm.new_quantity AS newQuantity, " +
+                   "sm.selling_price_at_sale AS sellingPriceAtSale, sm.notes AS notes, sm.created_at AS createdAt, " +
+                   "p.stock_quantity - COALESCE(SUM(" + STOCK_CHANGE + ") OVER (ORDER BY sm.created_at DESC, sm.id DESC " +
+                   "ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0) AS stockLevel " +
+                   "FROM stock_movements sm JOIN product p ON p.id = sm.product_id WHERE sm.product_id = :productId " +
+                   "ORDER BY sm.created_at DESC, sm.id DESC",
+           countQuery = "SELECT COUNT(*) FROM stock_movements WHERE product_id = :productId",
+           nativeQuery = true)
+    Page<ProductHistoryRow> findProductHistory(@Param("productId") Long productId, Pageable pageable);
+
+    interface ProductHistoryRow {
+        Long getId();
+        Long getProductId();
+        String getProductName();
+        String getType();
+        Integer getQuantity();
+        Integer getPreviousQuantity();
+        Integer getNewQuantity();
+        BigDecimal getSellingPriceAtSale();
+        String getNotes();
+        LocalDateTime getCreatedAt();
+        Integer getStockLevel();
+    }
+
+    // One chunk of the movements after a (created at, id) position, for the inventory valuation
+    @Query("SELECT sm.id AS id, p.id AS productId, sm.type AS type, sm.quantity AS quantity, " +
+           "sm.previousQuantity AS previousQuantity, sm.newQuantity AS newQuantity, " +
+           "sm.sellingPriceAtSale AS sellingPriceAtSale, sm.unitCost AS unitCost, sm.createdAt AS createdAt, " +
+           "p.purchasePrice AS purchasePrice FROM StockMovement sm JOIN sm.product p " +
+           "WHERE (sm.createdAt > :afterCreatedAt OR (sm.createdAt = :afterCreatedAt AND sm.id > :afterId)) " +
+           "AND sm.createdAt < :until ORDER BY sm.createdAt, sm.id")
+    List<ValuationRow> findValuationChunk(@Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                          @Param("afterId") Long afterId,
+                                          @Param("until") LocalDateTime until,
+                                          Pageable pageable);
+
+    interface ValuationRow {
+        Long getId();
+        Long getProductId();
+        MovementType getType();
+        Integer getQuantity();
+        Integer getPreviousQuantity();
+        Integer getNewQuantity();
+        BigDecimal getSellingPriceAtSale();
+        BigDecimal getUnitCost();
+        LocalDateTime getCreatedAt();
+        BigDecimal getPurchasePrice();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.cessionappbackend.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The users behind recently seen tokens, by token subject, so that a request carrying a
+ * known token is authenticated without reading the user again. An entry lasts until the
+ * token it was loaded for expires, and never longer than {@code ttl-seconds}; it is
+ * dropped as soon as the user is updated or deleted (see {@link UserPrincipalInvalidator}).
+ */
+@Component
+public class AuthenticatedPrincipalCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    @Value("${app.security.principal-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Bumped by every eviction, so a load that raced with one is not kept
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UserDetails get(String username, Date tokenExpiration, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        Entry cached = entries.get(username);
+        if (cached != null && cached.expiresAt > now) {
+            hits.incrementAndGet();
+            return cached.principal;
+        }
+        misses.incrementAndGet();
+
+        long generation = invalidations.get();
+        UserDetails principal = loader.apply(username);
+        long expiresAt = now + ttlSeconds * 1000L;
+        if (tokenExpiration != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiration.getTime());
+        }
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.values().removeIf(entry -> entry.expiresAt <= now);
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.clear();
+            }
+        }
+        Entry entry = new Entry(principal, expiresAt);
+        entries.put(username, entry);
+        if (invalidations.get() != generation) {
+            entries.remove(username, entry);
+        }
+        return principal;
+    }
+
+    public void evict(String username) {
+        invalidations.incrementAndGet();
+        if (username != null && entries.remove(username) != null) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("ttlSeconds", ttlSeconds);
+        return stats;
+    }
+
+    private record Entry(UserDetails principal, long expiresAt) {
+    }
+}
@@ -22,7 +22,7 @@ public class CustomUserDetailsService implements UserDetailsService {
     private UserRepository userRepository;
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         logger.debug("Loading user by email: {}", email);
         
@@ -35,9 +35,11 @@ public class CustomUserDetailsService implements UserDetailsService {
         logger.debug("Found user: {} with role: {}", email, user.getRole());
         logger.debug("Creating SimpleGrantedAuthority for role: ROLE_{}", user.getRole());
         
+        // Deactivated users can neither sign in nor use the tokens they already hold
         return new org.springframework.security.core.userdetails.User(
                 user.getEmail(),
                 user.getPassword(),
+                user.isActive(), true, true, true,
                 Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole()))
         );
     }
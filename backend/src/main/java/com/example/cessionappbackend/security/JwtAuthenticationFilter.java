@@ -1,5 +1,6 @@
 package com.example.cessionappbackend.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,6 +29,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private AuthenticatedPrincipalCache principalCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -37,29 +41,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             logger.debug("Received JWT: {}", jwt != null ? jwt : "null");
 
             if (StringUtils.hasText(jwt)) {
-                logger.debug("Attempting to validate JWT token");
-                boolean isValid = tokenProvider.validateToken(jwt);
-                logger.debug("JWT token validation result: {}", isValid);
-
-                if (isValid) {
-                String username = tokenProvider.getUsernameFromJWT(jwt);
-                logger.debug("Valid JWT token found for user: {}", username);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
-                // Get roles from token
-                String roles = tokenProvider.getRolesFromJWT(jwt);
-                logger.debug("Roles from token: {}", roles);
-                
-                // Create authentication with authorities from token
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.debug("Authentication set in SecurityContext for user: {} with authorities: {}", 
-                    username, authentication.getAuthorities());
-            } else {
+                // One parse checks the signature and expiry and yields every claim needed
+                Claims claims = tokenProvider.parseToken(jwt);
+                logger.debug("JWT token validation result: {}", claims != null);
+
+                if (claims != null) {
+                    String username = claims.getSubject();
+                    logger.debug("Valid JWT token found for user: {}", username);
+
+                    UserDetails userDetails = principalCache.get(username, claims.getExpiration(),
+                            userDetailsService::loadUserByUsername);
+
+                    if (userDetails.isEnabled()) {
+                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                                userDetails, null, userDetails.getAuthorities());
+                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        logger.debug("Authentication set in SecurityContext for user: {} with authorities: {}",
+                            username, authentication.getAuthorities());
+                    } else {
+                        logger.debug("User {} is deactivated", username);
+                    }
+                } else {
                     logger.debug("JWT token validation failed");
                 }
             } else {
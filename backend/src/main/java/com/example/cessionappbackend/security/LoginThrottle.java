@@ -0,0 +1,123 @@
+package com.example.cessionappbackend.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets limiting sign-in attempts per account and per client address. Each attempt
+ * takes a token from both; a bucket holds {@code attempts} tokens and gets one back every
+ * {@code refill-seconds}. A successful sign-in refills the account's bucket, so a mistyped
+ * password does not count against the owner later.
+ */
+@Component
+public class LoginThrottle {
+
+    private final BucketSpec accountSpec;
+    private final BucketSpec addressSpec;
+
+    private final Map<String, Bucket> accountBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> addressBuckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong accountRefusals = new AtomicLong();
+    private final AtomicLong addressRefusals = new AtomicLong();
+
+    public LoginThrottle(@Value("${app.security.login.account-attempts:5}") int accountAttempts,
+                         @Value("${app.security.login.account-refill-seconds:60}") long accountRefillSeconds,
+                         @Value("${app.security.login.address-attempts:20}") int addressAttempts,
+                         @Value("${app.security.login.address-refill-seconds:6}") long addressRefillSeconds) {
+        this.accountSpec = new BucketSpec(accountAttempts, TimeUnit.SECONDS.toNanos(accountRefillSeconds));
+        this.addressSpec = new BucketSpec(addressAttempts, TimeUnit.SECONDS.toNanos(addressRefillSeconds));
+    }
+
+    /**
+     * Take one attempt for the account and the address. Returns 0 if the attempt may go
+     * ahead, otherwise the number of seconds until it may be tried again.
+     */
+    public long tryAcquire(String email, String address) {
+        long now = System.nanoTime();
+        long addressWait = bucket(addressBuckets, address).tryTake(addressSpec, now);
+        if (addressWait > 0) {
+            addressRefusals.incrementAndGet();
+            return toSeconds(addressWait);
+        }
+        long accountWait = bucket(accountBuckets, accountKey(email)).tryTake(accountSpec, now);
+        if (accountWait > 0) {
+            accountRefusals.incrementAndGet();
+            return toSeconds(accountWait);
+        }
+        return 0;
+    }
+
+    public void loginSucceeded(String email) {
+        accountBuckets.remove(accountKey(email));
+    }
+
+    // Buckets that have refilled completely hold no state worth keeping
+    @Scheduled(fixedDelay = 60000)
+    public void evictFullBuckets() {
+        long now = System.nanoTime();
+        accountBuckets.values().removeIf(bucket -> bucket.isFull(accountSpec, now));
+        addressBuckets.values().removeIf(bucket -> bucket.isFull(addressSpec, now));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedAccounts", accountBuckets.size());
+        stats.put("trackedAddresses", addressBuckets.size());
+        stats.put("accountRefusals", accountRefusals.get());
+        stats.put("addressRefusals", addressRefusals.get());
+        return stats;
+    }
+
+    private static Bucket bucket(Map<String, Bucket> buckets, String key) {
+        return buckets.computeIfAbsent(key != null ? key : "", k -> new Bucket());
+    }
+
+    private static String accountKey(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    private record BucketSpec(int capacity, long refillNanos) {
+    }
+
+    private static final class Bucket {
+        // Guarded by this; tokens are counted as of updatedAt
+        private double tokens = -1;
+        private long updatedAt;
+
+        synchronized long tryTake(BucketSpec spec, long now) {
+            refill(spec, now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) ((1 - tokens) * spec.refillNanos());
+        }
+
+        synchronized boolean isFull(BucketSpec spec, long now) {
+            refill(spec, now);
+            return tokens >= spec.capacity();
+        }
+
+        private void refill(BucketSpec spec, long now) {
+            if (tokens < 0) {
+                tokens = spec.capacity();
+            } else if (spec.refillNanos() > 0) {
+                tokens = Math.min(spec.capacity(), tokens + (double) (now - updatedAt) / spec.refillNanos());
+            }
+            updatedAt = now;
+        }
+    }
+}
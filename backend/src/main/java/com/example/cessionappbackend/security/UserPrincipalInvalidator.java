@@ -0,0 +1,37 @@
+package com.example.cessionappbackend.security;
+
+import com.example.cessionappbackend.entities.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops a user's cached principal whenever the user row changes, so a new role, a
+ * deactivation or a deletion applies to the next request rather than after the cache
+ * entry expires.
+ */
+@Component
+public class UserPrincipalInvalidator {
+
+    @Autowired
+    private AuthenticatedPrincipalCache principalCache;
+
+    @PostUpdate
+    @PostRemove
+    public void userChanged(User user) {
+        String email = user.getEmail();
+        principalCache.evict(email);
+        // A request reading the user before this transaction commits could cache the old row again
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    principalCache.evict(email);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.cessionappbackend.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Arabic text helpers shared by the PDF generators.
+ *
+ * Shaping through the ligaturizer is memoized: documents repeat the same labels and
+ * the same few workplace, supplier and bank names, so most lookups are hits. Only short
+ * strings are kept, and the least recently used are dropped beyond the configured size.
+ *
+ * Amounts and months are spelled out here from the numbers and dates themselves, so
+ * generated documents no longer depend on the text typed into the cession form.
+ */
+@Service
+public class ArabicTextService {
+
+    // Numbers 3 to 10 take the feminine form before a masculine noun (dinar, millime)
+    private static final String[] ONES = {
+            "", "واحد", "اثنان", "ثلاثة", "أربعة", "خمسة", "ستة", "سبعة", "ثمانية", "تسعة"
+    };
+    private static final String[] TEENS = {
+            "عشرة", "أحد عشر", "اثنا عشر", "ثلاثة عشر", "أربعة عشر", "خمسة عشر",
+            "ستة عشر", "سبعة عشر", "ثمانية عشر", "تسعة عشر"
+    };
+    private static final String[] TENS = {
+            "", "", "عشرون", "ثلاثون", "أربعون", "خمسون", "ستون", "سبعون", "ثمانون", "تسعون"
+    };
+    private static final String[] HUNDREDS = {
+            "", "مائة", "مائتان", "ثلاثمائة", "أربعمائة", "خمسمائة", "ستمائة", "سبعمائة", "ثمانمائة", "تسعمائة"
+    };
+
+    // Noun forms after a count: {one, two, three to ten, eleven to ninety-nine}
+    private static final String[] THOUSAND = {"ألف", "ألفان", "آلاف", "ألفا"};
+    private static final String[] MILLION = {"مليون", "مليونان", "ملايين", "مليونا"};
+    private static final String[] DINAR = {"دينار", "ديناران", "دنانير", "دينارا"};
+    private static final String[] MILLIME = {"مليم", "مليمان", "مليمات", "مليما"};
+
+    // Month names as used in Tunisia
+    private static final String[] MONTHS = {
+            "جانفي", "فيفري", "مارس", "أفريل", "ماي", "جوان",
+            "جويلية", "أوت", "سبتمبر", "أكتوبر", "نوفمبر", "ديسمبر"
+    };
+
+    private static final long MAX_AMOUNT = 999_999_999L;
+
+    @Autowired
+    private PdfFontRegistry fontRegistry;
+
+    @Value("${app.pdf.shaping-cache.max-entries:2000}")
+    private int maxCacheEntries;
+
+    @Value("${app.pdf.shaping-cache.max-length:200}")
+    private int maxCachedLength;
+
+    // Guarded by itself
+    private final Map<String, String> shaped = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > maxCacheEntries;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Arabic letters replaced by their contextual presentation forms, as the PDF fonts need.
+     */
+    public String shape(String text) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        if (text.length() > maxCachedLength) {
+            // Long paragraphs embed per-document values and would only crowd the cache
+            return fontRegistry.getArabicLigaturizer().process(text);
+        }
+        synchronized (shaped) {
+            String cached = shaped.get(text);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        String result = fontRegistry.getArabicLigaturizer().process(text);
+        synchronized (shaped) {
+            shaped.put(text, result);
+        }
+        return result;
+    }
+
+    /**
+     * An amount in dinars spelled out, e.g. 2430 gives "ألفان وأربعمائة وثلاثون دينارا" and
+     * 135.5 gives "مائة وخمسة وثلاثون دينارا وخمسمائة مليم". Returns null for a null,
+     * negative or too large amount.
+     */
+    public String amountInWords(BigDecimal amount) {
+        if (amount == null || amount.signum() < 0) {
+            return null;
+        }
+        BigDecimal rounded = amount.setScale(3, RoundingMode.HALF_UP);
+        long dinars = rounded.longValue();
+        if (dinars > MAX_AMOUNT) {
+            return null;
+        }
+        int millimes = rounded.remainder(BigDecimal.ONE).movePointRight(3).intValue();
+
+        StringBuilder words = new StringBuilder(64);
+        if (dinars > 0 || millimes == 0) {
+            appendCounted(words, dinars, DINAR);
+        }
+        if (millimes > 0) {
+            if (words.length() > 0) {
+                words.append(" و");
+            }
+            appendCounted(words, millimes, MILLIME);
+        }
+        return words.toString();
+    }
+
+    /**
+     * A month as printed on the documents, e.g. "سبتمبر 2025".
+     */
+    public String monthYear(YearMonth month) {
+        return month == null ? null : MONTHS[month.getMonthValue() - 1] + " " + month.getYear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        synchronized (shaped) {
+            stats.put("entries", shaped.size());
+        }
+        stats.put("maxEntries", maxCacheEntries);
+        return stats;
+    }
+
+    // A count followed by its noun, with the agreement Arabic requires
+    private static void appendCounted(StringBuilder words, long count, String[] noun) {
+        if (count == 0) {
+            words.append("صفر ").append(noun[0]);
+        } else if (count == 1) {
+            words.append(noun[0]).append(' ').append(ONES[1]);
+        } else if (count == 2) {
+            words.append(noun[1]);
+        } else {
+            appendNumber(words, count);
+            words.append(' ').append(nounForm(count, noun));
+        }
+    }
+
+    private static void appendNumber(StringBuilder words, long number) {
+        int millions = (int) (number / 1_000_000);
+        int thousands = (int) (number / 1_000 % 1_000);
+        int rest = (int) (number % 1_000);
+        boolean first = true;
+        if (millions > 0) {
+            appendScale(words, millions, MILLION);
+            first = false;
+        }
+        if (thousands > 0) {
+            if (!first) {
+                words.append(" و");
+            }
+            appendScale(words, thousands, THOUSAND);
+            first = false;
+        }
+        if (rest > 0) {
+            if (!first) {
+                words.append(" و");
+            }
+            appendBelowThousand(words, rest);
+        }
+    }
+
+    // One thousand is "ألف", two thousand "ألفان", otherwise the count and the noun
+    private static void appendScale(StringBuilder words, int count, String[] noun) {
+        if (count == 1) {
+            words.append(noun[0]);
+        } else if (count == 2) {
+            words.append(noun[1]);
+        } else {
+            appendBelowThousand(words, count);
+            words.append(' ').append(nounForm(count, noun));
+        }
+    }
+
+    private static void appendBelowThousand(StringBuilder words, int number) {
+        int hundreds = number / 100;
+        int rest = number % 100;
+        if (hundreds > 0) {
+            words.append(HUNDREDS[hundreds]);
+            if (rest > 0) {
+                words.append(" و");
+            }
+        }
+        if (rest == 0) {
+            return;
+        }
+        if (rest < 10) {
+            words.append(ONES[rest]);
+        } else if (rest < 20) {
+            words.append(TEENS[rest - 10]);
+        } else {
+            int ones = rest % 10;
+            if (ones > 0) {
+                words.append(ONES[ones]).append(" و");
+            }
+            words.append(TENS[rest / 10]);
+        }
+    }
+
+    // Plural after 3 to 10, accusative singular after 11 to 99, singular otherwise
+    private static String nounForm(long count, String[] noun) {
+        int lastTwo = (int) (count % 100);
+        if (lastTwo >= 3 && lastTwo <= 10) {
+            return noun[2];
+        }
+        if (lastTwo >= 11) {
+            return noun[3];
+        }
+        return noun[0];
+    }
+}
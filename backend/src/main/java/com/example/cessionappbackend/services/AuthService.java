@@ -7,7 +7,9 @@ import com.example.cessionappbackend.entities.User;
 import com.example.cessionappbackend.repositories.UserRepository;
 import com.example.cessionappbackend.security.JwtTokenProvider;
 import com.example.cessionappbackend.security.CustomUserDetailsService;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -19,7 +21,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class AuthService {
@@ -41,12 +53,71 @@ public class AuthService {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
-    @Transactional
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+
+    // BCrypt is slow by design; verifying on a small pool of its own keeps a burst of
+    // sign-ins from taking every CPU and request thread
+    private final int verifyThreads;
+    private final ThreadPoolExecutor verifyExecutor;
+    private final AtomicLong verifyRejections = new AtomicLong();
+
+    public AuthService(@Value("${app.security.login.verify-threads:0}") int verifyThreads,
+                       @Value("${app.security.login.queue-capacity:16}") int queueCapacity) {
+        this.verifyThreads = verifyThreads > 0 ? verifyThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.verifyExecutor = new ThreadPoolExecutor(this.verifyThreads, this.verifyThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-verify-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.verifyExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        verifyExecutor.shutdownNow();
+    }
+
+    /**
+     * Check the credentials on the verification pool and wait for the result.
+     * @throws RejectedExecutionException if too many sign-ins are already waiting
+     */
     public Authentication authenticateUser(LoginRequest loginRequest) {
-        return authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getEmail(),
-                        loginRequest.getPassword()));
+        UsernamePasswordAuthenticationToken credentials = new UsernamePasswordAuthenticationToken(
+                loginRequest.getEmail(),
+                loginRequest.getPassword());
+        Future<Authentication> verification;
+        try {
+            verification = verifyExecutor.submit(() -> authenticationManager.authenticate(credentials));
+        } catch (RejectedExecutionException e) {
+            verifyRejections.incrementAndGet();
+            throw e;
+        }
+        try {
+            return verification.get();
+        } catch (InterruptedException e) {
+            verification.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while verifying the credentials", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Credential verification failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public Map<String, Object> getLoginStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("verifyThreads", verifyThreads);
+        stats.put("activeVerifications", verifyExecutor.getActiveCount());
+        stats.put("queuedVerifications", verifyExecutor.getQueue().size());
+        stats.put("rejectedVerifications", verifyRejections.get());
+        stats.put("lastLogin", lastLoginRecorder.getStats());
+        return stats;
     }
 
     @Transactional
@@ -77,9 +148,9 @@ public class AuthService {
         return userRepository.save(user);
     }
 
+    // Written shortly after, together with other sign-ins
     public void updateLastLogin(User user) {
-        user.setLastLogin(java.time.LocalDateTime.now());
-        userRepository.save(user);
+        lastLoginRecorder.record(user.getId(), LocalDateTime.now());
     }
 
     public AuthResponse signup(SignupRequest signupRequest) {
@@ -0,0 +1,136 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.dto.ClearanceCertificateDocumentDTO;
+import com.example.cessionappbackend.dto.ReleaseRequestDocumentDTO;
+import com.example.cessionappbackend.dto.SalaryAssignmentDocumentDTO;
+import com.example.cessionappbackend.entities.Cession;
+import com.example.cessionappbackend.entities.Client;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Builds the PDF generator DTOs from persisted cessions, so server-side jobs
+ * can render documents without the frontend assembling the payload.
+ * Callers must invoke these methods inside a transaction: the client, workplace
+ * and job associations are lazy.
+ */
+@Service
+public class CessionDocumentDataService {
+
+    @Autowired
+    private ArabicTextService arabicTextService;
+
+    private static final DateTimeFormatter PRINT_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    public SalaryAssignmentDocumentDTO toSalaryAssignment(Cession cession) {
+        Client client = cession.getClient();
+
+        SalaryAssignmentDocumentDTO dto = new SalaryAssignmentDocumentDTO();
+        dto.setCourtName(cession.getCourtName());
+        dto.setBookNumber(cession.getBookNumber());
+        dto.setPageNumber(cession.getPageNumber());
+        dto.setDate(cession.getDate());
+        dto.setSupplierTaxId(cession.getSupplierTaxId());
+        dto.setSupplierName(cession.getSupplierName());
+        dto.setSupplierAddress(cession.getSupplierAddress());
+        dto.setSupplierBankAccount(cession.getSupplierBankAccount());
+
+        dto.setClientId(client.getId().toString());
+        dto.setWorkerNumber(client.getWorkerNumber());
+        dto.setFullName(client.getFullName());
+        dto.setCin(client.getCin());
+        dto.setPersonalAddress(cession.getPersonalAddress() != null ? cession.getPersonalAddress() : client.getAddress());
+        dto.setWorkplace(client.getWorkplace() != null ? client.getWorkplace().getName() : null);
+        dto.setJobTitle(client.getJob() != null ? client.getJob().getName() : null);
+
+        dto.setItemDescription(cession.getItemDescription());
+        // Computed from the amount and start date; the typed text only when those are missing
+        String amountInWords = arabicTextService.amountInWords(cession.getTotalLoanAmount());
+        dto.setAmountInWords(amountInWords != null ? amountInWords : cession.getAmountInWords());
+        dto.setTotalAmountNumeric(cession.getTotalLoanAmount() != null ? cession.getTotalLoanAmount().doubleValue() : null);
+        dto.setMonthlyPayment(cession.getMonthlyPayment() != null ? cession.getMonthlyPayment().doubleValue() : null);
+        dto.setLoanDuration(cession.getLoanDuration());
+        dto.setFirstDeductionMonthArabic(cession.getStartDate() != null
+                ? arabicTextService.monthYear(YearMonth.from(cession.getStartDate()))
+                : cession.getFirstDeductionMonthArabic());
+        return dto;
+    }
+
+    public ClearanceCertificateDocumentDTO toClearanceCertificate(Cession cession) {
+        Client client = cession.getClient();
+
+        ClearanceCertificateDocumentDTO dto = new ClearanceCertificateDocumentDTO();
+        dto.setCourt(cession.getCourtName());
+        dto.setRegisterNumber(cession.getBookNumber());
+        dto.setPageNumber(cession.getPageNumber());
+        dto.setRegistrationDate(cession.getDate());
+
+        dto.setClientId(client.getId().toString());
+        dto.setWorkerNumber(client.getWorkerNumber());
+        dto.setFullName(client.getFullName());
+        dto.setEmployeeName(client.getFullName());
+        dto.setNationalId(client.getCin());
+
+        dto.setCessionTotalValue(formatAmount(cession.getTotalLoanAmount()));
+        dto.setCessionMonthlyValue(formatAmount(cession.getMonthlyPayment()));
+        dto.setPaidAmount(formatAmount(paidAmount(cession)));
+        dto.setRemainingAmount(formatAmount(cession.getRemainingBalance()));
+
+        dto.setIssuerName(cession.getSupplierName());
+        dto.setIssuerTaxId(cession.getSupplierTaxId());
+        dto.setIssuerAddress(cession.getSupplierAddress());
+        dto.setPrintingDate(LocalDate.now().format(PRINT_DATE_FORMAT));
+        return dto;
+    }
+
+    public ReleaseRequestDocumentDTO toReleaseRequest(Cession cession) {
+        Client client = cession.getClient();
+
+        ReleaseRequestDocumentDTO dto = new ReleaseRequestDocumentDTO();
+        dto.setCourt(cession.getCourtName());
+        dto.setRegisterNumber(cession.getBookNumber());
+        dto.setPageNumber(cession.getPageNumber());
+        dto.setRegistrationDate(cession.getDate());
+
+        dto.setClientId(client.getId().toString());
+        dto.setWorkerNumber(client.getWorkerNumber());
+        dto.setFullName(client.getFullName());
+        dto.setEmployeeName(client.getFullName());
+        dto.setNationalId(client.getCin());
+
+        dto.setCessionTotalValue(formatAmount(cession.getTotalLoanAmount()));
+        dto.setCessionMonthlyValue(formatAmount(cession.getMonthlyPayment()));
+        dto.setPaidAmount(formatAmount(paidAmount(cession)));
+        dto.setRemainingAmount(formatAmount(cession.getRemainingBalance()));
+
+        dto.setIssuerName(cession.getSupplierName());
+        dto.setIssuerTaxId(cession.getSupplierTaxId());
+        dto.setPrintingDate(LocalDate.now().format(PRINT_DATE_FORMAT));
+        return dto;
+    }
+
+    /**
+     * Clearance and release documents only make sense once the cession is paid off.
+     */
+    public boolean isSettled(Cession cession) {
+        String status = cession.getStatus();
+        return status != null && (status.equalsIgnoreCase("FINISHED") || status.equalsIgnoreCase("COMPLETED"));
+    }
+
+    private BigDecimal paidAmount(Cession cession) {
+        if (cession.getTotalLoanAmount() == null || cession.getRemainingBalance() == null) {
+            return null;
+        }
+        return cession.getTotalLoanAmount().subtract(cession.getRemainingBalance());
+    }
+
+    private String formatAmount(BigDecimal amount) {
+        return amount != null ? amount.setScale(3, RoundingMode.HALF_UP).toPlainString() : null;
+    }
+}
@@ -329,6 +329,8 @@ public class CessionService {
         Cession savedCession = cessionRepository.save(cession);
         documentRepository.save(document);
 
+        eventPublisher.publishEvent(new DataChangeEvent(this, "Cession", "UPDATE", savedCession.getId()));
+
         return Optional.of(convertToDTO(savedCession));
     }
 
@@ -393,8 +395,11 @@ public class CessionService {
      */
     @Transactional
     public Optional<CessionDTO> recalculateCession(UUID id) {
-        return calculationService.updateCalculationsById(id)
+        Optional<CessionDTO> recalculated = calculationService.updateCalculationsById(id)
                 .map(this::convertToDTO);
+        recalculated.ifPresent(cession ->
+                eventPublisher.publishEvent(new DataChangeEvent(this, "Cession", "UPDATE", cession.getId())));
+        return recalculated;
     }
     
     /**
@@ -403,5 +408,6 @@ public class CessionService {
     @Transactional
     public void recalculateAllActiveCessions() {
         calculationService.updateCalculationsForAllActiveCessions();
+        eventPublisher.publishEvent(new DataChangeEvent(this, "Cession", "UPDATE", null));
     }
 }
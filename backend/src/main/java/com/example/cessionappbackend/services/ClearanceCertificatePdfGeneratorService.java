@@ -6,10 +6,12 @@ import com.example.cessionappbackend.entities.Client;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 import com.itextpdf.text.pdf.languages.ArabicLigaturizer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.text.Bidi;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -20,152 +22,90 @@ import java.util.UUID;
 @Service
 public class ClearanceCertificatePdfGeneratorService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ClearanceCertificatePdfGeneratorService.class);
+
     @Autowired
     private ClientRepository clientRepository;
 
-    private static Font arabicTitleFont;
-    private static Font arabicSubtitleFont;
-    private static Font arabicHeaderFont;
-    private static Font arabicFieldFont;
-    private static Font arabicSignatureFont;
-    private static ArabicLigaturizer arabicLigaturizer;
-
-    static {
-        try {
-            BaseFont timesNewRomanFont = null;
-            BaseFont timesNewRomanBoldFont = null;
-            BaseFont arabicFont = null;
-
-            try {
-                timesNewRomanFont = BaseFont.createFont(
-                    new ClassPathResource("fonts/times-new-roman.ttf").getURL().toString(),
-                    BaseFont.IDENTITY_H,
-                    BaseFont.EMBEDDED
-                );
-                System.out.println("✓ Loaded Times New Roman Regular from fonts/times-new-roman.ttf");
-            } catch (Exception e) {
-                System.out.println("⚠ Failed to load times-new-roman.ttf: " + e.getMessage());
-            }
-
-            try {
-                timesNewRomanBoldFont = BaseFont.createFont(
-                    new ClassPathResource("fonts/times-new-roman-bold.ttf").getURL().toString(),
-                    BaseFont.IDENTITY_H,
-                    BaseFont.EMBEDDED
-                );
-                System.out.println("✓ Loaded Times New Roman Bold from fonts/times-new-roman-bold.ttf");
-            } catch (Exception e) {
-                System.out.println("⚠ Failed to load times-new-roman-bold.ttf: " + e.getMessage());
-            }
-
-            try {
-                arabicFont = BaseFont.createFont(
-                    new ClassPathResource("fonts/NotoSansArabic-Regular.ttf").getURL().toString(),
-                    BaseFont.IDENTITY_H,
-                    BaseFont.EMBEDDED
-                );
-                System.out.println("✓ Loaded Arabic font from fonts/NotoSansArabic-Regular.ttf");
-            } catch (Exception e) {
-                System.out.println("⚠ Failed to load Arabic font: " + e.getMessage());
-            }
-
-            BaseFont primaryFont = (timesNewRomanBoldFont != null) ? timesNewRomanBoldFont :
-                                  (timesNewRomanFont != null) ? timesNewRomanFont : arabicFont;
-
-            if (primaryFont == null) {
-                throw new RuntimeException("No fonts could be loaded - check fonts folder");
-            }
-
-            arabicTitleFont = new Font(primaryFont, 18, Font.BOLD);
-            arabicSubtitleFont = new Font(primaryFont, 14, Font.NORMAL);
-            arabicHeaderFont = new Font(primaryFont, 14, Font.BOLD);
-            arabicFieldFont = new Font(primaryFont, 14, Font.NORMAL);
-            arabicSignatureFont = new Font(primaryFont, 14, Font.BOLD);
-
-            arabicLigaturizer = new ArabicLigaturizer();
+    @Autowired
+    private PdfFontRegistry fontRegistry;
+
+    private Font arabicTitleFont;
+    private Font arabicSubtitleFont;
+    private Font arabicHeaderFont;
+    private Font arabicFieldFont;
+    private Font arabicSignatureFont;
+    private ArabicLigaturizer arabicLigaturizer;
+
+    // Part of the PDF cache key: bump it whenever the layout or the fixed wording changes
+    private static final int LAYOUT_VERSION = 2;
+
+    @PostConstruct
+    void initFonts() {
+        // Fonts are loaded once by the shared registry
+        arabicTitleFont = fontRegistry.getFont(18, Font.BOLD);
+        arabicSubtitleFont = fontRegistry.getFont(14, Font.NORMAL);
+        arabicHeaderFont = fontRegistry.getFont(14, Font.BOLD);
+        arabicFieldFont = fontRegistry.getFont(14, Font.NORMAL);
+        arabicSignatureFont = fontRegistry.getFont(14, Font.BOLD);
+        arabicLigaturizer = fontRegistry.getArabicLigaturizer();
+    }
 
-            String fontType = (timesNewRomanBoldFont != null) ? "Times New Roman Bold (Headings CS)" :
-                             (timesNewRomanFont != null) ? "Times New Roman Regular" : "Arabic fallback";
-            System.out.println("✓ " + fontType + " configured successfully for Clearance Certificate");
+    /**
+     * Identifies the layout this generator currently renders, for the PDF output cache.
+     */
+    public String getLayoutVersion() {
+        return String.valueOf(LAYOUT_VERSION);
+    }
 
+    public byte[] generatePdf(ClearanceCertificateDocumentDTO data) {
+        try {
+            return preparePdf(data).toByteArray();
         } catch (Exception e) {
-            System.err.println("Error loading Times New Roman fonts: " + e.getMessage());
-            e.printStackTrace();
-
-            try {
-                BaseFont fallbackFont = BaseFont.createFont(
-                    BaseFont.TIMES_ROMAN,
-                    "Cp1256",
-                    BaseFont.NOT_EMBEDDED
-                );
-                arabicTitleFont = new Font(fallbackFont, 18, Font.BOLD);
-                arabicSubtitleFont = new Font(fallbackFont, 14, Font.NORMAL);
-                arabicHeaderFont = new Font(fallbackFont, 14, Font.BOLD);
-                arabicFieldFont = new Font(fallbackFont, 14, Font.NORMAL);
-                arabicSignatureFont = new Font(fallbackFont, 14, Font.BOLD);
-
-                arabicLigaturizer = new ArabicLigaturizer();
-
-                System.out.println("⚠ Using Times Roman fallback for Clearance Certificate");
-
-            } catch (Exception fallbackException) {
-                System.err.println("All font loading failed: " + fallbackException.getMessage());
-                arabicTitleFont = new Font(Font.FontFamily.TIMES_ROMAN, 18, Font.BOLD);
-                arabicSubtitleFont = new Font(Font.FontFamily.TIMES_ROMAN, 14, Font.NORMAL);
-                arabicHeaderFont = new Font(Font.FontFamily.TIMES_ROMAN, 14, Font.BOLD);
-                arabicFieldFont = new Font(Font.FontFamily.TIMES_ROMAN, 14, Font.NORMAL);
-                arabicSignatureFont = new Font(Font.FontFamily.TIMES_ROMAN, 14, Font.BOLD);
-
-                arabicLigaturizer = new ArabicLigaturizer();
-
-                System.out.println("⚠ Using Times Roman family fallback for Clearance Certificate");
-            }
+            logger.error("Error generating Clearance Certificate PDF: " + e.getMessage(), e);
+            return null;
         }
     }
 
-    public byte[] generatePdf(ClearanceCertificateDocumentDTO data) {
-        System.out.println("=== Clearance Certificate PDF Generation Started ===");
-
-        try {
-            Document document = new Document(PageSize.A4);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    /**
+     * Lay the document out without writing it yet, so that failures can still be
+     * reported before a response is started. See {@link PreparedPdf}.
+     */
+    public PreparedPdf preparePdf(ClearanceCertificateDocumentDTO data) throws DocumentException, IOException {
+        logger.debug("=== Clearance Certificate PDF Generation Started ===");
 
-            PdfWriter writer = PdfWriter.getInstance(document, baos);
-            // Remove RTL direction for entire document to prevent text reversal
-            // writer.setRunDirection(PdfWriter.RUN_DIRECTION_RTL);
+        Document document = new Document(PageSize.A4);
+        PreparedPdf pdf = new PreparedPdf();
 
-            document.open();
-            document.setMargins(50, 50, 40, 40);
+        PdfWriter writer = PdfWriter.getInstance(document, pdf.getOutput());
+        // Remove RTL direction for entire document to prevent text reversal
+        // writer.setRunDirection(PdfWriter.RUN_DIRECTION_RTL);
 
-            // Add header with issuer name and date on same line
-            addHeaderWithIssuerAndDate(document, data);
+        document.open();
+        document.setMargins(50, 50, 40, 40);
 
-            // Add issuer information
-            addIssuerInformation(document, data);
+        // Add header with issuer name and date on same line
+        addHeaderWithIssuerAndDate(document, data);
 
-            // Add certificate title
-            addCertificateTitle(document);
+        // Add issuer information
+        addIssuerInformation(document, data);
 
-            // Add main content
-            addMainContent(document, data);
+        // Add certificate title
+        addCertificateTitle(document);
 
-            // Add court details
-            addCourtDetails(document, data);
+        // Add main content
+        addMainContent(document, data);
 
-            // Add conclusion
-            addConclusion(document, data);
+        // Add court details
+        addCourtDetails(document, data);
 
-            // Add signature at bottom-right using absolute positioning
-            addSignature(document, writer);
+        // Add conclusion
+        addConclusion(document, data);
 
-            document.close();
-            return baos.toByteArray();
+        // Add signature at bottom-right using absolute positioning
+        addSignature(document, writer);
 
-        } catch (Exception e) {
-            System.err.println("Error generating Clearance Certificate PDF: " + e.getMessage());
-            e.printStackTrace();
-            return null;
-        }
+        return pdf.completeWith(document::close);
     }
 
     private void addHeaderWithIssuerAndDate(Document document, ClearanceCertificateDocumentDTO data) throws DocumentException {
@@ -399,7 +339,7 @@ public class ClearanceCertificatePdfGeneratorService {
 
             return sb.toString();
         } catch (Exception e) {
-            System.err.println("Arabic text formatting failed for text: '" + text + "', error: " + e.getMessage());
+            logger.error("Arabic text formatting failed for text: '" + text + "', error: " + e.getMessage());
             return text;
         }
     }
@@ -0,0 +1,124 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.events.DataChangeEvent;
+import com.example.cessionappbackend.events.ProductCatalogChangeEvent;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Counts committed changes per entity type, so list endpoints can tag their responses with
+ * the versions of the data they are built from and answer a matching If-None-Match with 304
+ * before reading anything. Versions restart with the application; the start time is part of
+ * every tag, so tags handed out before a restart never match.
+ */
+@Service
+public class DataVersionService {
+
+    public static final String CLIENT = "Client";
+    public static final String CESSION = "Cession";
+    public static final String PAYMENT = "Payment";
+    public static final String WORKPLACE = "Workplace";
+    public static final String JOB = "Job";
+    public static final String DOCUMENT = "Document";
+    public static final String PRODUCT = "Product";
+
+    // Clients revalidate every time; the tag makes that a 304 while nothing changed
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong served = new AtomicLong();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDataChange(DataChangeEvent event) {
+        bump(event.getEntityType());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(ProductCatalogChangeEvent event) {
+        bump(PRODUCT);
+    }
+
+    public long getVersion(String entityType) {
+        AtomicLong version = versions.get(entityType);
+        return version != null ? version.get() : 0;
+    }
+
+    /**
+     * Weak tag over the versions of the given entity types. Read it before the data, so a
+     * change committed in between yields an older tag and the next request fetches again.
+     */
+    public String etag(String... entityTypes) {
+        StringBuilder tag = new StringBuilder("W/\"").append(epoch);
+        for (String entityType : entityTypes) {
+            tag.append('-').append(Long.toString(getVersion(entityType), 36));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * 304 if the request already holds the current tag for the entity types, otherwise the
+     * body from {@code loader} with the tag. Call it after the endpoint's access checks.
+     */
+    public <T> ResponseEntity<T> conditionalGet(WebRequest request, Supplier<T> loader, String... entityTypes) {
+        String etag = etag(entityTypes);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            notModified.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        T body = loader.get();
+        served.incrementAndGet();
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Long> current = new TreeMap<>();
+        versions.forEach((entityType, version) -> current.put(entityType, version.get()));
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("epoch", epoch);
+        stats.put("versions", current);
+        stats.put("notModified", notModified.get());
+        stats.put("served", served.get());
+        return stats;
+    }
+
+    private void bump(String entityType) {
+        if (entityType != null) {
+            versions.computeIfAbsent(entityType, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    // Weak comparison, as If-None-Match requires; the header may list several tags or be "*"
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.dto.ClearanceCertificateDocumentDTO;
+import com.example.cessionappbackend.dto.ReleaseRequestDocumentDTO;
+import com.example.cessionappbackend.dto.SalaryAssignmentDocumentDTO;
+import com.example.cessionappbackend.entities.Cession;
+import com.example.cessionappbackend.entities.Client;
+import com.example.cessionappbackend.entities.Document;
+import com.example.cessionappbackend.repositories.CessionRepository;
+import com.example.cessionappbackend.repositories.ClientRepository;
+import com.example.cessionappbackend.repositories.DocumentRepository;
+import com.itextpdf.text.DocumentException;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams every document of a client or cession as a single ZIP archive.
+ * The archive is written entry by entry straight to the caller's stream: stored
+ * files are copied from disk and generated PDFs are rendered one at a time, so
+ * neither the archive nor more than one document is ever held in memory.
+ */
+@Service
+public class DocumentBundleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentBundleService.class);
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private CessionRepository cessionRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private CessionDocumentDataService cessionDocumentDataService;
+
+    @Autowired
+    private SalaryAssignmentPdfGeneratorService salaryAssignmentPdfGeneratorService;
+
+    @Autowired
+    private ClearanceCertificatePdfGeneratorService clearanceCertificatePdfGeneratorService;
+
+    @Autowired
+    private ReleaseRequestPdfGeneratorService releaseRequestPdfGeneratorService;
+
+    @FunctionalInterface
+    private interface PdfRenderer {
+        PreparedPdf prepare() throws DocumentException, IOException;
+    }
+
+    /**
+     * A resolved archive entry: either a stored file or a PDF rendered on demand.
+     * Everything that needs the persistence context is resolved up front, because
+     * the archive itself is written after the request thread has returned.
+     */
+    public static final class BundleEntry {
+        private final String name;
+        private final Path file;
+        private final PdfRenderer renderer;
+
+        private BundleEntry(String name, Path file, PdfRenderer renderer) {
+            this.name = name;
+            this.file = file;
+            this.renderer = renderer;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static final class DocumentBundle {
+        private final String fileName;
+        private final List<BundleEntry> entries;
+
+        private DocumentBundle(String fileName, List<BundleEntry> entries) {
+            this.fileName = fileName;
+            this.entries = entries;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public List<BundleEntry> getEntries() {
+            return entries;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public DocumentBundle prepareClientBundle(UUID clientId, boolean includeGenerated) {
+        Client client = clientRepository.findById(clientId)
+                .orElseThrow(() -> new EntityNotFoundException("Client not found with ID: " + clientId));
+        List<Cession> cessions = cessionRepository.findByClientId(clientId);
+
+        // Cession contracts are linked to the cession only, so collect both sides
+        Map<UUID, Document> documents = new LinkedHashMap<>();
+        documentRepository.findByClientId(clientId).forEach(d -> documents.put(d.getId(), d));
+        for (Cession cession : cessions) {
+            documentRepository.findByCessionId(cession.getId()).forEach(d -> documents.putIfAbsent(d.getId(), d));
+        }
+
+        BundleBuilder builder = new BundleBuilder();
+        documents.values().forEach(builder::addStoredDocument);
+        if (includeGenerated) {
+            cessions.forEach(builder::addGeneratedDocuments);
+        }
+        return new DocumentBundle("client-" + client.getClientNumber() + "-documents.zip", builder.entries);
+    }
+
+    @Transactional(readOnly = true)
+    public DocumentBundle prepareCessionBundle(UUID cessionId, boolean includeGenerated) {
+        Cession cession = cessionRepository.findById(cessionId)
+                .orElseThrow(() -> new EntityNotFoundException("Cession not found with ID: " + cessionId));
+
+        BundleBuilder builder = new BundleBuilder();
+        documentRepository.findByCessionId(cessionId).forEach(builder::addStoredDocument);
+        if (includeGenerated) {
+            builder.addGeneratedDocuments(cession);
+        }
+        return new DocumentBundle("cession-" + cessionId + "-documents.zip", builder.entries);
+    }
+
+    /**
+     * Write the bundle as a ZIP archive to the given stream. Stored files that have
+     * gone missing from disk and PDFs that fail to render are skipped and logged
+     * rather than aborting the whole download.
+     */
+    public void writeZip(DocumentBundle bundle, OutputStream out) throws IOException {
+        long startTime = System.currentTimeMillis();
+        int written = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // Scans and PDFs are already compressed; spend as little CPU as possible on them
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        for (BundleEntry entry : bundle.getEntries()) {
+            if (entry.file != null) {
+                if (!Files.isRegularFile(entry.file)) {
+                    logger.warn("Skipping missing document file {} for bundle {}", entry.file, bundle.getFileName());
+                    continue;
+                }
+                zip.putNextEntry(new ZipEntry(entry.name));
+                Files.copy(entry.file, zip);
+            } else {
+                PreparedPdf pdf;
+                try {
+                    pdf = entry.renderer.prepare();
+                } catch (Exception e) {
+                    logger.warn("Skipping generated document {} for bundle {}: rendering failed", entry.name, bundle.getFileName(), e);
+                    continue;
+                }
+                zip.putNextEntry(new ZipEntry(entry.name));
+                pdf.writeTo(zip);
+            }
+            zip.closeEntry();
+            written++;
+        }
+
+        // finish() rather than close(): the servlet container owns the underlying stream
+        zip.finish();
+        zip.flush();
+        logger.info("Streamed document bundle {} with {} of {} entries in {}ms",
+                bundle.getFileName(), written, bundle.getEntries().size(), System.currentTimeMillis() - startTime);
+    }
+
+    private class BundleBuilder {
+        private final List<BundleEntry> entries = new ArrayList<>();
+        private final Set<String> usedNames = new HashSet<>();
+
+        void addStoredDocument(Document document) {
+            String bucket = ("NATIONAL_ID".equals(document.getDocumentType()) || "JOB_CARD".equals(document.getDocumentType()))
+                    ? storageService.getDocumentsBucketIdJob()
+                    : storageService.getDefaultBucketName();
+            Path file = storageService.resolveFilePath(document.getStoragePath(), bucket);
+            String name = document.getDocumentType() + "/" + file.getFileName();
+            entries.add(new BundleEntry(uniqueName(name), file, null));
+        }
+
+        void addGeneratedDocuments(Cession cession) {
+            String folder = "generated/cession-" + cession.getStartDate() + "-" + cession.getId().toString().substring(0, 8) + "/";
+
+            SalaryAssignmentDocumentDTO salaryAssignment = cessionDocumentDataService.toSalaryAssignment(cession);
+            entries.add(new BundleEntry(uniqueName(folder + "salary-assignment.pdf"), null,
+                    () -> salaryAssignmentPdfGeneratorService.preparePdf(salaryAssignment, salaryAssignment.getWorkerNumber())));
+
+            if (cessionDocumentDataService.isSettled(cession)) {
+                ClearanceCertificateDocumentDTO clearance = cessionDocumentDataService.toClearanceCertificate(cession);
+                entries.add(new BundleEntry(uniqueName(folder + "clearance-certificate.pdf"), null,
+                        () -> clearanceCertificatePdfGeneratorService.preparePdf(clearance)));
+
+                ReleaseRequestDocumentDTO releaseRequest = cessionDocumentDataService.toReleaseRequest(cession);
+                entries.add(new BundleEntry(uniqueName(folder + "release-request.pdf"), null,
+                        () -> releaseRequestPdfGeneratorService.preparePdf(releaseRequest)));
+            }
+        }
+
+        private String uniqueName(String name) {
+            if (usedNames.add(name)) {
+                return name;
+            }
+            int dot = name.lastIndexOf('.');
+            String base = dot > 0 ? name.substring(0, dot) : name;
+            String extension = dot > 0 ? name.substring(dot) : "";
+            int counter = 2;
+            while (!usedNames.add(base + "-" + counter + extension)) {
+                counter++;
+            }
+            return base + "-" + counter + extension;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.cessionappbackend.services;
 
+import com.example.cessionappbackend.dto.BulkUploadResultDTO;
 import com.example.cessionappbackend.dto.DocumentDTO;
 import com.example.cessionappbackend.entities.Client;
 import com.example.cessionappbackend.entities.Cession;
@@ -8,21 +9,40 @@ import com.example.cessionappbackend.events.DataChangeEvent;
 import com.example.cessionappbackend.repositories.CessionRepository;
 import com.example.cessionappbackend.repositories.ClientRepository;
 import com.example.cessionappbackend.repositories.DocumentRepository;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -46,6 +66,41 @@ public class DocumentService {
     @Value("${app.document.allowed-types}")
     private List<String> allowedMimeTypes; // Configured in application.properties/yml
 
+    @Value("${app.document.stream-max-size:50MB}")
+    private DataSize maxStreamUploadSize;
+
+    @Value("${app.document.bulk-insert-batch-size:50}")
+    private int bulkInsertBatchSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // Dedicated pool for bulk uploads; kept off the shared @Async executor so a large
+    // onboarding batch cannot starve the export listener
+    private final ThreadPoolExecutor bulkUploadExecutor;
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentService.class);
+
+    public DocumentService(PlatformTransactionManager transactionManager,
+                           @Value("${app.document.bulk-upload-threads:4}") int bulkUploadThreads) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.bulkUploadExecutor = new ThreadPoolExecutor(bulkUploadThreads, bulkUploadThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(256),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bulk-upload-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // A full queue makes the submitting request thread copy the file itself
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.bulkUploadExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdownBulkUploadExecutor() {
+        bulkUploadExecutor.shutdown();
+    }
+
     // --- DTO Conversion --- //
     private DocumentDTO convertToDto(Document document) {
         DocumentDTO dto = new DocumentDTO();
@@ -117,53 +172,12 @@ public class DocumentService {
         System.out.println("File type validation passed");
 
         // Process document based on type
-        String targetBucket;
-        String uploadPath;
-        String fileName;
-
-        if (documentType.equals("NATIONAL_ID") || documentType.equals("JOB_CARD")) {
-            System.out.println("Processing ID/Job Card document...");
-            targetBucket = "id-job-documents";
-            
-            // Get original file extension
-            String originalFileName = file.getOriginalFilename();
-            String extension = ".pdf"; // Default extension
-            if (originalFileName != null && originalFileName.contains(".")) {
-                extension = originalFileName.substring(originalFileName.lastIndexOf("."));
-            }
-            
-            // Construct file name using client number
-            fileName = clientNumber + extension;
-            System.out.println("Original file name: " + originalFileName);
-            System.out.println("Using extension: " + extension);
-            System.out.println("Final file name: " + fileName);
-            
-            // Set upload path based on document type
-            uploadPath = documentType.equals("NATIONAL_ID") ? "id-cards" : "job-cards";
-            System.out.println("Upload path: " + uploadPath);
-        } else if (documentType.equals("CESSION")) {
-            System.out.println("Processing Cession document...");
-            targetBucket = "cessions";
-            
-            // Get original file extension
-            String originalFileName = file.getOriginalFilename();
-            String extension = ".pdf"; // Default extension
-            if (originalFileName != null && originalFileName.contains(".")) {
-                extension = originalFileName.substring(originalFileName.lastIndexOf("."));
-            }
-            
-            // Construct file name using client number
-            fileName = clientNumber + extension;
-            System.out.println("Original file name: " + originalFileName);
-            System.out.println("Using extension: " + extension);
-            System.out.println("Final file name: " + fileName);
-            
-            // Set upload path
-            uploadPath = "cessions";
-            System.out.println("Upload path: " + uploadPath);
-        } else {
-            throw new IllegalArgumentException("Unsupported document type: " + documentType);
-        }
+        UploadTarget target = resolveUploadTarget(documentType, clientNumber, file.getOriginalFilename());
+        String targetBucket = target.bucket;
+        String uploadPath = target.folder;
+        String fileName = target.fileName;
+        System.out.println("Final file name: " + fileName);
+        System.out.println("Upload path: " + uploadPath);
 
         // Upload file to storage
         String storagePath = storageService.uploadFile(file, targetBucket, uploadPath + "/" + fileName);
@@ -227,6 +241,190 @@ public class DocumentService {
         return convertToDto(savedDocument);
     }
 
+    /**
+     * Store a client document read straight from the request body. The content type is
+     * checked before the first byte is written and the size limit is enforced while copying,
+     * so nothing is buffered in memory or in the servlet temp directory. No transaction is
+     * held during the copy; the document row is saved once the file is complete.
+     */
+    public DocumentDTO uploadClientDocumentStream(UUID clientId, String documentType, String originalFileName,
+                                                  String contentType, InputStream content) throws IOException {
+        Client client = clientRepository.findById(clientId)
+                .orElseThrow(() -> new EntityNotFoundException("Client not found with ID: " + clientId));
+
+        validateContentType(contentType);
+        UploadTarget target = resolveUploadTarget(documentType, client.getClientNumber(), originalFileName);
+        String storagePath = target.folder + "/" + target.fileName;
+
+        long size = storageService.uploadStream(content, target.bucket, storagePath, maxStreamUploadSize.toBytes());
+        logger.info("Streamed {} upload for client {} to {} ({} bytes)", documentType, clientId, storagePath, size);
+
+        return transactionTemplate.execute(status -> {
+            // Re-uploading the same document type overwrites the file, so reuse its row
+            Document document = documentRepository.findByStoragePath(storagePath).orElseGet(Document::new);
+            document.setClient(clientRepository.getReferenceById(clientId));
+            document.setDocumentType(documentType);
+            document.setFileName(target.fileName);
+            document.setMimeType(contentType);
+            document.setStoragePath(storagePath);
+            document.setUploadedAt(OffsetDateTime.now(ZoneOffset.UTC));
+            Document savedDocument = documentRepository.save(document);
+
+            eventPublisher.publishEvent(new DataChangeEvent(this, "Document", "CREATE", savedDocument.getId()));
+            return convertToDto(savedDocument);
+        });
+    }
+
+    /**
+     * A single file of a bulk upload, mapped to its client by client number.
+     */
+    public static class BulkUploadItem {
+        private final MultipartFile file;
+        private final Integer clientNumber;
+        private final String documentType;
+
+        public BulkUploadItem(MultipartFile file, Integer clientNumber, String documentType) {
+            this.file = file;
+            this.clientNumber = clientNumber;
+            this.documentType = documentType;
+        }
+    }
+
+    /**
+     * Upload many client documents in one go. Clients are resolved with a single query,
+     * files are copied to storage in parallel on a bounded pool, and the document rows are
+     * then written in one transaction with batched inserts. A rejected file does not stop
+     * the others; each file gets its own result and a single data change event is
+     * published for the whole batch.
+     */
+    public BulkUploadResultDTO uploadClientDocumentsBulk(List<BulkUploadItem> items) {
+        long startTime = System.currentTimeMillis();
+        List<BulkUploadResultDTO.FileResult> results = new ArrayList<>(items.size());
+        for (BulkUploadItem item : items) {
+            results.add(new BulkUploadResultDTO.FileResult(
+                    item.file.getOriginalFilename(), item.clientNumber, item.documentType, false, null, null));
+        }
+
+        Set<Integer> clientNumbers = items.stream()
+                .map(item -> item.clientNumber)
+                .filter(number -> number != null)
+                .collect(Collectors.toSet());
+        Map<Integer, Client> clientsByNumber = clientRepository.findByClientNumberIn(clientNumbers).stream()
+                .collect(Collectors.toMap(Client::getClientNumber, Function.identity(), (first, second) -> first));
+
+        // Validate and resolve targets up front so only acceptable files reach the pool
+        UploadTarget[] targets = new UploadTarget[items.size()];
+        Set<String> claimedPaths = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            BulkUploadItem item = items.get(i);
+            try {
+                Client client = clientsByNumber.get(item.clientNumber);
+                if (client == null) {
+                    throw new IllegalArgumentException("Client not found with number: " + item.clientNumber);
+                }
+                if (item.file.isEmpty()) {
+                    throw new IllegalArgumentException("Cannot upload empty file");
+                }
+                validateContentType(item.file.getContentType());
+                UploadTarget target = resolveUploadTarget(item.documentType, client.getClientNumber(), item.file.getOriginalFilename());
+                if (!claimedPaths.add(target.folder + "/" + target.fileName)) {
+                    throw new IllegalArgumentException("Duplicate " + item.documentType + " for client " + item.clientNumber + " in this batch");
+                }
+                targets[i] = target;
+            } catch (IllegalArgumentException e) {
+                results.get(i).setError(e.getMessage());
+            }
+        }
+
+        Map<Integer, Future<?>> copies = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (targets[i] != null) {
+                BulkUploadItem item = items.get(i);
+                UploadTarget target = targets[i];
+                copies.put(i, bulkUploadExecutor.submit(() -> {
+                    try (InputStream content = item.file.getInputStream()) {
+                        storageService.uploadStream(content, target.bucket, target.folder + "/" + target.fileName, maxStreamUploadSize.toBytes());
+                    }
+                    return null;
+                }));
+            }
+        }
+        List<Integer> stored = new ArrayList<>();
+        for (Map.Entry<Integer, Future<?>> copy : copies.entrySet()) {
+            try {
+                copy.getValue().get();
+                stored.add(copy.getKey());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                logger.warn("Bulk upload of {} failed: {}", items.get(copy.getKey()).file.getOriginalFilename(), cause.getMessage());
+                results.get(copy.getKey()).setError(cause instanceof IllegalArgumentException
+                        ? cause.getMessage() : "Failed to store file: " + cause.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.get(copy.getKey()).setError("Upload interrupted");
+            }
+        }
+        stored.sort(null);
+
+        if (!stored.isEmpty()) {
+            try {
+                saveBulkDocuments(items, targets, clientsByNumber, stored, results);
+            } catch (RuntimeException e) {
+                logger.error("Failed to save bulk uploaded documents: {}", e.getMessage(), e);
+                for (Integer index : stored) {
+                    results.get(index).setSuccess(false);
+                    results.get(index).setDocumentId(null);
+                    results.get(index).setError("Failed to save document: " + e.getMessage());
+                }
+            }
+        }
+
+        int succeeded = (int) results.stream().filter(BulkUploadResultDTO.FileResult::isSuccess).count();
+        long duration = System.currentTimeMillis() - startTime;
+        logger.info("Bulk upload finished: {} of {} files stored in {}ms", succeeded, items.size(), duration);
+        return new BulkUploadResultDTO(items.size(), succeeded, items.size() - succeeded, duration, results);
+    }
+
+    private void saveBulkDocuments(List<BulkUploadItem> items, UploadTarget[] targets, Map<Integer, Client> clientsByNumber,
+                                   List<Integer> stored, List<BulkUploadResultDTO.FileResult> results) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<String> storagePaths = stored.stream()
+                    .map(index -> targets[index].folder + "/" + targets[index].fileName)
+                    .collect(Collectors.toList());
+            // Re-uploaded documents overwrite their file, so reuse the existing rows
+            Map<String, Document> existing = documentRepository.findByStoragePathIn(storagePaths).stream()
+                    .collect(Collectors.toMap(Document::getStoragePath, Function.identity()));
+
+            List<Document> documents = new ArrayList<>(stored.size());
+            for (int i = 0; i < stored.size(); i++) {
+                BulkUploadItem item = items.get(stored.get(i));
+                String storagePath = storagePaths.get(i);
+                Document document = existing.getOrDefault(storagePath, new Document());
+                document.setClient(clientsByNumber.get(item.clientNumber));
+                document.setDocumentType(item.documentType);
+                document.setFileName(targets[stored.get(i)].fileName);
+                document.setMimeType(item.file.getContentType());
+                document.setStoragePath(storagePath);
+                document.setUploadedAt(OffsetDateTime.now(ZoneOffset.UTC));
+                documents.add(document);
+            }
+
+            // Chunked so the JDBC batches line up with hibernate.jdbc.batch_size
+            List<UUID> savedIds = new ArrayList<>(documents.size());
+            for (int from = 0; from < documents.size(); from += bulkInsertBatchSize) {
+                List<Document> chunk = documents.subList(from, Math.min(from + bulkInsertBatchSize, documents.size()));
+                documentRepository.saveAll(chunk).forEach(saved -> savedIds.add(saved.getId()));
+                documentRepository.flush();
+            }
+            for (int i = 0; i < stored.size(); i++) {
+                results.get(stored.get(i)).setDocumentId(savedIds.get(i));
+                results.get(stored.get(i)).setSuccess(true);
+            }
+
+            eventPublisher.publishEvent(new DataChangeEvent(this, "Document", "BULK_CREATE", savedIds));
+        });
+    }
+
     @Transactional
     public boolean deleteDocument(UUID id) {
         Optional<Document> documentOpt = documentRepository.findById(id);
@@ -263,10 +461,42 @@ public class DocumentService {
             System.err.println("File is empty");
             throw new IllegalArgumentException("Cannot upload empty file");
         }
-        if (!allowedMimeTypes.contains(file.getContentType())) {
-            System.err.println("Invalid file type: " + file.getContentType());
-            throw new IllegalArgumentException("Unsupported file type: " + file.getContentType() + ". Only " + String.join(", ", allowedMimeTypes) + " are allowed.");
-        }
+        validateContentType(file.getContentType());
         System.out.println("File type validation passed");
     }
+
+    private void validateContentType(String contentType) {
+        if (!allowedMimeTypes.contains(contentType)) {
+            System.err.println("Invalid file type: " + contentType);
+            throw new IllegalArgumentException("Unsupported file type: " + contentType + ". Only " + String.join(", ", allowedMimeTypes) + " are allowed.");
+        }
+    }
+
+    private static class UploadTarget {
+        private final String bucket;
+        private final String folder;
+        private final String fileName;
+
+        private UploadTarget(String bucket, String folder, String fileName) {
+            this.bucket = bucket;
+            this.folder = folder;
+            this.fileName = fileName;
+        }
+    }
+
+    // Bucket, folder and client-number based file name for a client document type
+    private UploadTarget resolveUploadTarget(String documentType, Integer clientNumber, String originalFileName) {
+        String extension = ".pdf"; // Default extension
+        if (originalFileName != null && originalFileName.contains(".")) {
+            extension = originalFileName.substring(originalFileName.lastIndexOf("."));
+        }
+        String fileName = clientNumber + extension;
+
+        if (documentType.equals("NATIONAL_ID") || documentType.equals("JOB_CARD")) {
+            return new UploadTarget("id-job-documents", documentType.equals("NATIONAL_ID") ? "id-cards" : "job-cards", fileName);
+        } else if (documentType.equals("CESSION")) {
+            return new UploadTarget("cessions", "cessions", fileName);
+        }
+        throw new IllegalArgumentException("Unsupported document type: " + documentType);
+    }
 }
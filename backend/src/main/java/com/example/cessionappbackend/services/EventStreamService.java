@@ -0,0 +1,317 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.events.DataChangeEvent;
+import com.example.cessionappbackend.utils.VirtualThreads;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One Server-Sent Events feed of committed data changes, export progress and low-stock
+ * transitions, so the frontend learns about changes instead of polling for them. Each
+ * event is named after its topic, and subscribers choose the topics they receive.
+ *
+ * <p>Every subscriber has a bounded queue drained by a sender thread of its own (a virtual
+ * thread in virtual thread mode). Sending blocks while the client's socket buffer is full,
+ * so a client slow to read only stalls its own stream; its queue overflows (heartbeats
+ * included) and it is disconnected rather than allowed to hold events back. The
+ * latest events are kept in memory, so a browser reconnecting with {@code Last-Event-ID}
+ * gets what it missed. When they are no longer there, or the id comes from before a
+ * restart, it gets a {@code reset} event instead and should reload what it shows.
+ */
+@Service
+public class EventStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventStreamService.class);
+
+    public static final String DATA = "data";
+    public static final String EXPORT = "export";
+    public static final String LOW_STOCK = "low-stock";
+    public static final Set<String> TOPICS = Set.of(DATA, EXPORT, LOW_STOCK);
+
+    private final int replaySize;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long streamTimeoutMs;
+
+    // Event ids are "<epoch>-<sequence>", so ids handed out before a restart are recognised
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Guarded by this
+    private final ArrayDeque<FeedEvent> recent = new ArrayDeque<>();
+    private long sequence;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService senders;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private final AtomicLong slowConsumersDropped = new AtomicLong();
+
+    public EventStreamService(@Value("${app.events.replay-size:256}") int replaySize,
+                              @Value("${app.events.subscriber-buffer:64}") int bufferSize,
+                              @Value("${app.events.max-subscribers:32}") int maxSubscribers,
+                              @Value("${app.events.stream-timeout-ms:1800000}") long streamTimeoutMs,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.replaySize = replaySize;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.streamTimeoutMs = streamTimeoutMs;
+        // One drain runs per subscriber at a time, so the thread count follows the subscriber
+        // count (bounded by max-subscribers) and idle threads go away after a minute
+        if (virtualThreads && VirtualThreads.isAvailable()) {
+            this.senders = VirtualThreads.newPerTaskExecutor();
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.senders = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "event-stream-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDataChange(DataChangeEvent event) {
+        Map<String, Object> change = new LinkedHashMap<>();
+        change.put("entityType", event.getEntityType());
+        change.put("operation", event.getOperation());
+        change.put("entityId", event.getEntityId());
+        publish(DATA, change);
+    }
+
+    /**
+     * Queue an event for every subscriber of the topic. Never blocks on a subscriber.
+     */
+    public void publish(String topic, Object data) {
+        synchronized (this) {
+            FeedEvent event = new FeedEvent(++sequence, topic, data);
+            recent.addLast(event);
+            if (recent.size() > replaySize) {
+                recent.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.topics.contains(topic)) {
+                    offer(subscriber, toSse(event));
+                }
+            }
+        }
+        published.incrementAndGet();
+    }
+
+    /**
+     * Open a stream of the given topics. Events missed since {@code lastEventId} are queued
+     * under the same lock as new ones, so none is lost or sent twice.
+     */
+    public SseEmitter subscribe(Set<String> topics, String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many event stream subscribers, try again later");
+        }
+        SseEmitter emitter = newEmitter(streamTimeoutMs);
+        Subscriber subscriber;
+        synchronized (this) {
+            List<FeedEvent> missed = lastEventId != null ? missedSince(lastEventId) : List.of();
+            List<SseEmitter.SseEventBuilder> initial = new ArrayList<>();
+            // Sent first, so the response starts before the first event or heartbeat
+            initial.add(SseEmitter.event().comment("subscribed"));
+            if (missed == null) {
+                resets.incrementAndGet();
+                initial.add(SseEmitter.event().id(eventId(sequence)).name("reset").data(Map.of("reason", "events missed")));
+            } else {
+                missed.stream().filter(event -> topics.contains(event.topic())).map(this::toSse).forEach(initial::add);
+                replayed.addAndGet(initial.size() - 1);
+            }
+            subscriber = new Subscriber(emitter, topics, bufferSize + initial.size());
+            subscriber.queue.addAll(initial);
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(error -> close(subscriber));
+        schedule(subscriber);
+        return emitter;
+    }
+
+    // A comment line keeps proxies from closing idle streams, and backs up behind a stalled client
+    @Scheduled(fixedDelayString = "${app.events.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        subscribers.forEach(subscriber -> offer(subscriber, SseEmitter.event().comment("heartbeat")));
+    }
+
+    /**
+     * The topics named in a comma-separated list, or all of them when it is empty.
+     */
+    public static Set<String> parseTopics(String topics) {
+        if (topics == null || topics.isBlank()) {
+            return TOPICS;
+        }
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String topic : topics.split(",")) {
+            String trimmed = topic.trim();
+            if (!TOPICS.contains(trimmed)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown topic '" + trimmed + "', expected some of " + TOPICS);
+            }
+            parsed.add(trimmed);
+        }
+        return parsed;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("lastEventId", eventId(sequence));
+            stats.put("replayable", recent.size());
+        }
+        stats.put("subscribers", subscribers.size());
+        stats.put("maxSubscribers", maxSubscribers);
+        stats.put("published", published.get());
+        stats.put("sent", sent.get());
+        stats.put("replayed", replayed.get());
+        stats.put("resets", resets.get());
+        stats.put("slowConsumersDropped", slowConsumersDropped.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    // Overridden by tests to stand in for a client
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    // Caller holds the lock; null when the events after the id are no longer all kept
+    private List<FeedEvent> missedSince(String lastEventId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        long lastSequence;
+        try {
+            lastSequence = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (lastSequence > sequence) {
+            return null;
+        }
+        long oldestKept = recent.isEmpty() ? sequence + 1 : recent.peekFirst().sequence();
+        if (lastSequence < oldestKept - 1) {
+            return null;
+        }
+        return recent.stream().filter(event -> event.sequence() > lastSequence).toList();
+    }
+
+    private void offer(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.queue.offer(event)) {
+            slowConsumersDropped.incrementAndGet();
+            logger.info("Disconnecting an event stream subscriber that fell {} events behind", bufferSize);
+            close(subscriber);
+        }
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                // Shutting down
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    // Runs on one sender thread per subscriber at a time, so its events go out in order and
+    // a send blocked on its client does not delay the other subscribers
+    private void drain(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!subscriber.closed.get() && (event = subscriber.queue.poll()) != null) {
+                try {
+                    subscriber.emitter.send(event);
+                    sent.incrementAndGet();
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away; the container reports it through the emitter callbacks too
+                    logger.debug("Dropped an event stream subscriber: {}", e.getMessage());
+                    close(subscriber);
+                }
+            }
+            if (subscriber.closed.get() && subscriber.completed.compareAndSet(false, true)) {
+                subscriber.queue.clear();
+                subscriber.emitter.complete();
+            }
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // An event queued after the last poll but before the flag was cleared
+        if (!subscriber.queue.isEmpty() || (subscriber.closed.get() && !subscriber.completed.get())) {
+            schedule(subscriber);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        subscriber.closed.set(true);
+        subscribers.remove(subscriber);
+    }
+
+    private SseEmitter.SseEventBuilder toSse(FeedEvent event) {
+        return SseEmitter.event().id(eventId(event.sequence())).name(event.topic()).data(event.data());
+    }
+
+    private String eventId(long eventSequence) {
+        return epoch + "-" + eventSequence;
+    }
+
+    private record FeedEvent(long sequence, String topic, Object data) {
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<String> topics;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Set<String> topics, int capacity) {
+            this.emitter = emitter;
+            this.topics = topics;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.cessionappbackend.services;
 import com.example.cessionappbackend.dto.ExpenseDTO;
 import com.example.cessionappbackend.entities.Expense;
 import com.example.cessionappbackend.entities.ExpenseCategory;
+import com.example.cessionappbackend.entities.MonthlyFinancial;
 import com.example.cessionappbackend.repositories.ExpenseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -21,10 +22,12 @@ import java.util.stream.Collectors;
 @Service
 public class ExpenseService {
     private final ExpenseRepository expenseRepository;
+    private final FinancialCubeService financialCubeService;
 
     @Autowired
-    public ExpenseService(ExpenseRepository expenseRepository) {
+    public ExpenseService(ExpenseRepository expenseRepository, FinancialCubeService financialCubeService) {
         this.expenseRepository = expenseRepository;
+        this.financialCubeService = financialCubeService;
     }
 
     @Transactional
@@ -38,14 +41,14 @@ public class ExpenseService {
         expense.setUserId(expenseDTO.getUserId());
 
         Expense savedExpense = expenseRepository.save(expense);
+        addToCube(savedExpense, savedExpense.getAmount());
         return convertToDTO(savedExpense);
     }
 
     public List<ExpenseDTO> getExpensesByMonth(UUID userId, int year, int month) {
         LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.plusMonths(1).minusDays(1);
 
-        return expenseRepository.findByUserIdAndDateBetween(userId, startDate, endDate)
+        return expenseRepository.findByUserIdInRange(userId, startDate, startDate.plusMonths(1))
                 .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
@@ -53,15 +56,12 @@ public class ExpenseService {
 
     public Map<String, BigDecimal> getExpensesByCategory(UUID userId, int year, int month) {
         LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.plusMonths(1).minusDays(1);
 
-        List<Map<String, Object>> results = expenseRepository.getExpensesByCategoryForPeriod(userId, startDate, endDate);
+        List<Object[]> results = expenseRepository.sumByCategoryInRange(userId, startDate, startDate.plusMonths(1));
         Map<String, BigDecimal> expensesByCategory = new HashMap<>();
 
-        for (Map<String, Object> result : results) {
-            String category = result.get("category").toString();
-            BigDecimal total = new BigDecimal(result.get("total").toString());
-            expensesByCategory.put(category, total);
+        for (Object[] result : results) {
+            expensesByCategory.put(result[0].toString(), (BigDecimal) result[1]);
         }
 
         return expensesByCategory;
@@ -80,7 +80,8 @@ public class ExpenseService {
     }
 
     public Page<ExpenseDTO> getExpensesByDateRange(UUID userId, LocalDate startDate, LocalDate endDate, Pageable pageable) {
-        return expenseRepository.findByUserIdAndDateRange(userId, startDate, endDate, pageable)
+        // endDate is inclusive for callers
+        return expenseRepository.findByUserIdAndDateRange(userId, startDate, endDate.plusDays(1), pageable)
                 .map(this::convertToDTO);
     }
 
@@ -90,7 +91,8 @@ public class ExpenseService {
     }
 
     public Map<String, Double> getExpensesByCategoryForMonth(UUID userId, int year, int month) {
-        List<Object[]> results = expenseRepository.getExpensesByCategoryForMonth(userId, year, month);
+        LocalDate startDate = LocalDate.of(year, month, 1);
+        List<Object[]> results = expenseRepository.sumByCategoryInRange(userId, startDate, startDate.plusMonths(1));
         return results.stream()
             .collect(Collectors.toMap(
                 row -> row[0].toString(),
@@ -100,13 +102,17 @@ public class ExpenseService {
 
     @Transactional
     public void deleteExpense(UUID id) {
-        expenseRepository.deleteById(id);
+        expenseRepository.findById(id).ifPresent(expense -> {
+            expenseRepository.delete(expense);
+            addToCube(expense, expense.getAmount().negate());
+        });
     }
 
     @Transactional
     public ExpenseDTO updateExpense(UUID id, ExpenseDTO expenseDTO) {
         Expense expense = expenseRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Expense not found"));
+        addToCube(expense, expense.getAmount().negate());
         
         expense.setCategory(ExpenseCategory.valueOf(expenseDTO.getCategory().toString()));
         expense.setLabel(expenseDTO.getLabel());
@@ -115,6 +121,12 @@ public class ExpenseService {
         expense.setDescription(expenseDTO.getDescription());
         
         Expense updatedExpense = expenseRepository.save(expense);
+        addToCube(updatedExpense, updatedExpense.getAmount());
         return convertToDTO(updatedExpense);
     }
+
+    private void addToCube(Expense expense, BigDecimal amount) {
+        financialCubeService.add(expense.getUserId(), expense.getDate(), MonthlyFinancial.EntryType.EXPENSE,
+                expense.getCategory().name(), amount);
+    }
 } 
\ No newline at end of file
@@ -54,6 +54,9 @@ public class ExportStatusService {
     @Autowired
     private JobRepository jobRepository;
 
+    @Autowired
+    private EventStreamService eventStreamService;
+
     /**
      * Get the latest export status
      */
@@ -123,7 +126,7 @@ public class ExportStatusService {
         ExportStatus saved = exportStatusRepository.save(exportStatus);
         logger.info("Successfully recorded export status with ID: {}", saved.getId());
         
-        return convertToDto(saved);
+        return announce(saved);
     }
 
     /**
@@ -141,7 +144,7 @@ public class ExportStatusService {
         ExportStatus saved = exportStatusRepository.save(exportStatus);
         logger.info("Successfully recorded failed export status with ID: {}", saved.getId());
         
-        return convertToDto(saved);
+        return announce(saved);
     }
 
     /**
@@ -162,7 +165,7 @@ public class ExportStatusService {
                 inProgressStatus.setFileName(fileName);
                 
                 try {
-                    exportStatusRepository.save(inProgressStatus);
+                    announce(exportStatusRepository.save(inProgressStatus));
                 } catch (Exception e) {
                     ErrorLogger.logError("forceManualExport", e, 
                         ErrorLogger.context()
@@ -373,6 +376,16 @@ public class ExportStatusService {
         return new ExportStatusDTO(exportStatus);
     }
 
+    /**
+     * Push the status to event stream subscribers as soon as it is recorded; an export runs
+     * in one transaction, so waiting for the commit would hide the in-progress state.
+     */
+    private ExportStatusDTO announce(ExportStatus exportStatus) {
+        ExportStatusDTO dto = convertToDto(exportStatus);
+        eventStreamService.publish(EventStreamService.EXPORT, dto);
+        return dto;
+    }
+
     /**
      * DTO for export statistics
      */
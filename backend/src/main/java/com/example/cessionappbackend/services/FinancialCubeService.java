@@ -0,0 +1,162 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.dto.FinancialMonthDTO;
+import com.example.cessionappbackend.entities.MonthlyFinancial;
+import com.example.cessionappbackend.entities.MonthlyFinancial.EntryType;
+import com.example.cessionappbackend.entities.StockMovement;
+import com.example.cessionappbackend.repositories.MonthlyFinancialRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Maintains the monthly financial cube: income by source, expenses by category, and
+ * shop-wide sales revenue and cost of goods, per user and month. Writers add their
+ * deltas in their own transaction, so a summary over any span of months is a single
+ * indexed read instead of a scan of the expenses, incomes and stock movements.
+ */
+@Service
+public class FinancialCubeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FinancialCubeService.class);
+
+    private static final int MAX_RANGE_MONTHS = 120;
+
+    @Autowired
+    private MonthlyFinancialRepository monthlyFinancialRepository;
+
+    /**
+     * Add an amount to one cell; a negative amount takes a removed or changed entry back out.
+     */
+    @Transactional
+    public void add(UUID userId, LocalDate date, EntryType entryType, String entryKey, BigDecimal amount) {
+        if (amount == null || amount.signum() == 0) {
+            return;
+        }
+        MonthlyFinancial.Key id = new MonthlyFinancial.Key(userId, date.withDayOfMonth(1), entryType, entryKey);
+        monthlyFinancialRepository.insertIfAbsent(id.getUserId(), id.getMonthStart(), entryType.name(), entryKey);
+        monthlyFinancialRepository.addAmount(id, amount);
+    }
+
+    /**
+     * Add sale movements' revenue and cost of goods, one update per month and measure.
+     * The cost is the unit cost recorded with each sale, or the product's purchase price for
+     * movements recorded without one, as in the rebuild queries and the profitability rollup.
+     */
+    @Transactional
+    public void recordSales(Collection<StockMovement> sales) {
+        Map<LocalDate, BigDecimal[]> byMonth = new TreeMap<>();
+        for (StockMovement sale : sales) {
+            BigDecimal[] totals = byMonth.computeIfAbsent(sale.getCreatedAt().toLocalDate().withDayOfMonth(1),
+                    month -> new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO });
+            BigDecimal quantity = BigDecimal.valueOf(sale.getQuantity());
+            if (sale.getSellingPriceAtSale() != null) {
+                totals[0] = totals[0].add(sale.getSellingPriceAtSale().multiply(quantity));
+            }
+            BigDecimal unitCost = sale.getUnitCost() != null ? sale.getUnitCost() : sale.getProduct().getPurchasePrice();
+            if (unitCost != null) {
+                totals[1] = totals[1].add(unitCost.multiply(quantity));
+            }
+        }
+        byMonth.forEach((monthStart, totals) -> {
+            add(MonthlyFinancial.SHOP_WIDE, monthStart, EntryType.SALES, "", totals[0]);
+            add(MonthlyFinancial.SHOP_WIDE, monthStart, EntryType.COST_OF_GOODS, "", totals[1]);
+        });
+    }
+
+    /**
+     * Recompute the sales cells of the months holding the given days, after movements were removed.
+     */
+    @Transactional
+    public void rebuildSalesMonths(Collection<LocalDate> saleDates) {
+        Set<LocalDate> monthStarts = new TreeSet<>();
+        saleDates.forEach(day -> monthStarts.add(day.withDayOfMonth(1)));
+        if (monthStarts.isEmpty()) {
+            return;
+        }
+        monthlyFinancialRepository.deleteCells(MonthlyFinancial.SHOP_WIDE, monthStarts,
+                List.of(EntryType.SALES, EntryType.COST_OF_GOODS));
+        monthlyFinancialRepository.rebuildSales(MonthlyFinancial.SHOP_WIDE, monthStarts);
+        monthlyFinancialRepository.rebuildCostOfGoods(MonthlyFinancial.SHOP_WIDE, monthStarts);
+    }
+
+    /**
+     * Every month from {@code from} to {@code to}, both inclusive, for one user, read in one query.
+     * Months without any entry are returned with zero totals.
+     */
+    @Transactional(readOnly = true)
+    public List<FinancialMonthDTO> getRange(UUID userId, YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The range must not end before it starts");
+        }
+        if (ChronoUnit.MONTHS.between(from, to) >= MAX_RANGE_MONTHS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The range cannot exceed " + MAX_RANGE_MONTHS + " months");
+        }
+
+        Map<YearMonth, FinancialMonthDTO> months = new LinkedHashMap<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            months.put(month, FinancialMonthDTO.empty(month));
+        }
+        List<MonthlyFinancial> cells = monthlyFinancialRepository.findByUsersAndMonths(
+                List.of(userId, MonthlyFinancial.SHOP_WIDE), from.atDay(1), to.atDay(1));
+        for (MonthlyFinancial cell : cells) {
+            // Cells emptied by deletions stay in the table at zero
+            if (cell.getAmount().signum() == 0) {
+                continue;
+            }
+            MonthlyFinancial.Key id = cell.getId();
+            FinancialMonthDTO month = months.get(YearMonth.from(id.getMonthStart()));
+            switch (id.getEntryType()) {
+                case SALES -> month.setSalesRevenue(month.getSalesRevenue().add(cell.getAmount()));
+                case COST_OF_GOODS -> month.setCostOfGoods(month.getCostOfGoods().add(cell.getAmount()));
+                case INCOME -> month.getIncomeBySource().merge(id.getEntryKey(), cell.getAmount(), BigDecimal::add);
+                case EXPENSE -> month.getExpensesByCategory().merge(id.getEntryKey(), cell.getAmount(), BigDecimal::add);
+            }
+        }
+
+        List<FinancialMonthDTO> result = new ArrayList<>(months.values());
+        result.forEach(FinancialMonthDTO::computeTotals);
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public FinancialMonthDTO getMonth(UUID userId, YearMonth month) {
+        return getRange(userId, month, month).get(0);
+    }
+
+    // Entries recorded before the cube existed are added to it once, on the first start
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (monthlyFinancialRepository.count() > 0) {
+            return;
+        }
+        int cells = monthlyFinancialRepository.rebuildAllSales(MonthlyFinancial.SHOP_WIDE)
+                + monthlyFinancialRepository.rebuildAllCostOfGoods(MonthlyFinancial.SHOP_WIDE)
+                + monthlyFinancialRepository.rebuildAllIncomes()
+                + monthlyFinancialRepository.rebuildAllExpenses();
+        if (cells > 0) {
+            logger.info("Built the monthly financial cube from existing records ({} cells)", cells);
+        }
+    }
+}
@@ -1,52 +1,43 @@
 package com.example.cessionappbackend.services;
 
+import com.example.cessionappbackend.dto.FinancialMonthDTO;
 import com.example.cessionappbackend.dto.FinancialSummaryDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.time.YearMonth;
-import java.util.Map;
+import java.util.List;
 import java.util.UUID;
 
 @Service
 public class FinancialSummaryService {
-    private final ExpenseService expenseService;
-    private final StockMovementService stockMovementService;
+    private final FinancialCubeService financialCubeService;
 
     @Autowired
-    public FinancialSummaryService(ExpenseService expenseService, StockMovementService stockMovementService) {
-        this.expenseService = expenseService;
-        this.stockMovementService = stockMovementService;
+    public FinancialSummaryService(FinancialCubeService financialCubeService) {
+        this.financialCubeService = financialCubeService;
     }
 
     public FinancialSummaryDTO getMonthlySummary(UUID userId, int year, int month) {
-        // Get the start and end of the month
-        YearMonth yearMonth = YearMonth.of(year, month);
-        LocalDateTime startOfMonth = yearMonth.atDay(1).atStartOfDay();
-        LocalDateTime endOfMonth = yearMonth.atEndOfMonth().atTime(23, 59, 59);
+        // Read the month's totals from the monthly financial cube
+        FinancialMonthDTO monthTotals = financialCubeService.getMonth(userId, YearMonth.of(year, month));
 
-        // Get total income from product sales for the month
-        BigDecimal totalIncome = stockMovementService.getTotalSalesIncome(startOfMonth, endOfMonth);
-
-        // Get expenses by category
-        Map<String, BigDecimal> expensesByCategory = expenseService.getExpensesByCategory(userId, year, month);
-
-        // Calculate total expenses
-        BigDecimal totalExpenses = expensesByCategory.values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Calculate profit
-        BigDecimal profit = totalIncome.subtract(totalExpenses);
+        // Income is the income from product sales, as before
+        BigDecimal totalIncome = monthTotals.getSalesRevenue();
+        BigDecimal totalExpenses = monthTotals.getTotalExpenses();
 
         // Create and return summary
         FinancialSummaryDTO summary = new FinancialSummaryDTO();
         summary.setTotalIncome(totalIncome);
         summary.setTotalExpenses(totalExpenses);
-        summary.setProfit(profit);
-        summary.setExpensesByCategory(expensesByCategory);
+        summary.setProfit(totalIncome.subtract(totalExpenses));
+        summary.setExpensesByCategory(monthTotals.getExpensesByCategory());
 
         return summary;
     }
-} 
\ No newline at end of file
+
+    public List<FinancialMonthDTO> getRangeSummary(UUID userId, YearMonth from, YearMonth to) {
+        return financialCubeService.getRange(userId, from, to);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.cessionappbackend.services;
 
 import com.example.cessionappbackend.dto.IncomeDTO;
 import com.example.cessionappbackend.entities.Income;
+import com.example.cessionappbackend.entities.MonthlyFinancial;
 import com.example.cessionappbackend.repositories.IncomeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -19,10 +20,12 @@ import java.util.stream.Collectors;
 @Service
 public class IncomeService {
     private final IncomeRepository incomeRepository;
+    private final FinancialCubeService financialCubeService;
 
     @Autowired
-    public IncomeService(IncomeRepository incomeRepository) {
+    public IncomeService(IncomeRepository incomeRepository, FinancialCubeService financialCubeService) {
         this.incomeRepository = incomeRepository;
+        this.financialCubeService = financialCubeService;
     }
 
     @Transactional
@@ -35,14 +38,14 @@ public class IncomeService {
         income.setDescription(incomeDTO.getDescription());
 
         Income savedIncome = incomeRepository.save(income);
+        addToCube(savedIncome, savedIncome.getAmount());
         return convertToDTO(savedIncome);
     }
 
     public List<IncomeDTO> getIncomesByMonth(UUID userId, int year, int month) {
         LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.plusMonths(1).minusDays(1);
 
-        return incomeRepository.findByUserIdAndDateBetween(userId, startDate, endDate)
+        return incomeRepository.findByUserIdInRange(userId, startDate, startDate.plusMonths(1))
                 .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
@@ -50,10 +53,9 @@ public class IncomeService {
 
     public BigDecimal getTotalIncomeForMonth(UUID userId, int year, int month) {
         LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.plusMonths(1).minusDays(1);
 
-        Double total = incomeRepository.getTotalIncomeForPeriod(userId, startDate, endDate);
-        return total != null ? BigDecimal.valueOf(total) : BigDecimal.ZERO;
+        BigDecimal total = incomeRepository.sumInRange(userId, startDate, startDate.plusMonths(1));
+        return total != null ? total : BigDecimal.ZERO;
     }
 
     private IncomeDTO convertToDTO(Income income) {
@@ -68,7 +70,8 @@ public class IncomeService {
     }
 
     public Page<IncomeDTO> getIncomesByDateRange(UUID userId, LocalDate startDate, LocalDate endDate, Pageable pageable) {
-        return incomeRepository.findByUserIdAndDateRange(userId, startDate, endDate, pageable)
+        // endDate is inclusive for callers
+        return incomeRepository.findByUserIdAndDateRange(userId, startDate, endDate.plusDays(1), pageable)
                 .map(this::convertToDTO);
     }
 
@@ -78,7 +81,8 @@ public class IncomeService {
     }
 
     public Map<String, Double> getIncomesBySourceForMonth(UUID userId, int year, int month) {
-        List<Object[]> results = incomeRepository.getIncomesBySourceForMonth(userId, year, month);
+        LocalDate startDate = LocalDate.of(year, month, 1);
+        List<Object[]> results = incomeRepository.sumBySourceInRange(userId, startDate, startDate.plusMonths(1));
         return results.stream()
             .collect(Collectors.toMap(
                 row -> row[0].toString(),
@@ -88,19 +92,30 @@ public class IncomeService {
 
     @Transactional
     public void deleteIncome(UUID id) {
-        incomeRepository.deleteById(id);
+        incomeRepository.findById(id).ifPresent(income -> {
+            incomeRepository.delete(income);
+            addToCube(income, income.getAmount().negate());
+        });
     }
 
     @Transactional
     public Income updateIncome(UUID id, IncomeDTO incomeDTO) {
         Income income = incomeRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Income not found"));
+        addToCube(income, income.getAmount().negate());
         
         income.setSource(incomeDTO.getSource());
         income.setAmount(incomeDTO.getAmount());
         income.setDate(incomeDTO.getDate());
         income.setDescription(incomeDTO.getDescription());
         
-        return incomeRepository.save(income);
+        Income updatedIncome = incomeRepository.save(income);
+        addToCube(updatedIncome, updatedIncome.getAmount());
+        return updatedIncome;
+    }
+
+    private void addToCube(Income income, BigDecimal amount) {
+        financialCubeService.add(income.getUserId(), income.getDate(), MonthlyFinancial.EntryType.INCOME,
+                income.getSource(), amount);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,452 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.dto.InventoryCostMonthDTO;
+import com.example.cessionappbackend.dto.InventoryValuationDTO;
+import com.example.cessionappbackend.entities.InventoryCostMonth;
+import com.example.cessionappbackend.entities.InventoryCostState;
+import com.example.cessionappbackend.entities.InventoryValuationCheckpoint;
+import com.example.cessionappbackend.entities.InventoryValuationCheckpoint.CostingMethod;
+import com.example.cessionappbackend.entities.Product;
+import com.example.cessionappbackend.repositories.InventoryCostMonthRepository;
+import com.example.cessionappbackend.repositories.InventoryCostStateRepository;
+import com.example.cessionappbackend.repositories.InventoryValuationCheckpointRepository;
+import com.example.cessionappbackend.repositories.ProductRepository;
+import com.example.cessionappbackend.repositories.ProductRepository.CatalogRow;
+import com.example.cessionappbackend.repositories.StockMovementRepository;
+import com.example.cessionappbackend.repositories.StockMovementRepository.ValuationRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Values the inventory and costs the goods sold by replaying the stock movements in
+ * (created at, id) order, with weighted-average or FIFO costing. Movements are read in
+ * chunks, each applied in its own transaction together with the checkpoint, so a run
+ * only replays what was recorded since the previous one and an interrupted run resumes
+ * where it stopped. Changing the costing method replays everything.
+ *
+ * <p>Receipts are costed at the unit cost recorded on the movement, or the product's
+ * purchase price for older movements. When a movement's previous quantity differs from
+ * the replayed quantity (opening stock, or stock edited without a movement), the
+ * difference is taken in or out at that cost before the movement is applied.
+ */
+@Service
+public class InventoryValuationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryValuationService.class);
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int COST_SCALE = 6;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryCostStateRepository costStateRepository;
+
+    @Autowired
+    private InventoryCostMonthRepository costMonthRepository;
+
+    @Autowired
+    private InventoryValuationCheckpointRepository checkpointRepository;
+
+    private final TransactionTemplate transaction;
+    private final CostingMethod costingMethod;
+    private final int chunkSize;
+    private final long settleSeconds;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    public InventoryValuationService(PlatformTransactionManager transactionManager,
+                                     @Value("${app.inventory.valuation.method:WEIGHTED_AVERAGE}") CostingMethod costingMethod,
+                                     @Value("${app.inventory.valuation.chunk-size:500}") int chunkSize,
+                                     @Value("${app.inventory.valuation.settle-seconds:60}") long settleSeconds) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.costingMethod = costingMethod;
+        this.chunkSize = chunkSize;
+        this.settleSeconds = settleSeconds;
+    }
+
+    @Scheduled(initialDelayString = "${app.inventory.valuation.interval-ms:300000}",
+               fixedDelayString = "${app.inventory.valuation.interval-ms:300000}")
+    public void runScheduled() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            run(false);
+        } catch (RuntimeException e) {
+            logger.error("Inventory valuation run failed: {}", e.getMessage(), e);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Apply the movements recorded since the last run, or replay all of them, waiting for a
+     * run already in progress. Returns what the run did.
+     */
+    public Map<String, Object> runNow(boolean rebuild) {
+        runLock.lock();
+        try {
+            return run(rebuild);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    @Transactional
+    public void forgetProduct(Long productId) {
+        costMonthRepository.deleteByProductId(productId);
+        costStateRepository.findById(productId).ifPresent(costStateRepository::delete);
+    }
+
+    @Transactional(readOnly = true)
+    public InventoryValuationDTO getValuation() {
+        Map<Long, InventoryCostState> states = costStateRepository.findAll().stream()
+                .collect(Collectors.toMap(InventoryCostState::getProductId, Function.identity()));
+        InventoryValuationDTO valuation = new InventoryValuationDTO();
+        checkpointRepository.findById(InventoryValuationCheckpoint.SINGLETON_ID).ifPresent(checkpoint -> {
+            valuation.setCostingMethod(checkpoint.getCostingMethod().name());
+            valuation.setProcessedThrough(checkpoint.getLastCreatedAt());
+            valuation.setMovementsProcessed(checkpoint.getMovementsProcessed());
+        });
+
+        List<InventoryValuationDTO.ProductValuation> products = new ArrayList<>();
+        BigDecimal totalValue = BigDecimal.ZERO;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        BigDecimal totalCogs = BigDecimal.ZERO;
+        for (CatalogRow row : productRepository.findCatalogRows()) {
+            InventoryCostState state = states.get(row.getId());
+            int onHand = row.getStockQuantity() != null ? Math.max(0, row.getStockQuantity()) : 0;
+            BigDecimal fallbackCost = row.getPurchasePrice() != null ? row.getPurchasePrice() : BigDecimal.ZERO;
+
+            InventoryValuationDTO.ProductValuation product = new InventoryValuationDTO.ProductValuation();
+            product.setProductId(row.getId());
+            product.setProductName(row.getName());
+            product.setOnHandQuantity(onHand);
+            BigDecimal averageCost = state != null && state.getQuantity() > 0
+                    ? state.getValue().divide(BigDecimal.valueOf(state.getQuantity()), COST_SCALE, RoundingMode.HALF_UP)
+                    : fallbackCost;
+            product.setAverageUnitCost(averageCost);
+            // Stock changed since the last replayed movement is valued at the replayed average
+            BigDecimal onHandValue = state != null && state.getQuantity() == onHand
+                    ? state.getValue() : averageCost.multiply(BigDecimal.valueOf(onHand));
+            product.setOnHandValue(money(onHandValue));
+            BigDecimal revenue = state != null ? state.getRevenue() : BigDecimal.ZERO;
+            BigDecimal cogs = state != null ? state.getCogs() : BigDecimal.ZERO;
+            product.setUnitsSold(state != null ? state.getUnitsSold() : 0L);
+            product.setRevenue(money(revenue));
+            product.setCogs(money(cogs));
+            product.setMargin(money(revenue.subtract(cogs)));
+            product.setMarginRate(marginRate(revenue, cogs));
+            products.add(product);
+
+            totalValue = totalValue.add(onHandValue);
+            totalRevenue = totalRevenue.add(revenue);
+            totalCogs = totalCogs.add(cogs);
+        }
+        valuation.setProducts(products);
+        valuation.setTotalOnHandValue(money(totalValue));
+        valuation.setTotalRevenue(money(totalRevenue));
+        valuation.setTotalCogs(money(totalCogs));
+        valuation.setTotalMargin(money(totalRevenue.subtract(totalCogs)));
+        return valuation;
+    }
+
+    @Transactional(readOnly = true)
+    public List<InventoryCostMonthDTO> getMonthlyCosts(YearMonth from, YearMonth to, Long productId) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The range must not end before it starts");
+        }
+        List<InventoryCostMonth> months = costMonthRepository.findByMonths(from.atDay(1), to.atDay(1), productId);
+        Set<Long> productIds = months.stream().map(month -> month.getId().getProductId()).collect(Collectors.toSet());
+        Map<Long, String> names = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Product::getName));
+
+        List<InventoryCostMonthDTO> result = new ArrayList<>(months.size());
+        for (InventoryCostMonth month : months) {
+            InventoryCostMonthDTO dto = new InventoryCostMonthDTO();
+            dto.setProductId(month.getId().getProductId());
+            dto.setProductName(names.get(month.getId().getProductId()));
+            dto.setYear(month.getId().getMonthStart().getYear());
+            dto.setMonth(month.getId().getMonthStart().getMonthValue());
+            dto.setUnitsSold(month.getUnitsSold());
+            dto.setRevenue(money(month.getRevenue()));
+            dto.setCogs(money(month.getCogs()));
+            dto.setMargin(money(month.getRevenue().subtract(month.getCogs())));
+            dto.setMarginRate(marginRate(month.getRevenue(), month.getCogs()));
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private Map<String, Object> run(boolean rebuild) {
+        long started = System.currentTimeMillis();
+        // Movements of the last moments are left for the next run: a transaction still open may
+        // yet commit one with an earlier timestamp, which the checkpoint would then skip
+        LocalDateTime until = LocalDateTime.now().minusSeconds(settleSeconds);
+        boolean replayed = Boolean.TRUE.equals(transaction.execute(status -> prepareCheckpoint(rebuild)));
+
+        long applied = 0;
+        int chunks = 0;
+        while (true) {
+            Integer count = transaction.execute(status -> applyChunk(until));
+            if (count == null || count == 0) {
+                break;
+            }
+            applied += count;
+            chunks++;
+        }
+        long elapsed = System.currentTimeMillis() - started;
+        if (applied > 0 || replayed) {
+            logger.info("Inventory valuation applied {} movements in {} chunks ({} costing{}) in {} ms",
+                    applied, chunks, costingMethod, replayed ? ", full replay" : "", elapsed);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("costingMethod", costingMethod.name());
+        result.put("fullReplay", replayed);
+        result.put("movementsApplied", applied);
+        result.put("chunks", chunks);
+        result.put("elapsedMs", elapsed);
+        return result;
+    }
+
+    // Starts over when there is no checkpoint yet, a replay is asked for, or the method changed
+    private boolean prepareCheckpoint(boolean rebuild) {
+        InventoryValuationCheckpoint checkpoint = checkpointRepository.findById(InventoryValuationCheckpoint.SINGLETON_ID)
+                .orElse(null);
+        if (checkpoint != null && !rebuild && checkpoint.getCostingMethod() == costingMethod) {
+            return false;
+        }
+        costMonthRepository.deleteAllMonths();
+        costStateRepository.deleteAllStates();
+        if (checkpoint == null) {
+            checkpoint = new InventoryValuationCheckpoint();
+        }
+        checkpoint.setCostingMethod(costingMethod);
+        checkpoint.setLastCreatedAt(null);
+        checkpoint.setLastMovementId(null);
+        checkpoint.setMovementsProcessed(0L);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+        return true;
+    }
+
+    private int applyChunk(LocalDateTime until) {
+        InventoryValuationCheckpoint checkpoint = checkpointRepository.findById(InventoryValuationCheckpoint.SINGLETON_ID)
+                .orElseThrow();
+        List<ValuationRow> rows = stockMovementRepository.findValuationChunk(
+                checkpoint.getLastCreatedAt() != null ? checkpoint.getLastCreatedAt() : BEGINNING,
+                checkpoint.getLastMovementId() != null ? checkpoint.getLastMovementId() : 0L,
+                until, PageRequest.of(0, chunkSize));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> productIds = rows.stream().map(ValuationRow::getProductId).collect(Collectors.toSet());
+        Map<Long, InventoryCostState> states = costStateRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(InventoryCostState::getProductId, Function.identity()));
+        Set<InventoryCostMonth.Key> monthKeys = rows.stream()
+                .map(row -> new InventoryCostMonth.Key(row.getProductId(), row.getCreatedAt().toLocalDate().withDayOfMonth(1)))
+                .collect(Collectors.toSet());
+        Map<InventoryCostMonth.Key, InventoryCostMonth> months = costMonthRepository.findAllById(monthKeys).stream()
+                .collect(Collectors.toMap(InventoryCostMonth::getId, Function.identity()));
+        Map<Long, CostLedger> ledgers = new HashMap<>();
+
+        for (ValuationRow row : rows) {
+            InventoryCostState state = states.computeIfAbsent(row.getProductId(), id -> {
+                InventoryCostState created = new InventoryCostState();
+                created.setProductId(id);
+                return created;
+            });
+            CostLedger ledger = ledgers.computeIfAbsent(row.getProductId(), id -> CostLedger.load(state, costingMethod));
+            BigDecimal unitCost = row.getUnitCost() != null ? row.getUnitCost()
+                    : row.getPurchasePrice() != null ? row.getPurchasePrice() : BigDecimal.ZERO;
+
+            if (row.getPreviousQuantity() != null) {
+                ledger.reconcile(row.getPreviousQuantity(), unitCost);
+            }
+            int quantity = row.getQuantity() != null ? Math.abs(row.getQuantity()) : 0;
+            switch (row.getType()) {
+                case INBOUND -> ledger.receive(quantity, unitCost);
+                case OUTBOUND -> {
+                    BigDecimal cogs = ledger.issue(quantity, unitCost);
+                    BigDecimal revenue = row.getSellingPriceAtSale() != null
+                            ? row.getSellingPriceAtSale().multiply(BigDecimal.valueOf(quantity)) : BigDecimal.ZERO;
+                    state.setUnitsSold(state.getUnitsSold() + quantity);
+                    state.setRevenue(state.getRevenue().add(revenue));
+                    state.setCogs(state.getCogs().add(cogs));
+                    InventoryCostMonth month = months.computeIfAbsent(new InventoryCostMonth.Key(row.getProductId(),
+                            row.getCreatedAt().toLocalDate().withDayOfMonth(1)), InventoryCostMonth::new);
+                    month.setUnitsSold(month.getUnitsSold() + quantity);
+                    month.setRevenue(month.getRevenue().add(revenue));
+                    month.setCogs(month.getCogs().add(cogs));
+                }
+                case ADJUSTMENT -> {
+                    if (row.getNewQuantity() != null) {
+                        ledger.reconcile(row.getNewQuantity(), unitCost);
+                    }
+                }
+            }
+        }
+
+        ledgers.forEach((productId, ledger) -> ledger.store(states.get(productId)));
+        costStateRepository.saveAll(states.values());
+        costMonthRepository.saveAll(months.values());
+
+        ValuationRow last = rows.get(rows.size() - 1);
+        checkpoint.setLastCreatedAt(last.getCreatedAt());
+        checkpoint.setLastMovementId(last.getId());
+        checkpoint.setMovementsProcessed(checkpoint.getMovementsProcessed() + rows.size());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+        return rows.size();
+    }
+
+    private static BigDecimal money(BigDecimal amount) {
+        return amount.setScale(3, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal marginRate(BigDecimal revenue, BigDecimal cogs) {
+        return revenue.signum() > 0 ? revenue.subtract(cogs).divide(revenue, 4, RoundingMode.HALF_UP) : null;
+    }
+
+    /**
+     * One product's quantity and value while a chunk is applied; FIFO keeps the lots behind the value.
+     */
+    static final class CostLedger {
+        private final CostingMethod method;
+        private int quantity;
+        private BigDecimal value;
+        private final Deque<Lot> lots = new ArrayDeque<>();
+
+        CostLedger(CostingMethod method) {
+            this.method = method;
+            this.value = BigDecimal.ZERO;
+        }
+
+        static CostLedger load(InventoryCostState state, CostingMethod method) {
+            CostLedger ledger = new CostLedger(method);
+            ledger.quantity = state.getQuantity();
+            ledger.value = state.getValue();
+            if (method == CostingMethod.FIFO && state.getFifoLots() != null && !state.getFifoLots().isEmpty()) {
+                for (String lot : state.getFifoLots().split(";")) {
+                    int at = lot.indexOf('@');
+                    ledger.lots.addLast(new Lot(Integer.parseInt(lot.substring(0, at)), new BigDecimal(lot.substring(at + 1))));
+                }
+            }
+            return ledger;
+        }
+
+        void store(InventoryCostState state) {
+            state.setQuantity(quantity);
+            state.setValue(value);
+            state.setFifoLots(method == CostingMethod.FIFO
+                    ? lots.stream().map(lot -> lot.quantity + "@" + lot.unitCost.toPlainString()).collect(Collectors.joining(";"))
+                    : null);
+        }
+
+        int getQuantity() {
+            return quantity;
+        }
+
+        BigDecimal getValue() {
+            return value;
+        }
+
+        void receive(int received, BigDecimal unitCost) {
+            if (received <= 0) {
+                return;
+            }
+            quantity += received;
+            value = value.add(unitCost.multiply(BigDecimal.valueOf(received)));
+            if (method == CostingMethod.FIFO) {
+                lots.addLast(new Lot(received, unitCost));
+            }
+        }
+
+        /**
+         * Take units out and return their cost. Units beyond what is on hand are costed at
+         * {@code fallbackCost}, since nothing was recorded as received for them.
+         */
+        BigDecimal issue(int issued, BigDecimal fallbackCost) {
+            if (issued <= 0) {
+                return BigDecimal.ZERO;
+            }
+            int fromStock = Math.min(issued, quantity);
+            BigDecimal cost;
+            if (fromStock == quantity) {
+                cost = value;
+                lots.clear();
+            } else if (method == CostingMethod.FIFO) {
+                cost = BigDecimal.ZERO;
+                int remaining = fromStock;
+                while (remaining > 0) {
+                    Lot lot = lots.peekFirst();
+                    int taken = Math.min(remaining, lot.quantity);
+                    cost = cost.add(lot.unitCost.multiply(BigDecimal.valueOf(taken)));
+                    lot.quantity -= taken;
+                    remaining -= taken;
+                    if (lot.quantity == 0) {
+                        lots.removeFirst();
+                    }
+                }
+            } else {
+                cost = value.multiply(BigDecimal.valueOf(fromStock)).divide(BigDecimal.valueOf(quantity), COST_SCALE, RoundingMode.HALF_UP);
+            }
+            quantity -= fromStock;
+            value = quantity == 0 ? BigDecimal.ZERO : value.subtract(cost);
+            return cost.add(fallbackCost.multiply(BigDecimal.valueOf(issued - fromStock)));
+        }
+
+        // Bring the quantity to what the movements say it was, at the given cost
+        void reconcile(int expectedQuantity, BigDecimal unitCost) {
+            int expected = Math.max(0, expectedQuantity);
+            if (expected > quantity) {
+                receive(expected - quantity, unitCost);
+            } else if (expected < quantity) {
+                issue(quantity - expected, unitCost);
+            }
+        }
+
+        private static final class Lot {
+            private int quantity;
+            private final BigDecimal unitCost;
+
+            private Lot(int quantity, BigDecimal unitCost) {
+                this.quantity = quantity;
+                this.unitCost = unitCost;
+            }
+        }
+    }
+}
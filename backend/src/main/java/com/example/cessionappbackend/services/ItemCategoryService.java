@@ -1,18 +1,22 @@
 package com.example.cessionappbackend.services;
 
 import com.example.cessionappbackend.entities.ItemCategory;
+import com.example.cessionappbackend.events.ProductCatalogChangeEvent;
 import com.example.cessionappbackend.repositories.ItemCategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.util.List;
 
 @Service
 public class ItemCategoryService {
     private final ItemCategoryRepository itemCategoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ItemCategoryService(ItemCategoryRepository itemCategoryRepository) {
+    public ItemCategoryService(ItemCategoryRepository itemCategoryRepository, ApplicationEventPublisher eventPublisher) {
         this.itemCategoryRepository = itemCategoryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<ItemCategory> getAllCategories() {
@@ -32,10 +36,14 @@ public class ItemCategoryService {
         ItemCategory existingCategory = getCategoryById(id);
         existingCategory.setName(category.getName());
         existingCategory.setDescription(category.getDescription());
-        return itemCategoryRepository.save(existingCategory);
+        ItemCategory savedCategory = itemCategoryRepository.save(existingCategory);
+        // Category names are shown in the catalog facets; deleting a category also deletes its products
+        eventPublisher.publishEvent(ProductCatalogChangeEvent.all());
+        return savedCategory;
     }
 
     public void deleteCategory(Long id) {
         itemCategoryRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductCatalogChangeEvent.all());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.example.cessionappbackend.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects sign-in times and writes them to the users in one JDBC batch every few seconds,
+ * instead of saving the user within each sign-in. Only the latest time per user is kept.
+ * The write goes around JPA, so it does not count as a change of the user and leaves the
+ * cached principals alone.
+ */
+@Service
+public class LastLoginRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginRecorder.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<UUID, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    public void record(UUID userId, LocalDateTime loginTime) {
+        keepLatest(userId, loginTime);
+        recorded.incrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.login.last-login-flush-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (UUID userId : new ArrayList<>(pending.keySet())) {
+            LocalDateTime loginTime = pending.remove(userId);
+            if (loginTime != null) {
+                batch.add(new Object[] { Timestamp.valueOf(loginTime), userId });
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate("UPDATE users SET last_login = ? WHERE id = ?", batch);
+            written.addAndGet(batch.size());
+            flushes.incrementAndGet();
+        } catch (RuntimeException e) {
+            // Put the times back for the next flush, unless a newer sign-in arrived meanwhile
+            batch.forEach(row -> keepLatest((UUID) row[1], ((Timestamp) row[0]).toLocalDateTime()));
+            logger.warn("Could not write {} last login times: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("recorded", recorded.get());
+        stats.put("written", written.get());
+        stats.put("flushes", flushes.get());
+        return stats;
+    }
+
+    private void keepLatest(UUID userId, LocalDateTime loginTime) {
+        pending.merge(userId, loginTime, (previous, latest) -> latest.isAfter(previous) ? latest : previous);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.dto.ProductDTO;
+import com.example.cessionappbackend.events.ProductCatalogChangeEvent;
+import com.example.cessionappbackend.repositories.ProductRepository;
+import com.example.cessionappbackend.repositories.ProductRepository.CatalogRow;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the set of products at or under their reorder point (or out of stock, when no
+ * reorder point is set) in memory, following {@link ProductCatalogChangeEvent}s, and
+ * pushes each product entering or leaving the set to Server-Sent Events subscribers.
+ *
+ * <p>Subscribers first receive a {@code snapshot} event with the whole set, then
+ * {@code enter}, {@code change} (stock level moved while low) and {@code leave} events
+ * carrying the product. Events are sent from one dispatcher thread, in order.
+ */
+@Service
+public class LowStockTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockTracker.class);
+
+    private static final Comparator<ProductDTO> BY_NAME = Comparator.comparing(ProductDTO::getName,
+            Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)).thenComparing(ProductDTO::getId);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Value("${app.inventory.low-stock.stream-timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    // Guarded by lock; a lock rather than a monitor, since rebuilds query the database while
+    // holding it and a virtual thread blocked inside a monitor pins its carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, ProductDTO> lowStock = new HashMap<>();
+    private boolean built;
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "low-stock-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong eventSequence = new AtomicLong();
+    private final AtomicLong enters = new AtomicLong();
+    private final AtomicLong leaves = new AtomicLong();
+    private final AtomicLong eventsSent = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.lock();
+        try {
+            List<CatalogRow> rows = productRepository.findCatalogRows();
+            Map<Long, CatalogRow> byId = new HashMap<>();
+            rows.forEach(row -> byId.put(row.getId(), row));
+            // After a full reload, everything tracked or now low is compared
+            List<Long> ids = new ArrayList<>(byId.keySet());
+            lowStock.keySet().stream().filter(id -> !byId.containsKey(id)).forEach(ids::add);
+            apply(ids, byId, built);
+            built = true;
+            logger.info("Tracking {} products at or under their reorder point", lowStock.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(ProductCatalogChangeEvent event) {
+        if (event.isAll()) {
+            rebuild();
+            return;
+        }
+        if (event.getProductIds().isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (!built) {
+                return;
+            }
+            Map<Long, CatalogRow> byId = new HashMap<>();
+            productRepository.findCatalogRowsByIdIn(event.getProductIds()).forEach(row -> byId.put(row.getId(), row));
+            apply(event.getProductIds(), byId, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<ProductDTO> getLowStockProducts() {
+        lock.lock();
+        try {
+            List<ProductDTO> products = new ArrayList<>(lowStock.values());
+            products.sort(BY_NAME);
+            return products;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Open an event stream for a client. The snapshot is queued under the same lock as the
+     * transitions, so the client sees every change made after it, and none twice.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+        lock.lock();
+        try {
+            List<ProductDTO> snapshot = getLowStockProducts();
+            long id = eventSequence.incrementAndGet();
+            dispatcher.execute(() -> {
+                if (send(emitter, SseEmitter.event().id(Long.toString(id)).name("snapshot").data(snapshot))) {
+                    subscribers.add(emitter);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        return emitter;
+    }
+
+    // A comment line every half minute keeps proxies from closing idle streams and finds dead clients
+    @Scheduled(fixedDelay = 30000)
+    public void sendHeartbeats() {
+        if (!subscribers.isEmpty()) {
+            dispatcher.execute(() -> subscribers.forEach(emitter -> send(emitter, SseEmitter.event().comment("heartbeat"))));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("lowStockProducts", lowStock.size());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("subscribers", subscribers.size());
+        stats.put("enters", enters.get());
+        stats.put("leaves", leaves.get());
+        stats.put("eventsSent", eventsSent.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+    }
+
+    // Caller holds the lock; rows missing from byId belong to deleted products
+    private void apply(Collection<Long> productIds, Map<Long, CatalogRow> byId, boolean notify) {
+        for (Long id : productIds) {
+            CatalogRow row = byId.get(id);
+            ProductDTO previous = lowStock.get(id);
+            if (row != null && isLow(row.getStockQuantity(), row.getReorderPoint())) {
+                ProductDTO product = ProductCatalogIndex.toProductDTO(row);
+                lowStock.put(id, product);
+                if (previous == null) {
+                    publish(notify, "enter", product);
+                } else if (!Objects.equals(previous.getStockQuantity(), product.getStockQuantity())
+                        || !Objects.equals(previous.getReorderPoint(), product.getReorderPoint())) {
+                    publish(notify, "change", product);
+                }
+            } else if (previous != null) {
+                lowStock.remove(id);
+                publish(notify, "leave", row != null ? ProductCatalogIndex.toProductDTO(row) : previous);
+            }
+        }
+    }
+
+    private void publish(boolean notify, String name, ProductDTO product) {
+        if (!notify) {
+            return;
+        }
+        if ("enter".equals(name)) {
+            enters.incrementAndGet();
+        } else if ("leave".equals(name)) {
+            leaves.incrementAndGet();
+        }
+        long id = eventSequence.incrementAndGet();
+        // Queued even with no subscriber yet, for one whose snapshot is still queued ahead of it
+        dispatcher.execute(() -> subscribers.forEach(emitter ->
+                send(emitter, SseEmitter.event().id(Long.toString(id)).name(name).data(product))));
+        Map<String, Object> transition = new LinkedHashMap<>();
+        transition.put("transition", name);
+        transition.put("product", product);
+        eventStreamService.publish(EventStreamService.LOW_STOCK, transition);
+    }
+
+    private boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            eventsSent.incrementAndGet();
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the container reports it through the emitter callbacks too
+            subscribers.remove(emitter);
+            logger.debug("Dropped a low-stock event subscriber: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    static boolean isLow(Integer stockQuantity, Integer reorderPoint) {
+        int stock = stockQuantity != null ? stockQuantity : 0;
+        return stock <= 0 || (reorderPoint != null && stock <= reorderPoint);
+    }
+}
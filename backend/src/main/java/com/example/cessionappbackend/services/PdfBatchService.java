@@ -0,0 +1,548 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.dto.ClearanceCertificateDocumentDTO;
+import com.example.cessionappbackend.dto.PdfBatchJobDTO;
+import com.example.cessionappbackend.dto.PdfBatchRequestDTO;
+import com.example.cessionappbackend.dto.ReleaseRequestDocumentDTO;
+import com.example.cessionappbackend.dto.SalaryAssignmentDocumentDTO;
+import com.example.cessionappbackend.entities.Cession;
+import com.example.cessionappbackend.repositories.CessionRepository;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfSmartCopy;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders one document type for many cessions as a background job, into a single
+ * merged PDF or a ZIP archive that is kept on disk until it is downloaded or expires.
+ *
+ * Jobs run one at a time on their own thread, so a month-end batch never holds a
+ * request thread. Cessions are loaded in batched queries, and documents are rendered
+ * in parallel on a bounded pool while the job thread appends them to the output in
+ * request order. Only a small window of rendered documents is held in memory.
+ */
+@Service
+public class PdfBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfBatchService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 50;
+
+    public enum DocumentType {
+        SALARY_ASSIGNMENT("salary-assignment"),
+        CLEARANCE_CERTIFICATE("clearance-certificate"),
+        RELEASE_REQUEST("release-request");
+
+        private final String fileName;
+
+        DocumentType(String fileName) {
+            this.fileName = fileName;
+        }
+
+        // Also the document type in the PDF cache key
+        String getFileName() {
+            return fileName;
+        }
+
+        // Clearance and release documents are only issued for paid off cessions
+        boolean requiresSettledCession() {
+            return this != SALARY_ASSIGNMENT;
+        }
+    }
+
+    public enum OutputFormat {
+        PDF, ZIP
+    }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    @Autowired
+    private CessionRepository cessionRepository;
+
+    @Autowired
+    private CessionDocumentDataService cessionDocumentDataService;
+
+    @Autowired
+    private SalaryAssignmentPdfGeneratorService salaryAssignmentPdfGeneratorService;
+
+    @Autowired
+    private ClearanceCertificatePdfGeneratorService clearanceCertificatePdfGeneratorService;
+
+    @Autowired
+    private ReleaseRequestPdfGeneratorService releaseRequestPdfGeneratorService;
+
+    @Value("${app.pdf.batch.max-documents:2000}")
+    private int maxDocuments;
+
+    @Value("${app.pdf.batch.query-batch-size:500}")
+    private int queryBatchSize;
+
+    @Value("${app.pdf.batch.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor jobExecutor;
+    private final ThreadPoolExecutor renderExecutor;
+    // Rendered documents waiting to be appended to the output, per running job
+    private final int renderWindow;
+    private final Map<UUID, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    public PdfBatchService(PlatformTransactionManager transactionManager,
+                           @Value("${app.pdf.batch.render-threads:0}") int renderThreads,
+                           @Value("${app.pdf.batch.max-queued-jobs:10}") int maxQueuedJobs) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        int threads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        this.renderWindow = threads * 2;
+
+        this.jobExecutor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueuedJobs),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-batch-job");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.jobExecutor.allowCoreThreadTimeOut(true);
+
+        // The render window keeps the queue short, so it does not need a bound of its own
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.renderExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-batch-render-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.renderExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        renderExecutor.shutdownNow();
+        jobs.values().forEach(BatchJob::deleteOutput);
+    }
+
+    /**
+     * Queue a batch job.
+     * @throws IllegalArgumentException if the request is invalid
+     * @throws RejectedExecutionException if too many jobs are already queued
+     */
+    public PdfBatchJobDTO submit(PdfBatchRequestDTO request) {
+        DocumentType documentType = parse(DocumentType.class, request.getDocumentType(), "document type");
+        OutputFormat format = request.getFormat() == null ? OutputFormat.PDF : parse(OutputFormat.class, request.getFormat(), "format");
+
+        // Duplicates would only print the same document twice
+        List<UUID> cessionIds = request.getCessionIds() == null ? List.of() : request.getCessionIds().stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new))
+                .stream().toList();
+        if (cessionIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one cession ID is required");
+        }
+        if (cessionIds.size() > maxDocuments) {
+            throw new IllegalArgumentException("A batch is limited to " + maxDocuments + " documents");
+        }
+
+        BatchJob job = new BatchJob(documentType, format, cessionIds);
+        jobs.put(job.id, job);
+        try {
+            jobExecutor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+        logger.info("Queued PDF batch job {}: {} {} documents as {}", job.id, cessionIds.size(), documentType, format);
+        return job.toDto();
+    }
+
+    public PdfBatchJobDTO getJob(UUID jobId) {
+        return findJob(jobId).toDto();
+    }
+
+    /**
+     * The output of a completed job.
+     * @throws EntityNotFoundException if the job is unknown or has expired
+     * @throws IllegalStateException if the job has not completed
+     */
+    public BatchOutputFile getOutput(UUID jobId) {
+        BatchJob job = findJob(jobId);
+        if (job.status != JobStatus.COMPLETED) {
+            throw new IllegalStateException("Batch job " + jobId + " is " + job.status);
+        }
+        String extension = job.format == OutputFormat.ZIP ? ".zip" : ".pdf";
+        String fileName = job.documentType.fileName + "-batch-" + job.id.toString().substring(0, 8) + extension;
+        return new BatchOutputFile(job.output, fileName, job.format);
+    }
+
+    public static final class BatchOutputFile {
+        private final Path path;
+        private final String fileName;
+        private final OutputFormat format;
+
+        private BatchOutputFile(Path path, String fileName, OutputFormat format) {
+            this.path = path;
+            this.fileName = fileName;
+            this.format = format;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public OutputFormat getFormat() {
+            return format;
+        }
+    }
+
+    @Scheduled(fixedDelay = 300000) // Every five minutes
+    public void removeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.finishedAt == null || job.finishedAt.isAfter(cutoff)) {
+                return false;
+            }
+            job.deleteOutput();
+            logger.debug("Removed expired PDF batch job {}", job.id);
+            return true;
+        });
+    }
+
+    private BatchJob findJob(UUID jobId) {
+        BatchJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new EntityNotFoundException("Batch job not found: " + jobId);
+        }
+        return job;
+    }
+
+    private void runJob(BatchJob job) {
+        long startTime = System.currentTimeMillis();
+        job.status = JobStatus.RUNNING;
+        BatchOutput output = null;
+        try {
+            List<BatchItem> items = loadItems(job);
+            job.output = Files.createTempFile("pdf-batch-", job.format == OutputFormat.ZIP ? ".zip" : ".pdf");
+            output = job.format == OutputFormat.ZIP ? new ZipBatchOutput(job.output) : new MergedPdfBatchOutput(job.output);
+
+            int written = 0;
+            Deque<Rendering> window = new ArrayDeque<>();
+            for (BatchItem item : items) {
+                window.add(new Rendering(item, renderExecutor.submit(() -> render(job.documentType, item))));
+                if (window.size() >= renderWindow) {
+                    written += append(job, output, window.poll());
+                }
+            }
+            while (!window.isEmpty()) {
+                written += append(job, output, window.poll());
+            }
+
+            if (written == 0) {
+                logger.warn("PDF batch job {} produced no document", job.id);
+                job.recordError(null, "No document could be rendered");
+                job.status = JobStatus.FAILED;
+                output.abort();
+                job.deleteOutput();
+                return;
+            }
+            output.close();
+            output = null;
+            job.fileSizeBytes = Files.size(job.output);
+            job.status = JobStatus.COMPLETED;
+            logger.info("PDF batch job {} rendered {} of {} documents in {}ms ({} bytes)",
+                    job.id, written, job.total, System.currentTimeMillis() - startTime, job.fileSizeBytes);
+        } catch (Exception e) {
+            logger.error("PDF batch job {} failed: {}", job.id, e.getMessage(), e);
+            job.recordError(null, e.getMessage());
+            job.status = JobStatus.FAILED;
+            if (output != null) {
+                output.abort();
+            }
+            job.deleteOutput();
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * Build the generator DTOs, one query per chunk of cessions. Cessions that are missing
+     * or not eligible for the document type are counted as failed right away.
+     */
+    private List<BatchItem> loadItems(BatchJob job) {
+        List<BatchItem> items = new ArrayList<>(job.cessionIds.size());
+        for (int start = 0; start < job.cessionIds.size(); start += queryBatchSize) {
+            List<UUID> chunk = job.cessionIds.subList(start, Math.min(start + queryBatchSize, job.cessionIds.size()));
+            readOnlyTransaction.executeWithoutResult(status -> {
+                Map<UUID, Cession> cessions = cessionRepository.findWithDocumentDataByIdIn(chunk).stream()
+                        .collect(Collectors.toMap(Cession::getId, Function.identity()));
+                for (UUID cessionId : chunk) {
+                    Cession cession = cessions.get(cessionId);
+                    if (cession == null) {
+                        job.recordFailure(cessionId, "cession not found");
+                    } else if (job.documentType.requiresSettledCession() && !cessionDocumentDataService.isSettled(cession)) {
+                        job.recordFailure(cessionId, "cession is not settled");
+                    } else {
+                        items.add(new BatchItem(cessionId, toDocumentData(job.documentType, cession)));
+                    }
+                }
+            });
+        }
+        return items;
+    }
+
+    private Object toDocumentData(DocumentType documentType, Cession cession) {
+        switch (documentType) {
+            case SALARY_ASSIGNMENT:
+                return cessionDocumentDataService.toSalaryAssignment(cession);
+            case CLEARANCE_CERTIFICATE:
+                return cessionDocumentDataService.toClearanceCertificate(cession);
+            default:
+                return cessionDocumentDataService.toReleaseRequest(cession);
+        }
+    }
+
+    private byte[] render(DocumentType documentType, BatchItem item) throws DocumentException, IOException {
+        switch (documentType) {
+            case SALARY_ASSIGNMENT:
+                // The worker number was read from the client entity along with the rest
+                SalaryAssignmentDocumentDTO salaryAssignment = (SalaryAssignmentDocumentDTO) item.data;
+                return salaryAssignmentPdfGeneratorService.preparePdf(salaryAssignment, salaryAssignment.getWorkerNumber()).toByteArray();
+            case CLEARANCE_CERTIFICATE:
+                return clearanceCertificatePdfGeneratorService.preparePdf(
+                        (ClearanceCertificateDocumentDTO) item.data).toByteArray();
+            default:
+                return releaseRequestPdfGeneratorService.preparePdf(
+                        (ReleaseRequestDocumentDTO) item.data).toByteArray();
+        }
+    }
+
+    // Wait for the oldest rendering and append it; returns the number of documents written
+    private int append(BatchJob job, BatchOutput output, Rendering rendering) throws IOException, DocumentException, InterruptedException {
+        byte[] pdf;
+        try {
+            pdf = rendering.future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.warn("PDF batch job {}: rendering failed for cession {}: {}", job.id, rendering.item.cessionId, cause.getMessage());
+            job.recordFailure(rendering.item.cessionId, "rendering failed: " + cause.getMessage());
+            return 0;
+        }
+        output.add(job.documentType.fileName + "-" + rendering.item.cessionId + ".pdf", pdf);
+        job.processed.incrementAndGet();
+        return 1;
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String description) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown " + description + ": " + value);
+        }
+    }
+
+    private static final class BatchItem {
+        private final UUID cessionId;
+        private final Object data;
+
+        private BatchItem(UUID cessionId, Object data) {
+            this.cessionId = cessionId;
+            this.data = data;
+        }
+    }
+
+    private static final class Rendering {
+        private final BatchItem item;
+        private final Future<byte[]> future;
+
+        private Rendering(BatchItem item, Future<byte[]> future) {
+            this.item = item;
+            this.future = future;
+        }
+    }
+
+    private static final class BatchJob {
+        private final UUID id = UUID.randomUUID();
+        private final DocumentType documentType;
+        private final OutputFormat format;
+        private final List<UUID> cessionIds;
+        private final int total;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile LocalDateTime finishedAt;
+        private volatile Path output;
+        private volatile Long fileSizeBytes;
+
+        private BatchJob(DocumentType documentType, OutputFormat format, List<UUID> cessionIds) {
+            this.documentType = documentType;
+            this.format = format;
+            this.cessionIds = cessionIds;
+            this.total = cessionIds.size();
+        }
+
+        void recordFailure(UUID cessionId, String reason) {
+            processed.incrementAndGet();
+            failed.incrementAndGet();
+            recordError(cessionId, reason);
+        }
+
+        void recordError(UUID cessionId, String reason) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(cessionId != null ? cessionId + ": " + reason : reason);
+            }
+        }
+
+        void deleteOutput() {
+            Path file = output;
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("Could not delete PDF batch output {}: {}", file, e.getMessage());
+                }
+            }
+        }
+
+        PdfBatchJobDTO toDto() {
+            List<String> reportedErrors;
+            synchronized (errors) {
+                reportedErrors = new ArrayList<>(errors);
+            }
+            return new PdfBatchJobDTO(id, status.name(), documentType.name(), format.name(), total,
+                    processed.get(), failed.get(), reportedErrors, createdAt, finishedAt,
+                    status == JobStatus.COMPLETED ? fileSizeBytes : null);
+        }
+    }
+
+    private interface BatchOutput {
+        void add(String name, byte[] pdf) throws IOException, DocumentException;
+
+        void close() throws IOException;
+
+        // Release the file without completing it; the caller deletes it
+        void abort();
+    }
+
+    /**
+     * Appends every document to one PDF. PdfSmartCopy writes streams that are identical
+     * across documents a single time.
+     */
+    private static final class MergedPdfBatchOutput implements BatchOutput {
+        private final OutputStream out;
+        private final Document document = new Document();
+        private final PdfSmartCopy copy;
+
+        MergedPdfBatchOutput(Path file) throws IOException, DocumentException {
+            out = new BufferedOutputStream(Files.newOutputStream(file));
+            copy = new PdfSmartCopy(document, out);
+            document.open();
+        }
+
+        @Override
+        public void add(String name, byte[] pdf) throws IOException, DocumentException {
+            PdfReader reader = new PdfReader(pdf);
+            try {
+                copy.addDocument(reader);
+                copy.freeReader(reader);
+            } finally {
+                reader.close();
+            }
+        }
+
+        @Override
+        public void close() {
+            // Closes the output stream as well
+            document.close();
+        }
+
+        @Override
+        public void abort() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.debug("Could not close aborted batch output: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static final class ZipBatchOutput implements BatchOutput {
+        private final ZipOutputStream zip;
+
+        ZipBatchOutput(Path file) throws IOException {
+            zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            // PDFs are already compressed; spend as little CPU as possible on them
+            zip.setLevel(Deflater.BEST_SPEED);
+        }
+
+        @Override
+        public void add(String name, byte[] pdf) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(pdf);
+            zip.closeEntry();
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+
+        @Override
+        public void abort() {
+            try {
+                zip.close();
+            } catch (IOException e) {
+                logger.debug("Could not close aborted batch output: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.cessionappbackend.services;
+
+import com.itextpdf.text.Font;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.languages.ArabicLigaturizer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single owner of the fonts used by the PDF generators. Each TTF is read and parsed
+ * once at startup and the resulting BaseFont (with its glyph width and kerning tables)
+ * is shared by every generator, instead of each generator class loading its own copy
+ * on first use. Font and ligaturizer instances are immutable once built, so they are
+ * safe to share across concurrent renders.
+ */
+@Component
+public class PdfFontRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfFontRegistry.class);
+
+    private static final String TIMES_REGULAR = "fonts/times-new-roman.ttf";
+    private static final String TIMES_BOLD = "fonts/times-new-roman-bold.ttf";
+    private static final String ARABIC = "fonts/NotoSansArabic-Regular.ttf";
+
+    private final Map<String, BaseFont> baseFonts = new LinkedHashMap<>();
+    private final Map<String, Font> fonts = new ConcurrentHashMap<>();
+    private final ArabicLigaturizer arabicLigaturizer = new ArabicLigaturizer();
+
+    private BaseFont primaryFont;
+    private String primaryFontName;
+    private long loadTimeMs;
+    private long fontFileBytes;
+    private long heapDeltaBytes;
+
+    @PostConstruct
+    public void loadFonts() {
+        long startTime = System.currentTimeMillis();
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        BaseFont timesNewRomanFont = loadTrueTypeFont(TIMES_REGULAR);
+        BaseFont timesNewRomanBoldFont = loadTrueTypeFont(TIMES_BOLD);
+        BaseFont arabicFont = loadTrueTypeFont(ARABIC);
+
+        // Times New Roman Bold is the primary font for every document (headings CS)
+        if (timesNewRomanBoldFont != null) {
+            primaryFont = timesNewRomanBoldFont;
+            primaryFontName = "Times New Roman Bold";
+        } else if (timesNewRomanFont != null) {
+            primaryFont = timesNewRomanFont;
+            primaryFontName = "Times New Roman Regular";
+        } else if (arabicFont != null) {
+            primaryFont = arabicFont;
+            primaryFontName = "Arabic fallback";
+        } else {
+            try {
+                primaryFont = BaseFont.createFont(BaseFont.TIMES_ROMAN, "Cp1256", BaseFont.NOT_EMBEDDED);
+                primaryFontName = "Times Roman fallback";
+            } catch (Exception e) {
+                logger.error("All font loading failed, using the built-in Times Roman family: {}", e.getMessage());
+                primaryFontName = "Times Roman family fallback";
+            }
+        }
+
+        loadTimeMs = System.currentTimeMillis() - startTime;
+        // Only indicative: other threads allocate during startup too
+        heapDeltaBytes = Math.max(0, (runtime.totalMemory() - runtime.freeMemory()) - heapBefore);
+        logger.info("PDF fonts loaded in {}ms: primary font {}, {} font files ({} KB), ~{} KB heap",
+                loadTimeMs, primaryFontName, baseFonts.size(), fontFileBytes / 1024, heapDeltaBytes / 1024);
+    }
+
+    /**
+     * The shared primary font at the given size and style. Instances are cached, so
+     * generators should obtain their fonts once rather than per document.
+     */
+    public Font getFont(float size, int style) {
+        return fonts.computeIfAbsent(size + ":" + style, key -> primaryFont != null
+                ? new Font(primaryFont, size, style)
+                : new Font(Font.FontFamily.TIMES_ROMAN, size, style));
+    }
+
+    public ArabicLigaturizer getArabicLigaturizer() {
+        return arabicLigaturizer;
+    }
+
+    /**
+     * Load time and memory figures for the font set, for diagnostics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("primaryFont", primaryFontName);
+        stats.put("loadedFonts", baseFonts.keySet());
+        stats.put("loadTimeMs", loadTimeMs);
+        stats.put("fontFileBytes", fontFileBytes);
+        stats.put("heapDeltaBytes", heapDeltaBytes);
+        stats.put("cachedFontVariants", fonts.size());
+        return stats;
+    }
+
+    private BaseFont loadTrueTypeFont(String resourcePath) {
+        ClassPathResource resource = new ClassPathResource(resourcePath);
+        if (!resource.exists()) {
+            logger.warn("Font {} not found on the classpath", resourcePath);
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            // Read the bytes ourselves: works from inside the packaged jar, and BaseFont's own
+            // static cache is bypassed since this registry is the cache
+            byte[] fontData = in.readAllBytes();
+            BaseFont font = BaseFont.createFont(resourcePath, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, false, fontData, null);
+            baseFonts.put(resourcePath, font);
+            fontFileBytes += fontData.length;
+            logger.debug("Loaded font {} ({} bytes)", resourcePath, fontData.length);
+            return font;
+        } catch (Exception e) {
+            logger.warn("Failed to load font {}: {}", resourcePath, e.getMessage());
+            return null;
+        }
+    }
+}
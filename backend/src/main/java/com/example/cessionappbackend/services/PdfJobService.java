@@ -0,0 +1,378 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.dto.ClearanceCertificateDocumentDTO;
+import com.example.cessionappbackend.dto.PdfJobDTO;
+import com.example.cessionappbackend.dto.ReleaseRequestDocumentDTO;
+import com.example.cessionappbackend.dto.SalaryAssignmentDocumentDTO;
+import com.example.cessionappbackend.services.PdfBatchService.DocumentType;
+import com.example.cessionappbackend.services.PdfBatchService.JobStatus;
+import com.itextpdf.text.DocumentException;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders single documents on a bounded pool, one thread per CPU by default, so that
+ * a burst of print requests cannot take the CPU away from the rest of the API.
+ *
+ * Documents are either rendered for a waiting request ({@link #render}) or as a job that
+ * is polled and downloaded later ({@link #submit}). Both share the pool and its queue;
+ * when the queue is full, both are refused with a RejectedExecutionException and
+ * {@link #retryAfterSeconds()} estimates when to try again.
+ */
+@Service
+public class PdfJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfJobService.class);
+
+    // Render times kept for the percentile in the stats
+    private static final int RECENT_RENDERS = 256;
+
+    @Autowired
+    private PdfOutputCache pdfOutputCache;
+
+    @Autowired
+    private SalaryAssignmentPdfGeneratorService salaryAssignmentPdfGeneratorService;
+
+    @Autowired
+    private ClearanceCertificatePdfGeneratorService clearanceCertificatePdfGeneratorService;
+
+    @Autowired
+    private ReleaseRequestPdfGeneratorService releaseRequestPdfGeneratorService;
+
+    @Value("${app.pdf.jobs.retention-minutes:10}")
+    private long retentionMinutes;
+
+    private final int renderThreads;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor renderExecutor;
+    private final Map<UUID, PdfJob> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong renders = new AtomicLong();
+    private final AtomicLong renderFailures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong jobsSubmitted = new AtomicLong();
+    private final AtomicLong totalRenderNanos = new AtomicLong();
+    private final AtomicLong maxRenderNanos = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    // Guarded by itself
+    private final long[] recentRenderNanos = new long[RECENT_RENDERS];
+    private int recentRenderCount;
+
+    public PdfJobService(@Value("${app.pdf.jobs.render-threads:0}") int renderThreads,
+                         @Value("${app.pdf.jobs.queue-capacity:50}") int queueCapacity) {
+        this.renderThreads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.renderExecutor = new ThreadPoolExecutor(this.renderThreads, this.renderThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-render-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.renderExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderExecutor.shutdownNow();
+        jobs.values().forEach(PdfJob::deleteOutput);
+    }
+
+    /**
+     * Render a document on the pool and wait for it. The whole document is written to a
+     * file on the render thread, including the close that subsets the fonts, so the render
+     * times cover all of the work and the caller only streams the file.
+     * @return the open document, to be closed by the caller once it is sent
+     * @throws RejectedExecutionException if the render queue is full
+     */
+    public RenderedPdf render(DocumentType documentType, Object documentData) throws DocumentException, IOException {
+        long queuedAt = System.nanoTime();
+        Future<RenderedPdf> rendering;
+        try {
+            rendering = renderExecutor.submit(() -> timed(queuedAt, () -> renderToFile(documentType, documentData)));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+        try {
+            return rendering.get();
+        } catch (InterruptedException e) {
+            if (!rendering.cancel(true) && rendering.isDone()) {
+                // Finished just now but never sent
+                closeQuietly(rendering);
+            }
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the PDF to render", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DocumentException) {
+                throw (DocumentException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("PDF rendering failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static void closeQuietly(Future<RenderedPdf> rendering) {
+        try {
+            rendering.get().close();
+        } catch (InterruptedException | ExecutionException e) {
+            // Failed, so there is nothing to release
+        }
+    }
+
+    /**
+     * Queue a document to be rendered in the background and downloaded once completed.
+     * @throws RejectedExecutionException if the render queue is full
+     */
+    public PdfJobDTO submit(DocumentType documentType, Object documentData) {
+        PdfJob job = new PdfJob(documentType);
+        jobs.put(job.id, job);
+        long queuedAt = System.nanoTime();
+        try {
+            renderExecutor.execute(() -> runJob(job, documentData, queuedAt));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            rejected.incrementAndGet();
+            throw e;
+        }
+        jobsSubmitted.incrementAndGet();
+        logger.debug("Queued PDF job {} ({})", job.id, documentType);
+        return job.toDto();
+    }
+
+    public PdfJobDTO getJob(UUID jobId) {
+        return findJob(jobId).toDto();
+    }
+
+    /**
+     * The PDF of a completed job.
+     * @throws EntityNotFoundException if the job is unknown or has expired
+     * @throws IllegalStateException if the job has not completed
+     */
+    public Path getOutput(UUID jobId) {
+        PdfJob job = findJob(jobId);
+        if (job.status != JobStatus.COMPLETED) {
+            throw new IllegalStateException("PDF job " + jobId + " is " + job.status);
+        }
+        return job.output;
+    }
+
+    public String getOutputFileName(UUID jobId) {
+        PdfJob job = findJob(jobId);
+        return job.documentType.getFileName() + "-" + job.id.toString().substring(0, 8) + ".pdf";
+    }
+
+    /**
+     * Seconds until the queue should have room again: the work ahead of a new request at the
+     * recent average render time, spread over the pool. At least one, at most sixty.
+     */
+    public long retryAfterSeconds() {
+        long count = renders.get();
+        double averageMillis = count == 0 ? 1000 : totalRenderNanos.get() / 1e6 / count;
+        double seconds = (renderExecutor.getQueue().size() + renderExecutor.getActiveCount()) * averageMillis / renderThreads / 1000;
+        return Math.max(1, Math.min(60, (long) Math.ceil(seconds)));
+    }
+
+    public Map<String, Object> getStats() {
+        long count = renders.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("renderThreads", renderThreads);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queueDepth", renderExecutor.getQueue().size());
+        stats.put("activeRenders", renderExecutor.getActiveCount());
+        stats.put("renders", count);
+        stats.put("renderFailures", renderFailures.get());
+        stats.put("rejected", rejected.get());
+        stats.put("jobsSubmitted", jobsSubmitted.get());
+        stats.put("jobsRetained", jobs.size());
+        stats.put("renderTimeAvgMs", count == 0 ? 0 : millis(totalRenderNanos.get() / count));
+        stats.put("renderTimeP95Ms", millis(recentRenderPercentile(0.95)));
+        stats.put("renderTimeMaxMs", millis(maxRenderNanos.get()));
+        stats.put("queueWaitAvgMs", count == 0 ? 0 : millis(totalQueueWaitNanos.get() / count));
+        return stats;
+    }
+
+    @Scheduled(fixedDelay = 60000) // Every minute
+    public void removeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.finishedAt == null || job.finishedAt.isAfter(cutoff)) {
+                return false;
+            }
+            job.deleteOutput();
+            return true;
+        });
+    }
+
+    private PdfJob findJob(UUID jobId) {
+        PdfJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new EntityNotFoundException("PDF job not found: " + jobId);
+        }
+        return job;
+    }
+
+    private void runJob(PdfJob job, Object documentData, long queuedAt) {
+        job.status = JobStatus.RUNNING;
+        long startTime = System.nanoTime();
+        try {
+            Path file = Files.createTempFile("pdf-job-", ".pdf");
+            job.output = file;
+            // The whole document is written here, on the render thread
+            timed(queuedAt, () -> {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    prepare(job.documentType, documentData).writeTo(out);
+                }
+                return null;
+            });
+            job.fileSizeBytes = Files.size(file);
+            job.status = JobStatus.COMPLETED;
+        } catch (Exception e) {
+            logger.warn("PDF job {} ({}) failed: {}", job.id, job.documentType, e.getMessage());
+            job.error = e.getMessage();
+            job.status = JobStatus.FAILED;
+            job.deleteOutput();
+        } finally {
+            job.renderTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private PreparedPdf prepare(DocumentType documentType, Object documentData) throws DocumentException, IOException {
+        DocumentSource source = source(documentType, documentData);
+        return pdfOutputCache.prepare(documentType.getFileName(), source.layoutVersion(), documentData, source.clientId(), source.renderer());
+    }
+
+    private RenderedPdf renderToFile(DocumentType documentType, Object documentData) throws DocumentException, IOException {
+        DocumentSource source = source(documentType, documentData);
+        return pdfOutputCache.render(documentType.getFileName(), source.layoutVersion(), documentData, source.clientId(), source.renderer());
+    }
+
+    private DocumentSource source(DocumentType documentType, Object documentData) {
+        switch (documentType) {
+            case SALARY_ASSIGNMENT:
+                SalaryAssignmentDocumentDTO salaryAssignment = (SalaryAssignmentDocumentDTO) documentData;
+                return new DocumentSource(salaryAssignmentPdfGeneratorService.getLayoutVersion(), salaryAssignment.getClientId(),
+                        () -> salaryAssignmentPdfGeneratorService.preparePdf(salaryAssignment));
+            case CLEARANCE_CERTIFICATE:
+                ClearanceCertificateDocumentDTO clearanceCertificate = (ClearanceCertificateDocumentDTO) documentData;
+                return new DocumentSource(clearanceCertificatePdfGeneratorService.getLayoutVersion(), clearanceCertificate.getClientId(),
+                        () -> clearanceCertificatePdfGeneratorService.preparePdf(clearanceCertificate));
+            default:
+                ReleaseRequestDocumentDTO releaseRequest = (ReleaseRequestDocumentDTO) documentData;
+                return new DocumentSource(releaseRequestPdfGeneratorService.getLayoutVersion(), releaseRequest.getClientId(),
+                        () -> releaseRequestPdfGeneratorService.preparePdf(releaseRequest));
+        }
+    }
+
+    // What the output cache needs to find or render a document
+    private record DocumentSource(String layoutVersion, String clientId, PdfOutputCache.Renderer renderer) {
+    }
+
+    @FunctionalInterface
+    private interface RenderStep<T> {
+        T run() throws DocumentException, IOException;
+    }
+
+    // Runs one render on the pool, recording how long it waited and how long it took
+    private <T> T timed(long queuedAt, RenderStep<T> step) throws DocumentException, IOException {
+        long startTime = System.nanoTime();
+        totalQueueWaitNanos.addAndGet(startTime - queuedAt);
+        try {
+            return step.run();
+        } catch (DocumentException | IOException | RuntimeException e) {
+            renderFailures.incrementAndGet();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - startTime;
+            renders.incrementAndGet();
+            totalRenderNanos.addAndGet(elapsed);
+            maxRenderNanos.accumulateAndGet(elapsed, Math::max);
+            synchronized (recentRenderNanos) {
+                recentRenderNanos[recentRenderCount++ % RECENT_RENDERS] = elapsed;
+            }
+        }
+    }
+
+    private long recentRenderPercentile(double percentile) {
+        long[] sorted;
+        synchronized (recentRenderNanos) {
+            sorted = Arrays.copyOf(recentRenderNanos, Math.min(recentRenderCount, RECENT_RENDERS));
+        }
+        if (sorted.length == 0) {
+            return 0;
+        }
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e4) / 100.0;
+    }
+
+    private static final class PdfJob {
+        private final UUID id = UUID.randomUUID();
+        private final DocumentType documentType;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile LocalDateTime finishedAt;
+        private volatile Long renderTimeMs;
+        private volatile Path output;
+        private volatile Long fileSizeBytes;
+        private volatile String error;
+
+        private PdfJob(DocumentType documentType) {
+            this.documentType = documentType;
+        }
+
+        void deleteOutput() {
+            Path file = output;
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("Could not delete PDF job output {}: {}", file, e.getMessage());
+                }
+            }
+        }
+
+        PdfJobDTO toDto() {
+            return new PdfJobDTO(id, status.name(), documentType.name(), createdAt, finishedAt, renderTimeMs,
+                    status == JobStatus.COMPLETED ? fileSizeBytes : null, error);
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.entities.Cession;
+import com.example.cessionappbackend.events.DataChangeEvent;
+import com.example.cessionappbackend.repositories.CessionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.itextpdf.text.DocumentException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Keeps generated PDFs on disk so an identical reprint is served without rendering.
+ *
+ * The key is a hash of the document type, the generator's layout version, today's date
+ * (the documents print it) and the generator DTO serialized with sorted properties, so
+ * any change to the input is a different entry. The only input not in the DTO is the
+ * worker number the salary assignment reads from the client, so entries are tagged with
+ * their client and dropped when that client or one of its cessions changes.
+ *
+ * The index is kept in memory in least recently used order and rebuilt from the cache
+ * directory on startup; files from previous days can never be hit again and are removed.
+ */
+@Service
+public class PdfOutputCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfOutputCache.class);
+
+    private static final String FILE_SUFFIX = ".pdf";
+    private static final String NO_CLIENT = "none";
+
+    @FunctionalInterface
+    public interface Renderer {
+        PreparedPdf prepare() throws DocumentException, IOException;
+    }
+
+    @Autowired
+    private CessionRepository cessionRepository;
+
+    @Value("${app.pdf.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.pdf.cache.directory:${user.home}/.cession-app/pdf-cache}")
+    private String directoryPath;
+
+    @Value("${app.pdf.cache.max-size:200MB}")
+    private DataSize maxSize;
+
+    // Sorted properties and map keys make the serialized DTO canonical
+    private final ObjectMapper canonicalMapper = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private Path directory;
+
+    // Guarded by this
+    private final LinkedHashMap<String, CacheEntry> index = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong hitNanos = new AtomicLong();
+
+    private static final class CacheEntry {
+        private final Path file;
+        private final long size;
+        private final String clientId;
+
+        private CacheEntry(Path file, long size, String clientId) {
+            this.file = file;
+            this.size = size;
+            this.clientId = clientId;
+        }
+    }
+
+    @PostConstruct
+    public void loadIndex() {
+        if (!enabled) {
+            logger.info("PDF output cache is disabled");
+            return;
+        }
+        try {
+            directory = Paths.get(directoryPath);
+            Files.createDirectories(directory);
+            FileTime startOfDay = FileTime.from(LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant());
+            List<Path> files = new ArrayList<>();
+            try (Stream<Path> listing = Files.list(directory)) {
+                listing.forEach(files::add);
+            }
+            files.sort(Comparator.comparing(PdfOutputCache::lastModified));
+            synchronized (this) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (!name.endsWith(FILE_SUFFIX) || lastModified(file).compareTo(startOfDay) < 0) {
+                        // Interrupted writes, and entries whose key holds an earlier date
+                        Files.deleteIfExists(file);
+                        continue;
+                    }
+                    String[] parts = name.substring(0, name.length() - FILE_SUFFIX.length()).split("_", 2);
+                    if (parts.length == 2) {
+                        addEntry(parts[1], new CacheEntry(file, Files.size(file), parts[0]));
+                    }
+                }
+                evictOverflow();
+            }
+            logger.info("PDF output cache at {}: {} entries, {} bytes", directory, index.size(), totalBytes);
+        } catch (IOException e) {
+            logger.warn("PDF output cache disabled, directory {} is not usable: {}", directoryPath, e.getMessage());
+            enabled = false;
+        }
+    }
+
+    /**
+     * Serve the document from the cache, or render it and store the result while it is
+     * written out. Like the generators, failures surface here rather than in writeTo.
+     * @param clientId the client the document belongs to, or null
+     */
+    public PreparedPdf prepare(String documentType, String layoutVersion, Object data, String clientId,
+                               Renderer renderer) throws DocumentException, IOException {
+        if (!enabled) {
+            return renderer.prepare();
+        }
+        long startTime = System.nanoTime();
+        String key = key(documentType, layoutVersion, data);
+
+        RenderedPdf cached = open(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            hitNanos.addAndGet(System.nanoTime() - startTime);
+            PreparedPdf pdf = new PreparedPdf();
+            return pdf.completeWith(() -> {
+                try (cached) {
+                    cached.transferTo(pdf.getOutput());
+                }
+            });
+        }
+
+        misses.incrementAndGet();
+        PreparedPdf rendered = renderer.prepare();
+        String tag = clientTag(clientId);
+        PreparedPdf pdf = new PreparedPdf();
+        return pdf.completeWith(() -> writeAndStore(rendered, pdf.getOutput(), key, tag));
+    }
+
+    /**
+     * Serve the document from the cache, or render it into the cache, as an open file the
+     * caller streams and then closes. Nothing of the document is held in memory; with the
+     * cache disabled it goes through a temporary file.
+     * @param clientId the client the document belongs to, or null
+     */
+    public RenderedPdf render(String documentType, String layoutVersion, Object data, String clientId,
+                              Renderer renderer) throws DocumentException, IOException {
+        if (!enabled) {
+            return RenderedPdf.writeToTemporaryFile(renderer.prepare());
+        }
+        long startTime = System.nanoTime();
+        String key = key(documentType, layoutVersion, data);
+
+        RenderedPdf cached = open(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            hitNanos.addAndGet(System.nanoTime() - startTime);
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        return store(renderer.prepare(), key, clientTag(clientId));
+    }
+
+    /**
+     * Drop the documents of a client when it, or one of its cessions, is changed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDataChange(DataChangeEvent event) {
+        if (!enabled || event.getEntityId() == null) {
+            return;
+        }
+        if ("Client".equals(event.getEntityType())) {
+            invalidateClient(event.getEntityId().toString());
+        } else if ("Cession".equals(event.getEntityType())) {
+            Cession cession = event.getEntityId() instanceof UUID cessionId
+                    ? cessionRepository.findById(cessionId).orElse(null)
+                    : null;
+            if (cession != null && cession.getClient() != null) {
+                invalidateClient(cession.getClient().getId().toString());
+            } else {
+                // A deleted cession can no longer be traced to its client
+                invalidateAll();
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        stats.put("enabled", enabled);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("averageHitMicros", hitCount == 0 ? 0 : hitNanos.get() / hitCount / 1000);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        synchronized (this) {
+            stats.put("entries", index.size());
+            stats.put("sizeBytes", totalBytes);
+        }
+        stats.put("maxSizeBytes", maxSize.toBytes());
+        return stats;
+    }
+
+    private RenderedPdf open(String key) throws IOException {
+        CacheEntry entry;
+        synchronized (this) {
+            entry = index.get(key);
+        }
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return RenderedPdf.open(entry.file);
+        } catch (NoSuchFileException e) {
+            // Evicted or removed from disk in the meantime
+            synchronized (this) {
+                if (index.get(key) == entry) {
+                    removeEntry(key);
+                }
+            }
+            return null;
+        }
+    }
+
+    private void writeAndStore(PreparedPdf rendered, OutputStream target, String key, String clientId) throws IOException {
+        Path temp = Files.createTempFile(directory, "pdf-", ".tmp");
+        boolean stored = false;
+        try {
+            try (OutputStream file = Files.newOutputStream(temp)) {
+                rendered.writeTo(new TeeOutputStream(target, file));
+            }
+            Path file = directory.resolve(clientId + "_" + key + FILE_SUFFIX);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            stored = true;
+            synchronized (this) {
+                addEntry(key, new CacheEntry(file, Files.size(file), clientId));
+                evictOverflow();
+            }
+        } finally {
+            if (!stored) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private RenderedPdf store(PreparedPdf rendered, String key, String clientId) throws IOException {
+        Path temp = Files.createTempFile(directory, "pdf-", ".tmp");
+        RenderedPdf stored = null;
+        try {
+            try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                rendered.writeTo(file);
+            }
+            // Opened before it joins the index, where it may be evicted at once
+            stored = RenderedPdf.open(temp);
+            Path file = directory.resolve(clientId + "_" + key + FILE_SUFFIX);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                addEntry(key, new CacheEntry(file, stored.getSize(), clientId));
+                evictOverflow();
+            }
+            return stored;
+        } catch (IOException | RuntimeException e) {
+            if (stored != null) {
+                stored.close();
+            }
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private synchronized void invalidateClient(String clientId) {
+        int removed = 0;
+        for (Iterator<Map.Entry<String, CacheEntry>> it = index.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, CacheEntry> entry = it.next();
+            if (entry.getValue().clientId.equals(clientId)) {
+                it.remove();
+                totalBytes -= entry.getValue().size;
+                deleteFile(entry.getValue());
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            invalidations.addAndGet(removed);
+            logger.debug("Invalidated {} cached PDFs of client {}", removed, clientId);
+        }
+    }
+
+    private synchronized void invalidateAll() {
+        invalidations.addAndGet(index.size());
+        index.values().forEach(this::deleteFile);
+        index.clear();
+        totalBytes = 0;
+    }
+
+    // Callers hold the lock
+    private void addEntry(String key, CacheEntry entry) {
+        CacheEntry previous = index.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.size;
+            if (!previous.file.equals(entry.file)) {
+                deleteFile(previous);
+            }
+        }
+        totalBytes += entry.size;
+    }
+
+    private void removeEntry(String key) {
+        CacheEntry entry = index.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.size;
+            deleteFile(entry);
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CacheEntry>> it = index.entrySet().iterator();
+        while (totalBytes > maxSize.toBytes() && it.hasNext()) {
+            CacheEntry eldest = it.next().getValue();
+            it.remove();
+            totalBytes -= eldest.size;
+            deleteFile(eldest);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void deleteFile(CacheEntry entry) {
+        try {
+            Files.deleteIfExists(entry.file);
+        } catch (IOException e) {
+            logger.warn("Could not delete cached PDF {}: {}", entry.file, e.getMessage());
+        }
+    }
+
+    private String key(String documentType, String layoutVersion, Object data) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((documentType + "|" + layoutVersion + "|" + LocalDate.now() + "|").getBytes(StandardCharsets.UTF_8));
+            digest.update(canonicalMapper.writeValueAsBytes(Objects.requireNonNull(data)));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (JsonProcessingException e) {
+            throw new IOException("Cannot serialize PDF data for the cache key: " + e.getMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The tag ends up in a file name, so only a well-formed client ID is kept
+    private static String clientTag(String clientId) {
+        if (clientId == null || clientId.isBlank()) {
+            return NO_CLIENT;
+        }
+        try {
+            return UUID.fromString(clientId.trim()).toString();
+        } catch (IllegalArgumentException e) {
+            return NO_CLIENT;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static final class TeeOutputStream extends OutputStream {
+        private final OutputStream first;
+        private final OutputStream second;
+
+        private TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            first.flush();
+            second.flush();
+        }
+    }
+}
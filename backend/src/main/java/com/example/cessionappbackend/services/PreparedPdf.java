@@ -0,0 +1,118 @@
+package com.example.cessionappbackend.services;
+
+import com.itextpdf.text.DocumentException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A PDF that has been laid out but not yet written.
+ *
+ * The generators bind their writer to {@link #getOutput()} and do all the work that
+ * depends on the input data before returning: lookups and layout. Failures therefore surface while nothing has been sent, and the caller can
+ * still answer with an error status. {@link #writeTo} then only serializes the document,
+ * straight into the target stream. iText writes a one-page document in full on close;
+ * pages flushed earlier by longer documents are held until the target is known.
+ */
+public final class PreparedPdf {
+
+    @FunctionalInterface
+    public interface Completion {
+        void complete() throws DocumentException, IOException;
+    }
+
+    private final PendingOutputStream output = new PendingOutputStream();
+    private Completion completion;
+
+    public OutputStream getOutput() {
+        return output;
+    }
+
+    /**
+     * @param completion closes the document bound to {@link #getOutput()}
+     */
+    public PreparedPdf completeWith(Completion completion) {
+        this.completion = completion;
+        return this;
+    }
+
+    /**
+     * Write the document to the given stream, which is left open. Can be called once.
+     */
+    public void writeTo(OutputStream target) throws IOException {
+        if (completion == null) {
+            throw new IllegalStateException("PDF has no completion step");
+        }
+        output.connect(target);
+        try {
+            completion.complete();
+        } catch (DocumentException e) {
+            throw new IOException("Failed to write PDF: " + e.getMessage(), e);
+        }
+        output.flush();
+    }
+
+    public byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Buffers whatever is written before a target is connected, then forwards to it.
+     * Closing does not close the target: that belongs to the caller of writeTo.
+     */
+    private static final class PendingOutputStream extends OutputStream {
+        private ByteArrayOutputStream pending;
+        private OutputStream target;
+
+        void connect(OutputStream target) throws IOException {
+            if (this.target != null) {
+                throw new IllegalStateException("PDF has already been written");
+            }
+            this.target = target;
+            if (pending != null) {
+                pending.writeTo(target);
+                pending = null;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (target != null) {
+                target.write(b);
+            } else {
+                pending().write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target != null) {
+                target.write(b, off, len);
+            } else {
+                pending().write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        private ByteArrayOutputStream pending() {
+            if (pending == null) {
+                pending = new ByteArrayOutputStream();
+            }
+            return pending;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.dto.ProductCatalogSearchDTO;
+import com.example.cessionappbackend.dto.ProductCatalogSearchDTO.FacetCount;
+import com.example.cessionappbackend.dto.ProductDTO;
+import com.example.cessionappbackend.events.ProductCatalogChangeEvent;
+import com.example.cessionappbackend.repositories.ProductRepository;
+import com.example.cessionappbackend.repositories.ProductRepository.CatalogRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search index over the product catalog. Name, description, SKU and specs are
+ * split into accent-free lower-case tokens, and every search term must prefix-match one
+ * of a product's tokens, so results can be served as the user types without a LIKE scan.
+ * Facet counts by category, supplier and stock state are kept up to date for the whole
+ * catalog and computed over the matches when a search is filtered.
+ *
+ * <p>The index follows product writes through {@link ProductCatalogChangeEvent}s, applied
+ * once the writing transaction has committed.
+ */
+@Service
+public class ProductCatalogIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogIndex.class);
+
+    public static final int MAX_RESULTS = 500;
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Comparator<Entry> BY_NAME = Comparator.comparing((Entry entry) -> entry.sortKey)
+            .thenComparing(entry -> entry.product.getId());
+
+    public enum StockState {
+        IN_STOCK,
+        LOW_STOCK,
+        OUT_OF_STOCK
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All guarded by lock
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> byName = new TreeSet<>(BY_NAME);
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<String, Tally> categoryCounts = new HashMap<>();
+    private final Map<String, Tally> supplierCounts = new HashMap<>();
+    private final Map<String, Tally> stockStateCounts = new HashMap<>();
+    private boolean built;
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private volatile long lastRebuildMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            // Read under the lock, so no change applied meanwhile can be overwritten by older rows
+            List<CatalogRow> rows = productRepository.findCatalogRows();
+            entries.clear();
+            byName.clear();
+            postings.clear();
+            categoryCounts.clear();
+            supplierCounts.clear();
+            stockStateCounts.clear();
+            rows.forEach(row -> add(new Entry(row)));
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastRebuildMs = System.currentTimeMillis() - started;
+        logger.info("Indexed {} products ({} tokens) in {} ms", entries.size(), postings.size(), lastRebuildMs);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(ProductCatalogChangeEvent event) {
+        if (event.isAll()) {
+            rebuild();
+            return;
+        }
+        if (event.getProductIds().isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                return;
+            }
+            // Deleted products have no row and are only removed
+            List<CatalogRow> rows = productRepository.findCatalogRowsByIdIn(event.getProductIds());
+            event.getProductIds().forEach(this::remove);
+            rows.forEach(row -> add(new Entry(row)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Products matching every term of the query and the given filters, by name, with the
+     * facet counts of the result. Any argument may be null; a blank query matches all products.
+     */
+    public ProductCatalogSearchDTO search(String query, Long categoryId, String supplier, StockState stockState, int limit) {
+        long started = System.nanoTime();
+        Set<String> terms = tokenize(query);
+        String category = categoryId != null ? categoryId.toString() : null;
+        String supplierFilter = supplier != null && !supplier.isBlank() ? supplier.trim() : null;
+        ProductCatalogSearchDTO result = new ProductCatalogSearchDTO();
+
+        lock.readLock().lock();
+        try {
+            Collection<Entry> matches;
+            Map<String, Tally> categories;
+            Map<String, Tally> suppliers;
+            Map<String, Tally> stockStates;
+            if (terms.isEmpty() && category == null && supplierFilter == null && stockState == null) {
+                matches = byName;
+                categories = categoryCounts;
+                suppliers = supplierCounts;
+                stockStates = stockStateCounts;
+            } else {
+                categories = new HashMap<>();
+                suppliers = new HashMap<>();
+                stockStates = new HashMap<>();
+                List<Entry> filtered = new ArrayList<>();
+                for (Entry entry : candidates(terms)) {
+                    boolean inCategory = category == null || category.equals(entry.categoryValue);
+                    boolean fromSupplier = supplierFilter == null || supplierFilter.equalsIgnoreCase(entry.supplier);
+                    boolean inStockState = stockState == null || stockState == entry.stockState;
+                    // Each facet is counted with the other facets' filters applied, not its own
+                    if (fromSupplier && inStockState) {
+                        tally(categories, entry.categoryValue, entry.categoryName, 1);
+                    }
+                    if (inCategory && inStockState) {
+                        tally(suppliers, entry.supplier, entry.supplier, 1);
+                    }
+                    if (inCategory && fromSupplier) {
+                        tally(stockStates, entry.stockState.name(), entry.stockState.name(), 1);
+                    }
+                    if (inCategory && fromSupplier && inStockState) {
+                        filtered.add(entry);
+                    }
+                }
+                // Without terms the candidates came in name order already
+                if (!terms.isEmpty()) {
+                    filtered.sort(BY_NAME);
+                }
+                matches = filtered;
+            }
+
+            result.setTotal(matches.size());
+            List<ProductDTO> products = new ArrayList<>(Math.min(matches.size(), limit));
+            for (Entry entry : matches) {
+                if (products.size() >= limit) {
+                    break;
+                }
+                products.add(entry.product);
+            }
+            result.setProducts(products);
+            result.setCategories(toFacetCounts(categories));
+            result.setSuppliers(toFacetCounts(suppliers));
+            result.setStockStates(toFacetCounts(stockStates));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        searches.increment();
+        searchNanos.add(System.nanoTime() - started);
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("products", entries.size());
+            stats.put("tokens", postings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        long searchCount = searches.sum();
+        stats.put("searches", searchCount);
+        stats.put("averageSearchMicros", searchCount == 0 ? 0 : searchNanos.sum() / searchCount / 1000);
+        stats.put("lastRebuildMs", lastRebuildMs);
+        return stats;
+    }
+
+    // Products holding, for every term, a token that starts with it; all products for no terms
+    private Collection<Entry> candidates(Set<String> terms) {
+        if (terms.isEmpty()) {
+            return byName;
+        }
+        Set<Long> ids = null;
+        for (String term : terms) {
+            Set<Long> termIds = new HashSet<>();
+            postings.subMap(term, true, term + Character.MAX_VALUE, true).values().forEach(termIds::addAll);
+            if (ids == null) {
+                ids = termIds;
+            } else {
+                ids.retainAll(termIds);
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+        }
+        List<Entry> candidates = new ArrayList<>(ids.size());
+        ids.forEach(id -> candidates.add(entries.get(id)));
+        return candidates;
+    }
+
+    private void add(Entry entry) {
+        Long id = entry.product.getId();
+        entries.put(id, entry);
+        byName.add(entry);
+        entry.tokens.forEach(token -> postings.computeIfAbsent(token, key -> new HashSet<>()).add(id));
+        tally(categoryCounts, entry.categoryValue, entry.categoryName, 1);
+        tally(supplierCounts, entry.supplier, entry.supplier, 1);
+        tally(stockStateCounts, entry.stockState.name(), entry.stockState.name(), 1);
+    }
+
+    private void remove(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        byName.remove(entry);
+        for (String token : entry.tokens) {
+            Set<Long> ids = postings.get(token);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+        tally(categoryCounts, entry.categoryValue, entry.categoryName, -1);
+        tally(supplierCounts, entry.supplier, entry.supplier, -1);
+        tally(stockStateCounts, entry.stockState.name(), entry.stockState.name(), -1);
+    }
+
+    private static void tally(Map<String, Tally> counts, String value, String label, int delta) {
+        if (value == null) {
+            return;
+        }
+        Tally tally = counts.computeIfAbsent(value, key -> new Tally(label));
+        tally.count += delta;
+        if (tally.count <= 0) {
+            counts.remove(value);
+        }
+    }
+
+    private static List<FacetCount> toFacetCounts(Map<String, Tally> counts) {
+        List<FacetCount> facetCounts = new ArrayList<>(counts.size());
+        counts.forEach((value, tally) -> facetCounts.add(new FacetCount(value, tally.label, tally.count)));
+        facetCounts.sort(Comparator.comparingLong(FacetCount::getCount).reversed()
+                .thenComparing(FacetCount::getLabel, Comparator.nullsLast(Comparator.naturalOrder())));
+        return facetCounts;
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    static ProductDTO toProductDTO(CatalogRow row) {
+        ProductDTO product = new ProductDTO();
+        product.setId(row.getId());
+        product.setName(row.getName());
+        product.setDescription(row.getDescription());
+        product.setSku(row.getSku());
+        product.setCategoryId(row.getCategoryId());
+        product.setSupplier(row.getSupplier());
+        product.setStockQuantity(row.getStockQuantity());
+        product.setReorderPoint(row.getReorderPoint());
+        product.setImageUrl(row.getImageUrl());
+        product.setPurchasePrice(row.getPurchasePrice());
+        product.setSellingPrice(row.getSellingPrice());
+        product.setSpecs(row.getSpecs());
+        return product;
+    }
+
+    static StockState stockState(Integer stockQuantity, Integer reorderPoint) {
+        if (stockQuantity == null || stockQuantity <= 0) {
+            return StockState.OUT_OF_STOCK;
+        }
+        return reorderPoint != null && stockQuantity <= reorderPoint ? StockState.LOW_STOCK : StockState.IN_STOCK;
+    }
+
+    private static final class Entry {
+        private final ProductDTO product;
+        private final String categoryValue;
+        private final String categoryName;
+        private final String supplier;
+        private final StockState stockState;
+        private final Set<String> tokens = new HashSet<>();
+        private final String sortKey;
+
+        private Entry(CatalogRow row) {
+            product = toProductDTO(row);
+
+            categoryValue = row.getCategoryId() != null ? row.getCategoryId().toString() : null;
+            categoryName = row.getCategoryName();
+            supplier = row.getSupplier() != null && !row.getSupplier().isBlank() ? row.getSupplier().trim() : null;
+            stockState = stockState(row.getStockQuantity(), row.getReorderPoint());
+
+            tokens.addAll(tokenize(row.getName()));
+            tokens.addAll(tokenize(row.getDescription()));
+            tokens.addAll(tokenize(row.getSpecs()));
+            Set<String> skuTokens = tokenize(row.getSku());
+            tokens.addAll(skuTokens);
+            // Also the SKU without its separators, so "AB-12" is found as "ab12"
+            if (skuTokens.size() > 1) {
+                tokens.add(String.join("", skuTokens));
+            }
+            sortKey = row.getName() != null ? normalize(row.getName()) : "";
+        }
+    }
+
+    private static final class Tally {
+        private final String label;
+        private long count;
+
+        private Tally(String label) {
+            this.label = label;
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package com.example.cessionappbackend.services;
 
+import com.example.cessionappbackend.dto.ProductCatalogSearchDTO;
 import com.example.cessionappbackend.dto.ProductDTO;
 import com.example.cessionappbackend.entities.Product;
 import com.example.cessionappbackend.entities.ItemCategory;
+import com.example.cessionappbackend.entities.StockMovement;
+import com.example.cessionappbackend.events.ProductCatalogChangeEvent;
 import com.example.cessionappbackend.repositories.ProductRepository;
 import com.example.cessionappbackend.repositories.ItemCategoryRepository;
+import com.example.cessionappbackend.repositories.StockMovementRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -22,6 +29,27 @@ public class ProductService {
     @Autowired
     private ItemCategoryRepository categoryRepository;
 
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private FinancialCubeService financialCubeService;
+
+    @Autowired
+    private ProfitabilityRollupService profitabilityRollupService;
+
+    @Autowired
+    private ProductCatalogIndex productCatalogIndex;
+
+    @Autowired
+    private LowStockTracker lowStockTracker;
+
+    @Autowired
+    private InventoryValuationService inventoryValuationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<ProductDTO> getAllProducts() {
         return productRepository.findAll().stream()
             .map(ProductDTO::new)
@@ -41,7 +69,9 @@ public class ProductService {
                 .orElseThrow(() -> new RuntimeException("Category not found with ID: " + productDTO.getCategoryId()));
             product.setCategory(category);
         }
-        return new ProductDTO(productRepository.save(product));
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductCatalogChangeEvent.of(savedProduct.getId()));
+        return new ProductDTO(savedProduct);
     }
 
     @Transactional
@@ -69,7 +99,9 @@ public class ProductService {
         product.setSellingPrice(productDTO.getSellingPrice());
         product.setSpecs(productDTO.getSpecs());
 
-        return new ProductDTO(productRepository.save(product));
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductCatalogChangeEvent.of(id));
+        return new ProductDTO(savedProduct);
     }
 
     @Transactional
@@ -77,34 +109,48 @@ public class ProductService {
         if (!productRepository.existsById(id)) {
             throw new RuntimeException("Product not found");
         }
+        // The product's stock movements go with it, and its sales with them
+        List<LocalDate> saleDates = stockMovementRepository.findMovementDatesByProductId(id, StockMovement.MovementType.OUTBOUND);
         productRepository.deleteById(id);
+        productRepository.flush();
+        financialCubeService.rebuildSalesMonths(saleDates);
+        profitabilityRollupService.rebuildDays(saleDates);
+        inventoryValuationService.forgetProduct(id);
+        eventPublisher.publishEvent(ProductCatalogChangeEvent.of(id));
     }
 
     @Transactional
     public ProductDTO updateStock(Long id, int quantity, String notes) {
-        Product product = productRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Product not found"));
-        
-        int previousQuantity = product.getStockQuantity();
-        int newQuantity = previousQuantity + quantity;
-        
-        if (newQuantity < 0) {
+        if (!productRepository.existsById(id)) {
+            throw new RuntimeException("Product not found");
+        }
+        // Conditional UPDATE: a concurrent change can neither be lost nor take the stock below zero
+        if (productRepository.adjustStock(id, quantity) == 0) {
             throw new RuntimeException("Insufficient stock");
         }
-        
-        product.setStockQuantity(newQuantity);
-        return new ProductDTO(productRepository.save(product));
+        eventPublisher.publishEvent(ProductCatalogChangeEvent.of(id));
+        Product product = productRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Product not found"));
+        return new ProductDTO(product);
     }
 
+    // Products at or under their reorder point, kept in memory by the low-stock tracker
     public List<ProductDTO> getLowStockProducts() {
-        return productRepository.findByStockQuantityLessThanEqual(0).stream()
-            .map(ProductDTO::new)
-            .collect(Collectors.toList());
+        return lowStockTracker.getLowStockProducts();
+    }
+
+    public SseEmitter subscribeToLowStock() {
+        return lowStockTracker.subscribe();
     }
 
+    // Served from the in-memory catalog index: every word of the query must start a word of the product
     public List<ProductDTO> searchProducts(String query) {
-        return productRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(query, query).stream()
-            .map(ProductDTO::new)
-            .collect(Collectors.toList());
+        return productCatalogIndex.search(query, null, null, null, ProductCatalogIndex.MAX_RESULTS).getProducts();
+    }
+
+    public ProductCatalogSearchDTO searchCatalog(String query, Long categoryId, String supplier,
+                                                 ProductCatalogIndex.StockState stockState, int limit) {
+        return productCatalogIndex.search(query, categoryId, supplier, stockState,
+            Math.max(0, Math.min(limit, ProductCatalogIndex.MAX_RESULTS)));
     }
 } 
\ No newline at end of file
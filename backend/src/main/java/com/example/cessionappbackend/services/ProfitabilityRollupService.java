@@ -0,0 +1,172 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.dto.ProfitabilityDTO;
+import com.example.cessionappbackend.entities.DailyProfit;
+import com.example.cessionappbackend.entities.DailyProfit.Dimension;
+import com.example.cessionappbackend.entities.ItemCategory;
+import com.example.cessionappbackend.entities.Product;
+import com.example.cessionappbackend.entities.StockMovement;
+import com.example.cessionappbackend.repositories.DailyProfitRepository;
+import com.example.cessionappbackend.repositories.ItemCategoryRepository;
+import com.example.cessionappbackend.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps revenue, cost and units sold per product and per item category and day, added to
+ * as each sale is recorded, so that ranking products or categories over a year reads the
+ * rollup rows of that year instead of every sale movement.
+ */
+@Service
+public class ProfitabilityRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfitabilityRollupService.class);
+
+    public static final int MAX_TOP = 100;
+
+    public enum RankBy {
+        MARGIN,
+        REVENUE,
+        UNITS,
+        MARGIN_RATE
+    }
+
+    @Autowired
+    private DailyProfitRepository dailyProfitRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ItemCategoryRepository itemCategoryRepository;
+
+    /**
+     * Add sale movements to the rollup, one update per product and day and per category
+     * and day. Must run in the transaction that records the movements.
+     */
+    @Transactional
+    public void recordSales(Collection<StockMovement> sales) {
+        Map<DailyProfit.Key, SaleTotals> totalsByKey = new LinkedHashMap<>();
+        for (StockMovement sale : sales) {
+            Product product = sale.getProduct();
+            LocalDate saleDate = sale.getCreatedAt().toLocalDate();
+            Long categoryId = product.getCategory() != null ? product.getCategory().getId() : DailyProfit.UNCATEGORIZED;
+            BigDecimal quantity = BigDecimal.valueOf(sale.getQuantity());
+            BigDecimal revenue = sale.getSellingPriceAtSale() != null ? sale.getSellingPriceAtSale().multiply(quantity) : BigDecimal.ZERO;
+            BigDecimal unitCost = sale.getUnitCost() != null ? sale.getUnitCost() : product.getPurchasePrice();
+            BigDecimal cost = unitCost != null ? unitCost.multiply(quantity) : BigDecimal.ZERO;
+
+            for (DailyProfit.Key key : List.of(new DailyProfit.Key(saleDate, Dimension.PRODUCT, product.getId()),
+                                               new DailyProfit.Key(saleDate, Dimension.CATEGORY, categoryId))) {
+                SaleTotals totals = totalsByKey.computeIfAbsent(key, k -> new SaleTotals());
+                totals.revenue = totals.revenue.add(revenue);
+                totals.cost = totals.cost.add(cost);
+                totals.units += sale.getQuantity();
+                totals.sales++;
+            }
+        }
+        totalsByKey.forEach((key, totals) -> {
+            dailyProfitRepository.insertIfAbsent(key.getSaleDate(), key.getDimension().name(), key.getDimensionId());
+            dailyProfitRepository.addSales(key, totals.revenue, totals.cost, totals.units, totals.sales);
+        });
+    }
+
+    /**
+     * Recompute the given days from the movements, after movements were removed. Category
+     * rows are rebuilt under the products' current categories.
+     */
+    @Transactional
+    public void rebuildDays(Collection<LocalDate> saleDates) {
+        if (saleDates.isEmpty()) {
+            return;
+        }
+        dailyProfitRepository.deleteBySaleDates(saleDates);
+        dailyProfitRepository.rebuildProductDays(saleDates);
+        dailyProfitRepository.rebuildCategoryDays(saleDates);
+    }
+
+    /**
+     * The {@code limit} best products or categories between the two days, both inclusive.
+     */
+    @Transactional(readOnly = true)
+    public List<ProfitabilityDTO> getTop(Dimension dimension, LocalDate from, LocalDate to, RankBy rankBy, int limit) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The range must not end before it starts");
+        }
+        if (limit < 1 || limit > MAX_TOP) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The limit must be between 1 and " + MAX_TOP);
+        }
+
+        List<ProfitabilityDTO> ranking = new ArrayList<>();
+        for (Object[] row : dailyProfitRepository.sumByDimension(dimension, from, to.plusDays(1))) {
+            ProfitabilityDTO dto = new ProfitabilityDTO();
+            dto.setDimension(dimension);
+            dto.setId((Long) row[0]);
+            dto.setRevenue((BigDecimal) row[1]);
+            dto.setCost((BigDecimal) row[2]);
+            dto.setMargin(dto.getRevenue().subtract(dto.getCost()));
+            dto.setMarginRate(dto.getRevenue().signum() > 0
+                    ? dto.getMargin().divide(dto.getRevenue(), 4, RoundingMode.HALF_UP) : null);
+            dto.setUnitsSold(((Number) row[3]).longValue());
+            dto.setSaleCount(((Number) row[4]).longValue());
+            ranking.add(dto);
+        }
+        ranking.sort(comparator(rankBy).reversed().thenComparing(ProfitabilityDTO::getId));
+        List<ProfitabilityDTO> top = new ArrayList<>(ranking.subList(0, Math.min(limit, ranking.size())));
+
+        Set<Long> ids = top.stream().map(ProfitabilityDTO::getId).collect(Collectors.toSet());
+        Map<Long, String> names = dimension == Dimension.PRODUCT
+                ? productRepository.findAllById(ids).stream().collect(Collectors.toMap(Product::getId, Product::getName))
+                : itemCategoryRepository.findAllById(ids).stream().collect(Collectors.toMap(ItemCategory::getId, ItemCategory::getName));
+        top.forEach(dto -> dto.setName(names.get(dto.getId())));
+        return top;
+    }
+
+    // Sales recorded before the rollup existed are added to it once, on the first start
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (dailyProfitRepository.count() > 0) {
+            return;
+        }
+        int rows = dailyProfitRepository.rebuildAllProducts() + dailyProfitRepository.rebuildAllCategories();
+        if (rows > 0) {
+            logger.info("Built the daily profitability rollup from existing stock movements ({} rows)", rows);
+        }
+    }
+
+    private static Comparator<ProfitabilityDTO> comparator(RankBy rankBy) {
+        return switch (rankBy) {
+            case MARGIN -> Comparator.comparing(ProfitabilityDTO::getMargin);
+            case REVENUE -> Comparator.comparing(ProfitabilityDTO::getRevenue);
+            case UNITS -> Comparator.comparing(ProfitabilityDTO::getUnitsSold);
+            case MARGIN_RATE -> Comparator.comparing(ProfitabilityDTO::getMarginRate, Comparator.nullsFirst(Comparator.naturalOrder()));
+        };
+    }
+
+    private static final class SaleTotals {
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private BigDecimal cost = BigDecimal.ZERO;
+        private long units;
+        private long sales;
+    }
+}
@@ -6,10 +6,12 @@ import com.example.cessionappbackend.entities.Client;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 import com.itextpdf.text.pdf.languages.ArabicLigaturizer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.text.Bidi;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -20,154 +22,89 @@ import java.util.UUID;
 @Service
 public class ReleaseRequestPdfGeneratorService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ReleaseRequestPdfGeneratorService.class);
+
     @Autowired
     private ClientRepository clientRepository;
 
-    private PdfWriter writer;
+    @Autowired
+    private PdfFontRegistry fontRegistry;
+
+    private Font arabicTitleFont;
+    private Font arabicSubtitleFont;
+    private Font arabicHeaderFont;
+    private Font arabicFieldFont;
+    private Font arabicSignatureFont;
+    private ArabicLigaturizer arabicLigaturizer;
+
+    // Part of the PDF cache key: bump it whenever the layout or the fixed wording changes
+    private static final int LAYOUT_VERSION = 2;
+
+    @PostConstruct
+    void initFonts() {
+        // Fonts are loaded once by the shared registry
+        arabicTitleFont = fontRegistry.getFont(18, Font.BOLD);
+        arabicSubtitleFont = fontRegistry.getFont(14, Font.NORMAL);
+        arabicHeaderFont = fontRegistry.getFont(14, Font.BOLD);
+        arabicFieldFont = fontRegistry.getFont(14, Font.NORMAL);
+        arabicSignatureFont = fontRegistry.getFont(14, Font.BOLD);
+        arabicLigaturizer = fontRegistry.getArabicLigaturizer();
+    }
 
-    private static Font arabicTitleFont;
-    private static Font arabicSubtitleFont;
-    private static Font arabicHeaderFont;
-    private static Font arabicFieldFont;
-    private static Font arabicSignatureFont;
-    private static ArabicLigaturizer arabicLigaturizer;
+    /**
+     * Identifies the layout this generator currently renders, for the PDF output cache.
+     */
+    public String getLayoutVersion() {
+        return String.valueOf(LAYOUT_VERSION);
+    }
 
-    static {
+    public byte[] generatePdf(ReleaseRequestDocumentDTO data) {
         try {
-            BaseFont timesNewRomanFont = null;
-            BaseFont timesNewRomanBoldFont = null;
-            BaseFont arabicFont = null;
-
-            try {
-                timesNewRomanFont = BaseFont.createFont(
-                    new ClassPathResource("fonts/times-new-roman.ttf").getURL().toString(),
-                    BaseFont.IDENTITY_H,
-                    BaseFont.EMBEDDED
-                );
-                System.out.println("✓ Loaded Times New Roman Regular from fonts/times-new-roman.ttf");
-            } catch (Exception e) {
-                System.out.println("⚠ Failed to load times-new-roman.ttf: " + e.getMessage());
-            }
-
-            try {
-                timesNewRomanBoldFont = BaseFont.createFont(
-                    new ClassPathResource("fonts/times-new-roman-bold.ttf").getURL().toString(),
-                    BaseFont.IDENTITY_H,
-                    BaseFont.EMBEDDED
-                );
-                System.out.println("✓ Loaded Times New Roman Bold from fonts/times-new-roman-bold.ttf");
-            } catch (Exception e) {
-                System.out.println("⚠ Failed to load times-new-roman-bold.ttf: " + e.getMessage());
-            }
-
-            try {
-                arabicFont = BaseFont.createFont(
-                    new ClassPathResource("fonts/NotoSansArabic-Regular.ttf").getURL().toString(),
-                    BaseFont.IDENTITY_H,
-                    BaseFont.EMBEDDED
-                );
-                System.out.println("✓ Loaded Arabic font from fonts/NotoSansArabic-Regular.ttf");
-            } catch (Exception e) {
-                System.out.println("⚠ Failed to load Arabic font: " + e.getMessage());
-            }
-
-            BaseFont primaryFont = (timesNewRomanBoldFont != null) ? timesNewRomanBoldFont :
-                                  (timesNewRomanFont != null) ? timesNewRomanFont : arabicFont;
-
-            if (primaryFont == null) {
-                throw new RuntimeException("No fonts could be loaded - check fonts folder");
-            }
-
-            arabicTitleFont = new Font(primaryFont, 18, Font.BOLD);
-            arabicSubtitleFont = new Font(primaryFont, 14, Font.NORMAL);
-            arabicHeaderFont = new Font(primaryFont, 14, Font.BOLD);
-            arabicFieldFont = new Font(primaryFont, 14, Font.NORMAL);
-            arabicSignatureFont = new Font(primaryFont, 14, Font.BOLD);
-
-            arabicLigaturizer = new ArabicLigaturizer();
-
-            String fontType = (timesNewRomanBoldFont != null) ? "Times New Roman Bold (Headings CS)" :
-                             (timesNewRomanFont != null) ? "Times New Roman Regular" : "Arabic fallback";
-            System.out.println("✓ " + fontType + " configured successfully for Release Request");
-
+            return preparePdf(data).toByteArray();
         } catch (Exception e) {
-            System.err.println("Error loading Times New Roman fonts: " + e.getMessage());
-            e.printStackTrace();
-
-            try {
-                BaseFont fallbackFont = BaseFont.createFont(
-                    BaseFont.TIMES_ROMAN,
-                    "Cp1256",
-                    BaseFont.NOT_EMBEDDED
-                );
-                arabicTitleFont = new Font(fallbackFont, 18, Font.BOLD);
-                arabicSubtitleFont = new Font(fallbackFont, 14, Font.NORMAL);
-                arabicHeaderFont = new Font(fallbackFont, 14, Font.BOLD);
-                arabicFieldFont = new Font(fallbackFont, 14, Font.NORMAL);
-                arabicSignatureFont = new Font(fallbackFont, 14, Font.BOLD);
-
-                arabicLigaturizer = new ArabicLigaturizer();
-
-                System.out.println("⚠ Using Times Roman fallback for Release Request");
-
-            } catch (Exception fallbackException) {
-                System.err.println("All font loading failed: " + fallbackException.getMessage());
-                arabicTitleFont = new Font(Font.FontFamily.TIMES_ROMAN, 18, Font.BOLD);
-                arabicSubtitleFont = new Font(Font.FontFamily.TIMES_ROMAN, 14, Font.NORMAL);
-                arabicHeaderFont = new Font(Font.FontFamily.TIMES_ROMAN, 14, Font.BOLD);
-                arabicFieldFont = new Font(Font.FontFamily.TIMES_ROMAN, 14, Font.NORMAL);
-                arabicSignatureFont = new Font(Font.FontFamily.TIMES_ROMAN, 14, Font.BOLD);
-
-                arabicLigaturizer = new ArabicLigaturizer();
-
-                System.out.println("⚠ Using Times Roman family fallback for Release Request");
-            }
+            logger.error("Error generating Release Request PDF: " + e.getMessage(), e);
+            return null;
         }
     }
 
-    public byte[] generatePdf(ReleaseRequestDocumentDTO data) {
-        System.out.println("=== Release Request PDF Generation Started ===");
-
-        try {
-            Document document = new Document(PageSize.A4);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    /**
+     * Lay the document out without writing it yet, so that failures can still be
+     * reported before a response is started. See {@link PreparedPdf}.
+     */
+    public PreparedPdf preparePdf(ReleaseRequestDocumentDTO data) throws DocumentException, IOException {
+        logger.debug("=== Release Request PDF Generation Started ===");
 
-            PdfWriter writer = PdfWriter.getInstance(document, baos);
-            this.writer = writer;
-            // writer.setRunDirection(PdfWriter.RUN_DIRECTION_RTL);
+        Document document = new Document(PageSize.A4);
+        PreparedPdf pdf = new PreparedPdf();
 
-            document.open();
-            document.setMargins(40, 40, 40, 40);
+        PdfWriter writer = PdfWriter.getInstance(document, pdf.getOutput());
+        // writer.setRunDirection(PdfWriter.RUN_DIRECTION_RTL);
 
-            // Add document header
-            addDocumentHeader(document);
+        document.open();
+        document.setMargins(40, 40, 40, 40);
 
-            // Add issuer information
-            addIssuerInformation(document, data);
+        // Add document header
+        addDocumentHeader(document);
 
-            // Add certificate title
-            addCertificateTitle(document);
+        // Add issuer information
+        addIssuerInformation(document, data);
 
-            // Add certificate content
-            addCertificateContent(document, data);
+        // Add certificate title
+        addCertificateTitle(document);
 
-            // Add court details
-            addCourtDetails(document, data);
+        // Add certificate content
+        addCertificateContent(document, data);
 
-            // Add conclusion
-            addConclusion(document, data);
+        // Add court details
+        addCourtDetails(document, data);
 
-            // Add signature
-            addSignature(document);
+        // Add conclusion
+        addConclusion(document, data);
 
-            document.close();
-            return baos.toByteArray();
+        // Add signature
+        addSignature(writer);
 
-        } catch (Exception e) {
-            System.err.println("Error generating Release Request PDF: " + e.getMessage());
-            e.printStackTrace();
-            return null;
-        }
+        return pdf.completeWith(document::close);
     }
 
     private void addDocumentHeader(Document document) throws DocumentException {
@@ -315,7 +252,9 @@ public class ReleaseRequestPdfGeneratorService {
         document.add(conclusionPara);
     }
 
-    private void addSignature(Document document) throws DocumentException {
+    // The writer is passed in rather than kept in a field: this service is a singleton
+    // shared by concurrent requests
+    private void addSignature(PdfWriter writer) throws DocumentException {
         PdfContentByte cb = writer.getDirectContent();
         ColumnText ct = new ColumnText(cb);
 
@@ -358,7 +297,7 @@ public class ReleaseRequestPdfGeneratorService {
                 return text;
             }
         } catch (Exception e) {
-            System.err.println("Arabic text formatting failed for text: '" + text + "', error: " + e.getMessage());
+            logger.error("Arabic text formatting failed for text: '" + text + "', error: " + e.getMessage());
             return text;
         }
     }
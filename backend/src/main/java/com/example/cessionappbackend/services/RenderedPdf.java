@@ -0,0 +1,82 @@
+package com.example.cessionappbackend.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A PDF written in full to a file, opened for reading before it is handed out, so a
+ * response can stream it with a known length even if the file is evicted from the
+ * cache or otherwise deleted in the meantime. Close it once sent, sent or not.
+ */
+public final class RenderedPdf implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderedPdf.class);
+
+    private final InputStream input;
+    private final long size;
+    // Deleted on close, for a file that belongs to this document only
+    private final Path temporaryFile;
+
+    private RenderedPdf(InputStream input, long size, Path temporaryFile) {
+        this.input = input;
+        this.size = size;
+        this.temporaryFile = temporaryFile;
+    }
+
+    /**
+     * Open a file that stays where it is, such as a cache entry.
+     */
+    static RenderedPdf open(Path file) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        try {
+            return new RenderedPdf(input, Files.size(file), null);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Write the document to a temporary file, removed again when this is closed.
+     */
+    static RenderedPdf writeToTemporaryFile(PreparedPdf pdf) throws IOException {
+        Path file = Files.createTempFile("pdf-", ".pdf");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                pdf.writeTo(out);
+            }
+            return new RenderedPdf(Files.newInputStream(file), Files.size(file), file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void transferTo(OutputStream target) throws IOException {
+        input.transferTo(target);
+    }
+
+    @Override
+    public void close() {
+        try {
+            input.close();
+            if (temporaryFile != null) {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not release rendered PDF {}: {}", temporaryFile, e.getMessage());
+        }
+    }
+}
@@ -5,188 +5,128 @@ import com.example.cessionappbackend.repositories.ClientRepository;
 import com.example.cessionappbackend.entities.Client;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
-import com.itextpdf.text.pdf.languages.ArabicLigaturizer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.text.Bidi;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
 
 @Service
 public class SalaryAssignmentPdfGeneratorService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SalaryAssignmentPdfGeneratorService.class);
+
     @Autowired
     private ClientRepository clientRepository;
 
-    private static Font arabicTitleFont;        // Main title (16px, Bold)
-    private static Font arabicSubtitleFont;     // Subtitle (12px, Normal)
-    private static Font arabicHeaderFont;       // Section headers (12px, Bold)
-    private static Font arabicFieldFont;        // All field content - labels and values (12px, Normal)
-    private static Font arabicSignatureFont;    // Signatures (12px, Bold)
-    private static ArabicLigaturizer arabicLigaturizer;
+    @Autowired
+    private PdfFontRegistry fontRegistry;
 
-    static {
-        try {
-            // Load Times New Roman fonts from project resources
-            BaseFont timesNewRomanFont = null;
-            BaseFont timesNewRomanBoldFont = null;
-            BaseFont arabicFont = null;
-            
-            // Load Times New Roman Regular font
-            try {
-                timesNewRomanFont = BaseFont.createFont(
-                    new ClassPathResource("fonts/times-new-roman.ttf").getURL().toString(), 
-                    BaseFont.IDENTITY_H, 
-                    BaseFont.EMBEDDED
-                );
-                System.out.println("✓ Loaded Times New Roman Regular from fonts/times-new-roman.ttf");
-            } catch (Exception e) {
-                System.out.println("⚠ Failed to load times-new-roman.ttf: " + e.getMessage());
-            }
-            
-            // Load Times New Roman Bold font
-            try {
-                timesNewRomanBoldFont = BaseFont.createFont(
-                    new ClassPathResource("fonts/times-new-roman-bold.ttf").getURL().toString(), 
-                    BaseFont.IDENTITY_H, 
-                    BaseFont.EMBEDDED
-                );
-                System.out.println("✓ Loaded Times New Roman Bold from fonts/times-new-roman-bold.ttf");
-            } catch (Exception e) {
-                System.out.println("⚠ Failed to load times-new-roman-bold.ttf: " + e.getMessage());
-            }
-            
-            // Load Arabic font for proper Arabic text rendering
-            try {
-                arabicFont = BaseFont.createFont(
-                    new ClassPathResource("fonts/NotoSansArabic-Regular.ttf").getURL().toString(), 
-                    BaseFont.IDENTITY_H, 
-                    BaseFont.EMBEDDED
-                );
-                System.out.println("✓ Loaded Arabic font from fonts/NotoSansArabic-Regular.ttf");
-            } catch (Exception e) {
-                System.out.println("⚠ Failed to load Arabic font: " + e.getMessage());
-            }
-            
-            // Use Times New Roman Bold as primary font for headings (as requested)
-            BaseFont primaryFont = (timesNewRomanBoldFont != null) ? timesNewRomanBoldFont : 
-                                  (timesNewRomanFont != null) ? timesNewRomanFont : arabicFont;
-            
-            if (primaryFont == null) {
-                throw new RuntimeException("No fonts could be loaded - check fonts folder");
-            }
-            
-            // Create Times New Roman fonts with correct specification
-            arabicTitleFont = new Font(primaryFont, 16, Font.BOLD);          // Title (16px, Bold)
-            arabicSubtitleFont = new Font(primaryFont, 12, Font.NORMAL);     // Subtitle (12px, Normal)
-            arabicHeaderFont = new Font(primaryFont, 12, Font.BOLD);         // Section Titles (12px, Bold)
-            arabicFieldFont = new Font(primaryFont, 12, Font.NORMAL);        // All Fields (12px, Normal)
-            arabicSignatureFont = new Font(primaryFont, 12, Font.BOLD);      // Signatures (12px, Bold)
+    @Autowired
+    private ArabicTextService arabicTextService;
 
-            // Initialize Arabic ligaturizer
-            arabicLigaturizer = new ArabicLigaturizer();
+    private Font arabicTitleFont;        // Main title (16px, Bold)
+    private Font arabicSubtitleFont;     // Subtitle (12px, Normal)
+    private Font arabicHeaderFont;       // Section headers (12px, Bold)
+    private Font arabicFieldFont;        // All field content - labels and values (12px, Normal)
+    private Font arabicSignatureFont;    // Signatures (12px, Bold)
 
-            String fontType = (timesNewRomanBoldFont != null) ? "Times New Roman Bold (Headings CS)" : 
-                             (timesNewRomanFont != null) ? "Times New Roman Regular" : "Arabic fallback";
-            System.out.println("✓ " + fontType + " configured successfully with JSON specification fonts");
+    // Part of the PDF cache key: bump it whenever the layout or the fixed wording changes
+    private static final int LAYOUT_VERSION = 3;
 
-        } catch (Exception e) {
-            System.err.println("Error loading Times New Roman fonts: " + e.getMessage());
-            e.printStackTrace();
-            
-            // Final fallback to default fonts
-            try {
-                BaseFont fallbackFont = BaseFont.createFont(
-                    BaseFont.TIMES_ROMAN, 
-                    "Cp1256", 
-                    BaseFont.NOT_EMBEDDED
-                );
-                arabicTitleFont = new Font(fallbackFont, 16, Font.BOLD);
-                arabicSubtitleFont = new Font(fallbackFont, 12, Font.NORMAL);
-                arabicHeaderFont = new Font(fallbackFont, 12, Font.BOLD);
-                arabicFieldFont = new Font(fallbackFont, 12, Font.NORMAL);
-                arabicSignatureFont = new Font(fallbackFont, 12, Font.BOLD);
-                
-                // Initialize Arabic ligaturizer
-                arabicLigaturizer = new ArabicLigaturizer();
-                
-                System.out.println("⚠ Using Times Roman fallback with JSON specification fonts");
-                
-            } catch (Exception fallbackException) {
-                System.err.println("All font loading failed: " + fallbackException.getMessage());
-                // Last resort - use default fonts with Times styling
-                arabicTitleFont = new Font(Font.FontFamily.TIMES_ROMAN, 16, Font.BOLD);
-                arabicSubtitleFont = new Font(Font.FontFamily.TIMES_ROMAN, 12, Font.NORMAL);
-                arabicHeaderFont = new Font(Font.FontFamily.TIMES_ROMAN, 12, Font.BOLD);
-                arabicFieldFont = new Font(Font.FontFamily.TIMES_ROMAN, 12, Font.NORMAL);
-                arabicSignatureFont = new Font(Font.FontFamily.TIMES_ROMAN, 12, Font.BOLD);
-                
-                // Initialize Arabic ligaturizer even with fallback fonts
-                arabicLigaturizer = new ArabicLigaturizer();
-                
-                System.out.println("⚠ Using Times Roman family fallback with JSON specification fonts");
-            }
-        }
+    @PostConstruct
+    void initFonts() {
+        // Fonts are loaded once by the shared registry
+        arabicTitleFont = fontRegistry.getFont(16, Font.BOLD);
+        arabicSubtitleFont = fontRegistry.getFont(12, Font.NORMAL);
+        arabicHeaderFont = fontRegistry.getFont(12, Font.BOLD);
+        arabicFieldFont = fontRegistry.getFont(12, Font.NORMAL);
+        arabicSignatureFont = fontRegistry.getFont(12, Font.BOLD);
     }
 
-    public byte[] generatePdf(SalaryAssignmentDocumentDTO data) {
-        System.out.println("=== PDF Generation Started ===");
-        System.out.println("Client ID from DTO: " + data.getClientId());
-        System.out.println("Worker Number from DTO: " + data.getWorkerNumber());
-        System.out.println("Full Name from DTO: " + data.getFullName());
-        System.out.println("CIN from DTO: " + data.getCin());
+    /**
+     * Identifies the layout this generator currently renders, for the PDF output cache.
+     */
+    public String getLayoutVersion() {
+        return String.valueOf(LAYOUT_VERSION);
+    }
 
+    public byte[] generatePdf(SalaryAssignmentDocumentDTO data) {
         try {
-            // Create Document and ByteArrayOutputStream instances
-            Document document = new Document(PageSize.A4);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            
-            PdfWriter writer = PdfWriter.getInstance(document, baos);
-            
-            // Enable proper RTL and Arabic text support
-            writer.setRunDirection(PdfWriter.RUN_DIRECTION_RTL);
-            
-            document.open();
-            
-            // Set proper margins
-            document.setMargins(36, 36, 36, 36);
-
-            // Add document header
-            addDocumentHeader(document);
-            
-            // Add court references section
-            addCourtReferencesSection(document, data);
-            
-            // Add supplier information section
-            addSupplierInformationSection(document, data);
-            
-            // Add employee information section
-            addEmployeeInformationSection(document, data);
-            
-            // Add purchase information section
-            addPurchaseInformationSection(document, data);
-            
-            // Add agreement content section
-            addAgreementContentSection(document, data);
-            
-            // Add signatures section
-            addSignaturesSection(document);
-            
-            document.close();
-            return baos.toByteArray();
-
+            return preparePdf(data).toByteArray();
         } catch (Exception e) {
-            System.err.println("Error generating PDF: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error generating PDF: " + e.getMessage(), e);
             return null;
         }
     }
 
+    /**
+     * Lay the document out without writing it yet, so that failures can still be
+     * reported before a response is started. See {@link PreparedPdf}.
+     */
+    public PreparedPdf preparePdf(SalaryAssignmentDocumentDTO data) throws DocumentException, IOException {
+        logger.debug("=== PDF Generation Started ===");
+        logger.debug("Client ID from DTO: " + data.getClientId());
+        logger.debug("Worker Number from DTO: " + data.getWorkerNumber());
+        logger.debug("Full Name from DTO: " + data.getFullName());
+        logger.debug("CIN from DTO: " + data.getCin());
+
+        return preparePdf(data, resolveWorkerNumber(data));
+    }
+
+    /**
+     * Same as {@link #preparePdf(SalaryAssignmentDocumentDTO)} with the worker number already
+     * taken from the database, for callers that built the DTO from the client entity.
+     */
+    public PreparedPdf preparePdf(SalaryAssignmentDocumentDTO data, String workerNumber) throws DocumentException, IOException {
+        // Create the Document, bound to the not yet connected output
+        Document document = new Document(PageSize.A4);
+        PreparedPdf pdf = new PreparedPdf();
+        
+        PdfWriter writer = PdfWriter.getInstance(document, pdf.getOutput());
+        
+        // Enable proper RTL and Arabic text support
+        writer.setRunDirection(PdfWriter.RUN_DIRECTION_RTL);
+        
+        document.open();
+        
+        // Set proper margins
+        document.setMargins(36, 36, 36, 36);
+
+        // Add document header
+        addDocumentHeader(document);
+        
+        // Add court references section
+        addCourtReferencesSection(document, data);
+        
+        // Add supplier information section
+        addSupplierInformationSection(document, data);
+        
+        // Add employee information section
+        addEmployeeInformationSection(document, employeeFields(data, workerNumber));
+        
+        // Add purchase information section
+        addPurchaseInformationSection(document, purchaseFields(data));
+        
+        // Add agreement content section
+        addAgreementContentSection(document, data);
+        
+        // Add signatures section
+        addSignaturesSection(document);
+        
+        return pdf.completeWith(document::close);
+    }
+
     private void addDocumentHeader(Document document) throws DocumentException {
         // Main title - center aligned, 16px, bold
         Paragraph title = new Paragraph();
@@ -248,7 +188,7 @@ public class SalaryAssignmentPdfGeneratorService {
         // No extra spacing here as requested by user
     }
     
-    private void addEmployeeInformationSection(Document document, SalaryAssignmentDocumentDTO data) throws DocumentException {
+    private void addEmployeeInformationSection(Document document, List<String[]> fields) throws DocumentException {
         // Section header with underline
         Paragraph sectionHeader = new Paragraph();
         String headerText = formatArabicText("البيانات المتعلقة بالعون العمومي:");
@@ -259,10 +199,31 @@ public class SalaryAssignmentPdfGeneratorService {
         sectionHeader.setSpacingAfter(8);
         document.add(sectionHeader);
         
-        // Get the correct worker number from database if clientId is provided
+        // Employee information - workerNumber should be the 10-digit worker number, not client number
+        addFieldParagraphs(document, fields);
+        addRightAlignedParagraph(document, "*رقم الحساب البنكي أو البريدي (20 رقما):"); // Leave empty as requested
+        
+        // No extra spacing here as requested by user
+    }
+
+    // Label and value of each variable employee line, in layout order
+    private List<String[]> employeeFields(SalaryAssignmentDocumentDTO data, String workerNumber) {
+        return Arrays.asList(
+            new String[]{"*المعرف الوحيد: ", safeGetValue(workerNumber)},
+            new String[]{"*الإسم واللقب: ", safeGetValue(data.getFullName())},
+            new String[]{"*رقم بطاقة التعريف الوطنية: ", safeGetValue(data.getCin())},
+            new String[]{"*العنوان الشخصي: ", safeGetValue(data.getPersonalAddress())},
+            new String[]{"*الهيكل الإداري المنتمي اليه: ", safeGetValue(data.getWorkplace())},
+            new String[]{"*الرتبة: ", safeGetValue(data.getJobTitle())},
+            new String[]{"*الوضعية المهنية: ", safeGetValue(data.getEmploymentStatus(), "مباشر")}
+        );
+    }
+
+    // Get the correct worker number from database if clientId is provided
+    private String resolveWorkerNumber(SalaryAssignmentDocumentDTO data) {
         String correctWorkerNumber = data.getWorkerNumber();
-        System.out.println("Original worker number from DTO: " + correctWorkerNumber);
-        System.out.println("Client ID from DTO: " + data.getClientId());
+        logger.debug("Original worker number from DTO: " + correctWorkerNumber);
+        logger.debug("Client ID from DTO: " + data.getClientId());
         
         if (data.getClientId() != null && !data.getClientId().trim().isEmpty()) {
             try {
@@ -270,34 +231,23 @@ public class SalaryAssignmentPdfGeneratorService {
                 Client client = clientRepository.findById(clientId).orElse(null);
                 if (client != null && client.getWorkerNumber() != null) {
                     correctWorkerNumber = client.getWorkerNumber();
-                    System.out.println("✓ Found correct worker number from database: " + correctWorkerNumber);
-                    System.out.println("✓ Client full name from database: " + client.getFullName());
-                    System.out.println("✓ Client CIN from database: " + client.getCin());
+                    logger.debug("✓ Found correct worker number from database: " + correctWorkerNumber);
+                    logger.debug("✓ Client full name from database: " + client.getFullName());
+                    logger.debug("✓ Client CIN from database: " + client.getCin());
                 } else {
-                    System.out.println("⚠ Client not found or worker number is null for ID: " + clientId);
+                    logger.debug("⚠ Client not found or worker number is null for ID: " + clientId);
                 }
             } catch (Exception e) {
-                System.err.println("Could not fetch worker number from database: " + e.getMessage());
+                logger.error("Could not fetch worker number from database: " + e.getMessage());
                 // Fall back to the provided worker number
             }
         } else {
-            System.out.println("⚠ No client ID provided, using worker number from DTO: " + correctWorkerNumber);
+            logger.debug("⚠ No client ID provided, using worker number from DTO: " + correctWorkerNumber);
         }
-        
-        // Employee information - workerNumber should be the 10-digit worker number, not client number
-        addRightAlignedParagraph(document, "*المعرف الوحيد: " + safeGetValue(correctWorkerNumber));
-        addRightAlignedParagraph(document, "*الإسم واللقب: " + safeGetValue(data.getFullName()));
-        addRightAlignedParagraph(document, "*رقم بطاقة التعريف الوطنية: " + safeGetValue(data.getCin()));
-        addRightAlignedParagraph(document, "*العنوان الشخصي: " + safeGetValue(data.getPersonalAddress()));
-        addRightAlignedParagraph(document, "*الهيكل الإداري المنتمي اليه: " + safeGetValue(data.getWorkplace()));
-        addRightAlignedParagraph(document, "*الرتبة: " + safeGetValue(data.getJobTitle()));
-        addRightAlignedParagraph(document, "*الوضعية المهنية: " + safeGetValue(data.getEmploymentStatus(), "مباشر"));
-        addRightAlignedParagraph(document, "*رقم الحساب البنكي أو البريدي (20 رقما):"); // Leave empty as requested
-        
-        // No extra spacing here as requested by user
+        return correctWorkerNumber;
     }
     
-    private void addPurchaseInformationSection(Document document, SalaryAssignmentDocumentDTO data) throws DocumentException {
+    private void addPurchaseInformationSection(Document document, List<String[]> fields) throws DocumentException {
         // Section header with underline
         Paragraph sectionHeader = new Paragraph();
         String headerText = formatArabicText("البيانات المتعلقة بالبضاعة المقتناة:");
@@ -309,27 +259,39 @@ public class SalaryAssignmentPdfGeneratorService {
         document.add(sectionHeader);
         
         // Purchase information
-        addRightAlignedParagraph(document, "*ذكر طبيعة البضاعة المقتناة بكل دقة: " + safeGetValue(data.getItemDescription()));
-        addRightAlignedParagraph(document, "*المبلغ الجملي للبضاعة المقتناة بلسان القلم: " + safeGetValue(data.getAmountInWords()));
+        addFieldParagraphs(document, fields);
         
+        // No extra spacing here as requested by user
+    }
+
+    private void addFieldParagraphs(Document document, List<String[]> fields) throws DocumentException {
+        for (String[] field : fields) {
+            addRightAlignedParagraph(document, field[0] + field[1]);
+        }
+    }
+
+    // Label and value of each variable purchase line, in layout order
+    private List<String[]> purchaseFields(SalaryAssignmentDocumentDTO data) {
         String totalAmount = data.getTotalAmountNumeric() != null ? 
                            String.format("%.3f دينارا", data.getTotalAmountNumeric()) : 
                            "_________________ دينارا";
-        addRightAlignedParagraph(document, "*المبلغ الجملي للبضاعة المقتناة بالأرقام: " + totalAmount);
-        
         String monthlyPayment = data.getMonthlyPayment() != null ? 
                               String.format("%.3f دينارا", data.getMonthlyPayment()) : 
                               "_________________ دينارا";
-        addRightAlignedParagraph(document, "*المبلغ الشهري المقتطع من الراتب بالأرقام: " + monthlyPayment);
-        
-        addRightAlignedParagraph(document, "*مدة الاقتطاع من الأجر (ذكر المدة بحساب عدد الأشهر): " + 
-                         safeGetValue(data.getLoanDuration(), "18 شهرا"));
-        addRightAlignedParagraph(document, "*تاريخ بداية سريان أول اقتطاع من الأجر: " + 
-                         safeGetValue(data.getFirstDeductionMonthArabic(), "سبتمبر 2025"));
-        
-        // No extra spacing here as requested by user
+        // Spelled out from the amount itself when it is known, rather than from the typed text
+        String amountInWords = data.getTotalAmountNumeric() != null
+                ? arabicTextService.amountInWords(BigDecimal.valueOf(data.getTotalAmountNumeric()))
+                : data.getAmountInWords();
+        return Arrays.asList(
+            new String[]{"*ذكر طبيعة البضاعة المقتناة بكل دقة: ", safeGetValue(data.getItemDescription())},
+            new String[]{"*المبلغ الجملي للبضاعة المقتناة بلسان القلم: ", safeGetValue(amountInWords)},
+            new String[]{"*المبلغ الجملي للبضاعة المقتناة بالأرقام: ", totalAmount},
+            new String[]{"*المبلغ الشهري المقتطع من الراتب بالأرقام: ", monthlyPayment},
+            new String[]{"*مدة الاقتطاع من الأجر (ذكر المدة بحساب عدد الأشهر): ", safeGetValue(data.getLoanDuration(), "18 شهرا")},
+            new String[]{"*تاريخ بداية سريان أول اقتطاع من الأجر: ", safeGetValue(data.getFirstDeductionMonthArabic(), "سبتمبر 2025")}
+        );
     }
-    
+
     private void addAgreementContentSection(Document document, SalaryAssignmentDocumentDTO data) throws DocumentException {
         // Section header with underline
         Paragraph sectionHeader = new Paragraph();
@@ -453,11 +415,11 @@ public class SalaryAssignmentPdfGeneratorService {
                 if (text.contains(":") && containsArabic(text)) {
                     // This is likely a label:value pair - keep the original order
                     // Just apply ligaturization without Bidi reordering
-                    return arabicLigaturizer.process(text);
+                    return arabicTextService.shape(text);
                 }
                 
-                // Use ArabicLigaturizer to process Arabic text with proper shaping
-                String processedText = arabicLigaturizer.process(text);
+                // Shape the Arabic text (memoized by the shared text service)
+                String processedText = arabicTextService.shape(text);
                 
                 // For pure Arabic text, apply Bidi algorithm
                 if (!containsLatinOrNumbers(text)) {
@@ -473,7 +435,7 @@ public class SalaryAssignmentPdfGeneratorService {
             }
             
         } catch (Exception e) {
-            System.err.println("Arabic text formatting failed for text: '" + text + "', error: " + e.getMessage());
+            logger.error("Arabic text formatting failed for text: '" + text + "', error: " + e.getMessage());
             // Fallback: return original text
             return text;
         }
@@ -4,36 +4,89 @@ import com.example.cessionappbackend.entities.StockMovement;
 import com.example.cessionappbackend.entities.Product;
 import com.example.cessionappbackend.repositories.StockMovementRepository;
 import com.example.cessionappbackend.repositories.ProductRepository;
+import com.example.cessionappbackend.dto.SaleRequestDTO;
 import com.example.cessionappbackend.dto.StockMovementDTO;
+import com.example.cessionappbackend.dto.StockMovementHistoryDTO;
+import com.example.cessionappbackend.events.ProductCatalogChangeEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import java.math.BigDecimal;
 
 @Service
 public class StockMovementService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
+
     @Autowired
     private StockMovementRepository stockMovementRepository;
     
     @Autowired
     private ProductRepository productRepository;
+
+    @Autowired
+    private FinancialCubeService financialCubeService;
+
+    @Autowired
+    private ProfitabilityRollupService profitabilityRollupService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
-    public List<StockMovement> getAllStockMovements() {
-        return stockMovementRepository.findAll();
+    public Page<StockMovementHistoryDTO> getStockMovements(Pageable pageable) {
+        return stockMovementRepository.findHistory(limit(pageable));
     }
     
-    public List<StockMovement> getStockMovementsByProduct(Long productId) {
-        return stockMovementRepository.findByProductId(productId);
+    public Page<StockMovementHistoryDTO> getStockMovementsByProduct(Long productId, Pageable pageable) {
+        return stockMovementRepository.findProductHistory(productId, limit(pageable)).map(row -> new StockMovementHistoryDTO(
+            row.getId(), row.getProductId(), row.getProductName(), StockMovement.MovementType.valueOf(row.getType()),
+            row.getQuantity(), row.getPreviousQuantity(), row.getNewQuantity(), row.getSellingPriceAtSale(),
+            row.getNotes(), row.getCreatedAt(), row.getStockLevel()));
     }
     
-    public List<StockMovement> getStockMovementsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return stockMovementRepository.findByCreatedAtBetween(startDate, endDate);
+    public Page<StockMovementHistoryDTO> getStockMovementsByDateRange(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
+        return stockMovementRepository.findHistoryByDateRange(startDate, endDate, limit(pageable));
+    }
+
+    /**
+     * Write the movements between the two times, oldest first, as a JSON array. Rows are
+     * read and written one at a time, so the export does not hold the range in memory.
+     */
+    @Transactional(readOnly = true)
+    public void exportStockMovements(LocalDateTime startDate, LocalDateTime endDate, OutputStream outputStream) throws IOException {
+        try (Stream<StockMovementHistoryDTO> movements = stockMovementRepository.streamHistoryByDateRange(startDate, endDate);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartArray();
+            for (StockMovementHistoryDTO movement : (Iterable<StockMovementHistoryDTO>) movements::iterator) {
+                generator.writeObject(movement);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    // History pages follow the queries' own newest-first order and are capped in size
+    private static Pageable limit(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_HISTORY_PAGE_SIZE));
     }
     
     public List<StockMovementDTO> getRecentStockMovements(String type, int limit) {
@@ -70,14 +123,15 @@ public class StockMovementService {
                     if (movement.getProduct() != null) {
                         dto.setProductId(movement.getProduct().getId());
                         dto.setProductName(movement.getProduct().getName());
-                        dto.setPurchasePrice(movement.getProduct().getPurchasePrice());
+                        BigDecimal unitCost = unitCostOf(movement);
+                        dto.setPurchasePrice(unitCost);
                         
-                        // Calculate profit for OUTBOUND movements
+                        // Calculate profit for OUTBOUND movements, at the cost when they were recorded
                         if (movement.getType() == StockMovement.MovementType.OUTBOUND && 
                             movement.getSellingPriceAtSale() != null && 
-                            movement.getProduct().getPurchasePrice() != null) {
+                            unitCost != null) {
                             BigDecimal profit = movement.getSellingPriceAtSale()
-                                .subtract(movement.getProduct().getPurchasePrice())
+                                .subtract(unitCost)
                                 .multiply(BigDecimal.valueOf(Math.abs(movement.getQuantity())));
                             dto.setProfit(profit);
                         } else {
@@ -97,43 +151,85 @@ public class StockMovementService {
     
     @Transactional
     public StockMovementDTO recordStockMovement(Long productId, int quantity, BigDecimal sellingPrice, String notes) {
+        if (quantity == 0) {
+            throw new IllegalArgumentException("Quantity cannot be zero.");
+        }
         Product product = productRepository.findById(productId)
             .orElseThrow(() -> new RuntimeException("Product not found"));
-        
-        int previousQuantity = product.getStockQuantity();
-        int newQuantity;
-        StockMovement.MovementType movementType;
-
-        // Determine movement type and calculate new quantity
-        if (quantity < 0) {
-            movementType = StockMovement.MovementType.OUTBOUND;
-            newQuantity = previousQuantity + quantity; // quantity is negative for outbound
-        } else if (quantity > 0) {
-            movementType = StockMovement.MovementType.INBOUND;
-            newQuantity = previousQuantity + quantity;
-        } else {
-            throw new IllegalArgumentException("Quantity cannot be zero.");
+
+        StockMovement savedMovement = stockMovementRepository.save(applyStockChange(product, quantity, sellingPrice, notes));
+        if (savedMovement.getType() == StockMovement.MovementType.OUTBOUND) {
+            financialCubeService.recordSales(List.of(savedMovement));
+            profitabilityRollupService.recordSales(List.of(savedMovement));
+        }
+        eventPublisher.publishEvent(ProductCatalogChangeEvent.of(productId));
+        return convertToDTO(savedMovement);
+    }
+
+    /**
+     * Record a sale of several products in one transaction: either every line is taken
+     * from stock or, if one of them is short, none is. Returns the movements in line order.
+     */
+    @Transactional
+    public List<StockMovementDTO> recordSale(List<SaleRequestDTO.Line> lines, String notes) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("A sale needs at least one line.");
+        }
+        Set<Long> productIds = lines.stream().map(SaleRequestDTO.Line::getProductId).collect(Collectors.toSet());
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        // Update the rows in product order, so that two sales sharing products cannot deadlock
+        List<Integer> updateOrder = IntStream.range(0, lines.size()).boxed()
+            .sorted(Comparator.comparing(i -> lines.get(i).getProductId()))
+            .collect(Collectors.toList());
+        StockMovement[] movements = new StockMovement[lines.size()];
+        for (int i : updateOrder) {
+            SaleRequestDTO.Line line = lines.get(i);
+            if (line.getQuantity() == null || line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive for product " + line.getProductId());
+            }
+            Product product = products.get(line.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Product not found: " + line.getProductId());
+            }
+            BigDecimal sellingPrice = line.getSellingPrice() != null ? line.getSellingPrice() : product.getSellingPrice();
+            movements[i] = applyStockChange(product, -line.getQuantity(), sellingPrice, notes);
         }
 
-        if (newQuantity < 0) {
-            throw new RuntimeException("Insufficient stock for this sale.");
+        List<StockMovement> savedMovements = stockMovementRepository.saveAll(Arrays.asList(movements));
+        financialCubeService.recordSales(savedMovements);
+        profitabilityRollupService.recordSales(savedMovements);
+        eventPublisher.publishEvent(ProductCatalogChangeEvent.of(productIds));
+        return savedMovements.stream().map(this::convertToDTO).collect(Collectors.toList());
+    }
+
+    // The stock is changed with a conditional UPDATE rather than read, modified and saved,
+    // so concurrent movements can neither take it below zero nor overwrite each other
+    private StockMovement applyStockChange(Product product, int quantity, BigDecimal sellingPrice, String notes) {
+        if (productRepository.adjustStock(product.getId(), quantity) == 0) {
+            throw new RuntimeException(quantity < 0
+                ? "Insufficient stock for this sale: " + product.getName()
+                : "Could not update the stock of " + product.getName());
         }
+        int newQuantity = productRepository.findStockQuantityById(product.getId());
 
-        product.setStockQuantity(newQuantity);
-        productRepository.save(product);
-        
         StockMovement movement = new StockMovement();
         movement.setProduct(product);
-        movement.setType(movementType);
+        movement.setType(quantity < 0 ? StockMovement.MovementType.OUTBOUND : StockMovement.MovementType.INBOUND);
         movement.setQuantity(Math.abs(quantity));
-        movement.setPreviousQuantity(previousQuantity);
+        movement.setPreviousQuantity(newQuantity - quantity);
         movement.setNewQuantity(newQuantity);
         movement.setNotes(notes);
         movement.setCreatedAt(LocalDateTime.now());
         movement.setSellingPriceAtSale(sellingPrice);
-        
-        StockMovement savedMovement = stockMovementRepository.save(movement);
-        return convertToDTO(savedMovement);
+        movement.setUnitCost(product.getPurchasePrice());
+        return movement;
+    }
+
+    // Movements recorded before unit costs were kept fall back to the product's current purchase price
+    private static BigDecimal unitCostOf(StockMovement movement) {
+        return movement.getUnitCost() != null ? movement.getUnitCost() : movement.getProduct().getPurchasePrice();
     }
 
     private StockMovementDTO convertToDTO(StockMovement movement) {
@@ -142,14 +238,15 @@ public class StockMovementService {
         if (movement.getProduct() != null) {
             dto.setProductId(movement.getProduct().getId());
             dto.setProductName(movement.getProduct().getName());
-            dto.setPurchasePrice(movement.getProduct().getPurchasePrice());
+            BigDecimal unitCost = unitCostOf(movement);
+            dto.setPurchasePrice(unitCost);
             
-            // Calculate profit for OUTBOUND movements
+            // Calculate profit for OUTBOUND movements, at the cost when they were recorded
             if (movement.getType() == StockMovement.MovementType.OUTBOUND && 
                 movement.getSellingPriceAtSale() != null && 
-                movement.getProduct().getPurchasePrice() != null) {
+                unitCost != null) {
                 BigDecimal profit = movement.getSellingPriceAtSale()
-                    .subtract(movement.getProduct().getPurchasePrice())
+                    .subtract(unitCost)
                     .multiply(BigDecimal.valueOf(movement.getQuantity()));
                 dto.setProfit(profit);
             }
@@ -163,18 +260,4 @@ public class StockMovementService {
         dto.setSellingPriceAtSale(movement.getSellingPriceAtSale());
         return dto;
     }
-
-    public BigDecimal getTotalSalesIncome(LocalDateTime startDate, LocalDateTime endDate) {
-        List<StockMovement> sales = stockMovementRepository.findByCreatedAtBetween(startDate, endDate);
-        return sales.stream()
-            .filter(movement -> movement.getType() == StockMovement.MovementType.OUTBOUND)
-            .map(movement -> {
-                if (movement.getSellingPriceAtSale() != null) {
-                    return movement.getSellingPriceAtSale()
-                        .multiply(BigDecimal.valueOf(movement.getQuantity()));
-                }
-                return BigDecimal.ZERO;
-            })
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
 } 
\ No newline at end of file
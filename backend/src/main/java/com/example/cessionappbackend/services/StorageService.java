@@ -5,6 +5,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -54,20 +56,7 @@ public class StorageService {
             System.out.println("Content type: " + file.getContentType());
 
             // Determine target directory based on bucket name
-            Path targetDir;
-            if ("id-job-documents".equals(targetBucketName)) {
-                if (path.contains("id-cards")) {
-                    targetDir = idCardPath;
-                } else if (path.contains("job-cards")) {
-                    targetDir = jobCardPath;
-                } else {
-                    throw new IllegalArgumentException("Invalid path for id-job-documents bucket");
-                }
-            } else if ("cessions".equals(targetBucketName)) {
-                targetDir = cessionPath;
-            } else {
-                throw new IllegalArgumentException("Invalid bucket name: " + targetBucketName);
-            }
+            Path targetDir = resolveUploadDir(targetBucketName, path);
 
             // Use the provided path as the file name
             String fileName = path;
@@ -95,6 +84,45 @@ public class StorageService {
         }
     }
 
+    /**
+     * Stream content straight into local storage, enforcing a size limit while copying.
+     * Data is written to a sibling ".part" file and atomically renamed once complete, so an
+     * aborted or rejected upload never replaces an existing document.
+     * @param content The content to store; read until end of stream
+     * @param targetBucketName The type of document (e.g., "id-job-documents" or "cessions")
+     * @param path The path within the storage
+     * @param maxBytes The maximum accepted size in bytes
+     * @return The number of bytes stored
+     * @throws IllegalArgumentException if the content is empty or exceeds maxBytes
+     */
+    public long uploadStream(InputStream content, String targetBucketName, String path, long maxBytes) throws IOException {
+        Path fullPath = resolveUploadDir(targetBucketName, path).resolve(path);
+        Files.createDirectories(fullPath.getParent());
+        Path partialPath = fullPath.resolveSibling(fullPath.getFileName() + ".part");
+
+        long written = 0;
+        byte[] chunk = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(partialPath)) {
+            int read;
+            while ((read = content.read(chunk)) != -1) {
+                written += read;
+                if (written > maxBytes) {
+                    throw new IllegalArgumentException("File exceeds the maximum upload size of " + maxBytes + " bytes");
+                }
+                out.write(chunk, 0, read);
+            }
+            if (written == 0) {
+                throw new IllegalArgumentException("Cannot upload empty file");
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partialPath);
+            throw e;
+        }
+
+        Files.move(partialPath, fullPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
     /**
      * Generate a file URL for local storage
      * @param path The storage path of the file
@@ -165,6 +193,42 @@ public class StorageService {
         }
     }
 
+    /**
+     * Resolve the local file backing a stored document, without checking that it exists
+     * @param storagePath The storage path of the file
+     * @param targetBucketName The type of document
+     * @return The absolute path of the file on disk
+     */
+    public Path resolveFilePath(String storagePath, String targetBucketName) {
+        Path targetDir;
+        if ("id-job-documents".equals(targetBucketName)) {
+            if (storagePath.contains("id-cards")) {
+                targetDir = idCardPath;
+            } else if (storagePath.contains("job-cards")) {
+                targetDir = jobCardPath;
+            } else {
+                targetDir = storagePath.contains("NATIONAL_ID") ? idCardPath : jobCardPath;
+            }
+        } else {
+            targetDir = cessionPath;
+        }
+        return targetDir.resolve(storagePath);
+    }
+
+    private Path resolveUploadDir(String targetBucketName, String path) {
+        if ("id-job-documents".equals(targetBucketName)) {
+            if (path.contains("id-cards")) {
+                return idCardPath;
+            } else if (path.contains("job-cards")) {
+                return jobCardPath;
+            }
+            throw new IllegalArgumentException("Invalid path for id-job-documents bucket");
+        } else if ("cessions".equals(targetBucketName)) {
+            return cessionPath;
+        }
+        throw new IllegalArgumentException("Invalid bucket name: " + targetBucketName);
+    }
+
     public String getDefaultBucketName() {
         return "cession-documents";
     }
@@ -0,0 +1,140 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.utils.VirtualThreads;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports which threads requests, {@code @Async} listeners and scheduled tasks run on, and
+ * in virtual thread mode, where virtual threads got pinned to their carrier: blocked inside
+ * a {@code synchronized} section (or native frame) for longer than the threshold. Pinning
+ * is read from the JDK's own {@code jdk.VirtualThreadPinned} flight recorder events and
+ * grouped by the innermost frame of this application.
+ */
+@Service
+public class ThreadingModeMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadingModeMonitor.class);
+
+    private static final String APPLICATION_PACKAGE = "com.example.cessionappbackend.";
+    private static final int MAX_REPORTED_SITES = 20;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsRequested;
+
+    @Value("${app.threads.pinning-threshold-ms:20}")
+    private long pinningThresholdMs;
+
+    private final Map<String, PinnedSite> pinnedSites = new ConcurrentHashMap<>();
+    private final LongAdder pinnedEvents = new LongAdder();
+    private RecordingStream pinningStream;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!virtualThreadsRequested) {
+            return;
+        }
+        if (!VirtualThreads.isAvailable()) {
+            logger.warn("spring.threads.virtual.enabled is set, but Java {} has no virtual threads; running on platform threads",
+                    Runtime.version().feature());
+            return;
+        }
+        try {
+            RecordingStream stream = new RecordingStream();
+            stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(pinningThresholdMs)).withStackTrace();
+            stream.onEvent("jdk.VirtualThreadPinned", this::recordPinning);
+            stream.startAsync();
+            pinningStream = stream;
+            logger.info("Running on virtual threads; reporting pinning longer than {} ms", pinningThresholdMs);
+        } catch (RuntimeException e) {
+            // Flight recorder disabled or unavailable in this runtime
+            logger.warn("Running on virtual threads without a pinning report: {}", e.getMessage());
+        }
+    }
+
+    public boolean isVirtualThreadMode() {
+        return virtualThreadsRequested && VirtualThreads.isAvailable();
+    }
+
+    /**
+     * Called on a request thread, so {@code requestThreadVirtual} tells which mode Tomcat runs in.
+     */
+    public Map<String, Object> getStats() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("javaVersion", Runtime.version().feature());
+        stats.put("virtualThreadsRequested", virtualThreadsRequested);
+        stats.put("virtualThreadMode", isVirtualThreadMode());
+        stats.put("requestThreadVirtual", VirtualThreads.isVirtual(Thread.currentThread()));
+        // Platform threads only; virtual threads are not counted here
+        stats.put("platformThreads", threads.getThreadCount());
+        stats.put("peakPlatformThreads", threads.getPeakThreadCount());
+        stats.put("pinningReport", pinningStream != null);
+        stats.put("pinnedEvents", pinnedEvents.sum());
+
+        List<Map.Entry<String, PinnedSite>> sites = pinnedSites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, PinnedSite> entry) -> entry.getValue().count.sum()).reversed())
+                .limit(MAX_REPORTED_SITES)
+                .toList();
+        Map<String, Object> report = new LinkedHashMap<>();
+        for (Map.Entry<String, PinnedSite> site : sites) {
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("count", site.getValue().count.sum());
+            detail.put("maxMillis", Duration.ofNanos(site.getValue().maxNanos.get()).toMillis());
+            report.put(site.getKey(), detail);
+        }
+        stats.put("pinnedSites", report);
+        return stats;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pinningStream != null) {
+            pinningStream.close();
+        }
+    }
+
+    private void recordPinning(RecordedEvent event) {
+        pinnedEvents.increment();
+        PinnedSite site = pinnedSites.computeIfAbsent(siteOf(event), key -> new PinnedSite());
+        site.count.increment();
+        site.maxNanos.accumulateAndGet(event.getDuration().toNanos(), Math::max);
+    }
+
+    // The innermost frame of this application, where the monitor was most likely taken
+    private static String siteOf(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        RecordedFrame site = frames.stream()
+                .filter(frame -> frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+                .findFirst()
+                .orElse(frames.get(0));
+        return site.getMethod().getType().getName() + "." + site.getMethod().getName() + ":" + site.getLineNumber();
+    }
+
+    private static final class PinnedSite {
+        private final LongAdder count = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.cessionappbackend.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Incremental multipart/form-data parser working directly on the request stream.
+ * Parts are visited in order and each part body is exposed as an InputStream that
+ * ends at the next boundary, so file content can be copied to its destination
+ * without being buffered in memory or spooled to a temp file first.
+ */
+public class MultipartStreamParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private int head;
+    private int tail;
+    private boolean eof;
+    private boolean finished;
+
+    private PartInputStream currentPart;
+    private String fieldName;
+    private String fileName;
+    private String contentType;
+
+    public MultipartStreamParser(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[BUFFER_SIZE + delimiter.length];
+        // The first boundary is not preceded by a line break; seed one so every
+        // boundary (including the first) can be matched with the same delimiter
+        this.buffer[0] = '\r';
+        this.buffer[1] = '\n';
+        this.tail = 2;
+        this.currentPart = new PartInputStream();
+    }
+
+    /**
+     * Extract the boundary parameter from a multipart Content-Type header
+     * @return The boundary, or null if the header is not multipart/form-data
+     */
+    public static String extractBoundary(String contentTypeHeader) {
+        if (contentTypeHeader == null || !contentTypeHeader.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) {
+            return null;
+        }
+        String boundary = headerParameter(contentTypeHeader, "boundary");
+        return (boundary == null || boundary.isEmpty()) ? null : boundary;
+    }
+
+    /**
+     * Advance to the next part, skipping whatever is left of the current one
+     * @return false once the closing boundary has been read
+     */
+    public boolean nextPart() throws IOException {
+        if (finished) {
+            return false;
+        }
+        // Drain the preamble or the unread rest of the previous part
+        currentPart.skipRemaining();
+        head += delimiter.length;
+
+        if (!ensureAvailable(2)) {
+            throw new IOException("Malformed multipart body: unexpected end of stream after boundary");
+        }
+        if (buffer[head] == '-' && buffer[head + 1] == '-') {
+            finished = true;
+            return false;
+        }
+
+        String headers = readHeaderBlock();
+        fieldName = null;
+        fileName = null;
+        contentType = null;
+        for (String line : headers.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if ("content-disposition".equals(name)) {
+                fieldName = headerParameter(value, "name");
+                fileName = headerParameter(value, "filename");
+            } else if ("content-type".equals(name)) {
+                contentType = value;
+            }
+        }
+        currentPart = new PartInputStream();
+        return true;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * @return The submitted file name, or null for plain form fields
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Stream over the body of the current part. Closing it does not close the request stream.
+     */
+    public InputStream getPartStream() {
+        return currentPart;
+    }
+
+    /**
+     * Read a (small) form field value as UTF-8 text
+     */
+    public String readPartAsString(int maxBytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[256];
+        int read;
+        while ((read = currentPart.read(chunk)) != -1) {
+            if (out.size() + read > maxBytes) {
+                throw new IOException("Form field '" + fieldName + "' exceeds " + maxBytes + " bytes");
+            }
+            out.write(chunk, 0, read);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String readHeaderBlock() throws IOException {
+        // Skip the line break (and any transport padding) that ends the boundary line
+        while (true) {
+            if (!ensureAvailable(2)) {
+                throw new IOException("Malformed multipart body: truncated boundary line");
+            }
+            if (buffer[head] == '\r' && buffer[head + 1] == '\n') {
+                head += 2;
+                break;
+            }
+            head++;
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        while (true) {
+            if (!ensureAvailable(4)) {
+                throw new IOException("Malformed multipart body: truncated part headers");
+            }
+            if (buffer[head] == '\r' && buffer[head + 1] == '\n' && headerBytes.size() == 0) {
+                // Part without headers
+                head += 2;
+                return "";
+            }
+            if (buffer[head] == '\r' && buffer[head + 1] == '\n' && buffer[head + 2] == '\r' && buffer[head + 3] == '\n') {
+                head += 4;
+                // Browsers send non-ASCII file names as raw UTF-8
+                return headerBytes.toString(StandardCharsets.UTF_8);
+            }
+            headerBytes.write(buffer[head++]);
+            if (headerBytes.size() > MAX_HEADER_BYTES) {
+                throw new IOException("Malformed multipart body: part headers exceed " + MAX_HEADER_BYTES + " bytes");
+            }
+        }
+    }
+
+    /**
+     * Make sure at least {@code count} unread bytes are buffered, compacting and refilling as needed
+     * @return false if the stream ended first
+     */
+    private boolean ensureAvailable(int count) throws IOException {
+        while (tail - head < count) {
+            if (eof) {
+                return false;
+            }
+            if (head > 0) {
+                System.arraycopy(buffer, head, buffer, 0, tail - head);
+                tail -= head;
+                head = 0;
+            }
+            int read = in.read(buffer, tail, buffer.length - tail);
+            if (read == -1) {
+                eof = true;
+            } else {
+                tail += read;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Index of the next delimiter in the buffered window, or -1
+     */
+    private int findDelimiter() {
+        int last = tail - delimiter.length;
+        outer:
+        for (int i = head; i <= last; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String headerParameter(String headerValue, String parameter) {
+        for (String token : headerValue.split(";")) {
+            String trimmed = token.trim();
+            int equals = trimmed.indexOf('=');
+            if (equals < 0 || !trimmed.substring(0, equals).trim().equalsIgnoreCase(parameter)) {
+                continue;
+            }
+            String value = trimmed.substring(equals + 1).trim();
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            return value;
+        }
+        return null;
+    }
+
+    private class PartInputStream extends InputStream {
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            // Fill generously so large parts are copied in big chunks
+            ensureAvailable(BUFFER_SIZE / 2);
+            int boundaryAt = findDelimiter();
+            int readable;
+            if (boundaryAt >= 0) {
+                readable = boundaryAt - head;
+                if (readable == 0) {
+                    done = true;
+                    return -1;
+                }
+            } else if (eof) {
+                throw new IOException("Malformed multipart body: missing closing boundary");
+            } else {
+                // Hold back enough bytes to recognise a delimiter split across reads
+                readable = Math.max(1, tail - head - (delimiter.length - 1));
+            }
+            int count = Math.min(readable, length);
+            System.arraycopy(buffer, head, target, offset, count);
+            head += count;
+            return count;
+        }
+
+        void skipRemaining() throws IOException {
+            byte[] discard = new byte[4096];
+            while (read(discard, 0, discard.length) != -1) {
+                // keep reading until the boundary
+            }
+        }
+
+        @Override
+        public void close() {
+            // The request stream belongs to the container
+        }
+    }
+}
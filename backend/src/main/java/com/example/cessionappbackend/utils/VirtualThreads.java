@@ -0,0 +1,56 @@
+package com.example.cessionappbackend.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual thread helpers for a build that targets Java 17. The Java 21 methods are looked
+ * up once at runtime, so the same jar runs on platform threads under 17 and can use
+ * virtual threads under 21 or later.
+ */
+public final class VirtualThreads {
+
+    private static final Method IS_VIRTUAL = lookup(Thread.class, "isVirtual");
+    private static final Method NEW_PER_TASK_EXECUTOR = lookup(Executors.class, "newVirtualThreadPerTaskExecutor");
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isAvailable() {
+        return IS_VIRTUAL != null && NEW_PER_TASK_EXECUTOR != null;
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_VIRTUAL.invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * An executor starting a virtual thread per task. Only call it when {@link #isAvailable()}.
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        if (NEW_PER_TASK_EXECUTOR == null) {
+            throw new IllegalStateException("Virtual threads need Java 21 or later, running on " + Runtime.version());
+        }
+        try {
+            return (ExecutorService) NEW_PER_TASK_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+
+    private static Method lookup(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.cessionappbackend.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs each finance query, captures the SQL Hibernate sends and asks H2 for its plan, so a
+ * query rewritten in a way the (user_id, date) indexes cannot serve fails here.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.cessionappbackend.repositories.FinanceQueryPlanTest$CapturingInspector")
+@ActiveProfiles("test")
+public class FinanceQueryPlanTest {
+
+    private static final UUID USER = UUID.randomUUID();
+    private static final LocalDate FROM = LocalDate.of(2024, 3, 1);
+    private static final LocalDate TO = FROM.plusMonths(1);
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private IncomeRepository incomeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void clearCapturedStatements() {
+        CapturingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    public void testExpenseQueriesUseTheUserDateIndex() {
+        expenseRepository.findByUserIdInRange(USER, FROM, TO);
+        expenseRepository.findByUserIdAndDateRange(USER, FROM, TO, PageRequest.of(0, 20));
+        expenseRepository.sumByCategoryInRange(USER, FROM, TO);
+
+        assertAllUseIndex("IDX_EXPENSES_USER_DATE", "EXPENSES");
+    }
+
+    @Test
+    public void testIncomeQueriesUseTheUserDateIndex() {
+        incomeRepository.findByUserIdInRange(USER, FROM, TO);
+        incomeRepository.findByUserIdAndDateRange(USER, FROM, TO, PageRequest.of(0, 20));
+        incomeRepository.sumBySourceInRange(USER, FROM, TO);
+        incomeRepository.sumInRange(USER, FROM, TO);
+
+        assertAllUseIndex("IDX_INCOMES_USER_DATE", "INCOMES");
+    }
+
+    private void assertAllUseIndex(String index, String table) {
+        List<String> statements = CapturingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.toUpperCase().contains(table))
+                .distinct()
+                .toList();
+        assertFalse(statements.isEmpty(), "No query on " + table + " was captured");
+        for (String sql : statements) {
+            String plan = explain(sql).toUpperCase();
+            assertFalse(plan.contains("TABLESCAN"), "Full scan of " + table + " for:\n" + sql + "\nPlan:\n" + plan);
+            int start = plan.indexOf("/* PUBLIC." + index + ":");
+            assertTrue(start >= 0, "Expected " + index + " for:\n" + sql + "\nPlan:\n" + plan);
+            // Both date bounds must be index conditions, not filters applied to every row of the user
+            String condition = plan.substring(start, plan.indexOf("*/", start));
+            assertTrue(condition.contains("USER_ID = ") && condition.contains("DATE >= ") && condition.contains("DATE < "),
+                    "Index only partly used for:\n" + sql + "\nPlan:\n" + plan);
+        }
+    }
+
+    // Unbound parameters do not change the index H2 picks for "column = ?" and range conditions
+    private String explain(String sql) {
+        return jdbcTemplate.execute("EXPLAIN " + sql, (java.sql.PreparedStatement statement) -> {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+            try (var resultSet = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
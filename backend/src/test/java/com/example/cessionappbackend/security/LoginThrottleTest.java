@@ -0,0 +1,33 @@
+package com.example.cessionappbackend.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginThrottleTest {
+
+    @Test
+    public void testAccountIsRefusedAfterItsAttemptsUntilASuccessfulSignIn() {
+        LoginThrottle throttle = new LoginThrottle(2, 60, 100, 60);
+        assertEquals(0, throttle.tryAcquire("owner@shop.tn", "10.0.0.1"));
+        assertEquals(0, throttle.tryAcquire("Owner@Shop.tn ", "10.0.0.2"));
+
+        long retryAfter = throttle.tryAcquire("owner@shop.tn", "10.0.0.3");
+        assertTrue(retryAfter > 0 && retryAfter <= 60, "retry after " + retryAfter);
+        assertEquals(0, throttle.tryAcquire("other@shop.tn", "10.0.0.1"));
+
+        throttle.loginSucceeded("owner@shop.tn");
+        assertEquals(0, throttle.tryAcquire("owner@shop.tn", "10.0.0.1"));
+    }
+
+    @Test
+    public void testAddressIsRefusedAcrossAccounts() {
+        LoginThrottle throttle = new LoginThrottle(5, 60, 3, 6);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, throttle.tryAcquire("user" + i + "@shop.tn", "10.0.0.9"));
+        }
+        assertTrue(throttle.tryAcquire("user9@shop.tn", "10.0.0.9") > 0);
+        assertEquals(0, throttle.tryAcquire("user9@shop.tn", "10.0.0.10"));
+        assertEquals(1L, throttle.getStats().get("addressRefusals"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.cessionappbackend.services;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArabicTextServiceTest {
+
+    private static ArabicTextService service;
+
+    @BeforeAll
+    public static void setUp() {
+        PdfFontRegistry fontRegistry = new PdfFontRegistry();
+        service = newService(fontRegistry);
+    }
+
+    static ArabicTextService newService(PdfFontRegistry fontRegistry) {
+        ArabicTextService textService = new ArabicTextService();
+        ReflectionTestUtils.setField(textService, "fontRegistry", fontRegistry);
+        ReflectionTestUtils.setField(textService, "maxCacheEntries", 2000);
+        ReflectionTestUtils.setField(textService, "maxCachedLength", 200);
+        return textService;
+    }
+
+    @Test
+    public void testAmountInWords() {
+        assertEquals("ألفان وأربعمائة وثلاثون دينارا", service.amountInWords(new BigDecimal("2430")));
+        assertEquals("دينار واحد", service.amountInWords(new BigDecimal("1")));
+        assertEquals("ديناران", service.amountInWords(new BigDecimal("2")));
+        assertEquals("خمسة دنانير", service.amountInWords(new BigDecimal("5")));
+        assertEquals("أحد عشر دينارا", service.amountInWords(new BigDecimal("11")));
+        assertEquals("مائة وخمسة وثلاثون دينارا", service.amountInWords(new BigDecimal("135.000")));
+        assertEquals("ألف دينار", service.amountInWords(new BigDecimal("1000")));
+        assertEquals("ثلاثة آلاف ومائتان دينار", service.amountInWords(new BigDecimal("3200")));
+        assertEquals("خمسة عشر ألفا وخمسمائة دينار", service.amountInWords(new BigDecimal("15500")));
+        assertEquals("مليون ومائتان وخمسون ألفا دينار", service.amountInWords(new BigDecimal("1250000")));
+    }
+
+    @Test
+    public void testAmountInWordsWithMillimes() {
+        assertEquals("مائة وخمسة وثلاثون دينارا وخمسمائة مليم", service.amountInWords(new BigDecimal("135.5")));
+        assertEquals("ثمانية مليمات", service.amountInWords(new BigDecimal("0.008")));
+        assertEquals("صفر دينار", service.amountInWords(BigDecimal.ZERO));
+    }
+
+    @Test
+    public void testAmountInWordsOutOfRange() {
+        assertNull(service.amountInWords(null));
+        assertNull(service.amountInWords(new BigDecimal("-1")));
+        assertNull(service.amountInWords(new BigDecimal("1000000000")));
+    }
+
+    @Test
+    public void testMonthYear() {
+        assertEquals("سبتمبر 2025", service.monthYear(YearMonth.of(2025, 9)));
+        assertEquals("جوان 2025", service.monthYear(YearMonth.of(2025, 6)));
+        assertNull(service.monthYear(null));
+    }
+
+    @Test
+    public void testShapeIsMemoized() {
+        String label = "البيانات المتعلقة بالمزود:";
+        String first = service.shape(label);
+        assertNotEquals(label, first);
+        assertSame(first, service.shape(label));
+    }
+}
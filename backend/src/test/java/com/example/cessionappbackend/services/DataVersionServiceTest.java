@@ -0,0 +1,62 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.events.DataChangeEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataVersionServiceTest {
+
+    @Test
+    public void testMatchingTagIsAnsweredWithoutLoading() {
+        DataVersionService versions = new DataVersionService();
+        AtomicInteger loads = new AtomicInteger();
+
+        ResponseEntity<List<String>> first = versions.conditionalGet(request(null),
+                () -> { loads.incrementAndGet(); return List.of("a"); }, DataVersionService.JOB);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertTrue(etag.startsWith("W/\""), etag);
+
+        ResponseEntity<List<String>> second = versions.conditionalGet(request("\"x\", " + etag),
+                () -> { loads.incrementAndGet(); return List.of("a"); }, DataVersionService.JOB);
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertEquals(etag, second.getHeaders().getETag());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testChangeOfADependencyChangesTheTag() {
+        DataVersionService versions = new DataVersionService();
+        String before = versions.etag(DataVersionService.JOB, DataVersionService.WORKPLACE);
+
+        versions.onDataChange(new DataChangeEvent(this, DataVersionService.CLIENT, "UPDATE", null));
+        assertEquals(before, versions.etag(DataVersionService.JOB, DataVersionService.WORKPLACE));
+
+        versions.onDataChange(new DataChangeEvent(this, DataVersionService.WORKPLACE, "DELETE", null));
+        assertNotEquals(before, versions.etag(DataVersionService.JOB, DataVersionService.WORKPLACE));
+    }
+
+    @Test
+    public void testWeakAndStrongFormsMatch() {
+        assertTrue(DataVersionService.matches("\"abc-1\"", "W/\"abc-1\""));
+        assertTrue(DataVersionService.matches("*", "W/\"abc-1\""));
+        assertFalse(DataVersionService.matches("W/\"abc-2\"", "W/\"abc-1\""));
+        assertFalse(DataVersionService.matches(null, "W/\"abc-1\""));
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/jobs");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.cessionappbackend.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventStreamServiceTest {
+
+    private final EventStreamService events = new EventStreamService(3, 16, 4, 60000, false);
+
+    @AfterEach
+    public void shutdown() {
+        events.shutdown();
+    }
+
+    @Test
+    public void testReconnectReplaysMissedEventsOfItsTopics() {
+        events.publish(EventStreamService.DATA, Map.of("entityType", "Client"));
+        String lastSeen = (String) events.getStats().get("lastEventId");
+        events.publish(EventStreamService.EXPORT, Map.of("status", "IN_PROGRESS"));
+        events.publish(EventStreamService.DATA, Map.of("entityType", "Cession"));
+
+        events.subscribe(Set.of(EventStreamService.DATA), lastSeen);
+
+        assertEquals(1L, events.getStats().get("replayed"));
+        assertEquals(0L, events.getStats().get("resets"));
+    }
+
+    @Test
+    public void testReconnectAfterEventsWereDiscardedGetsAReset() {
+        events.publish(EventStreamService.DATA, Map.of("entityType", "Client"));
+        String lastSeen = (String) events.getStats().get("lastEventId");
+        for (int i = 0; i < 4; i++) {
+            events.publish(EventStreamService.DATA, Map.of("entityType", "Job"));
+        }
+
+        events.subscribe(EventStreamService.TOPICS, lastSeen);
+        events.subscribe(EventStreamService.TOPICS, "previous-run-7");
+
+        assertEquals(2L, events.getStats().get("resets"));
+        assertEquals(0L, events.getStats().get("replayed"));
+    }
+
+    @Test
+    public void testSubscriberThatStopsReadingDoesNotDelayTheOthers() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        BlockingQueue<SseEmitter.SseEventBuilder> received = new LinkedBlockingQueue<>();
+        Deque<SseEmitter> clients = new ArrayDeque<>();
+        // Blocks in send like a client whose socket buffer is full
+        clients.add(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        clients.add(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                received.add(builder);
+            }
+        });
+        EventStreamService service = new EventStreamService(3, 16, 4, 60000, false) {
+            @Override
+            SseEmitter newEmitter(long timeoutMs) {
+                return clients.removeFirst();
+            }
+        };
+        try {
+            service.subscribe(EventStreamService.TOPICS, null);
+            service.subscribe(EventStreamService.TOPICS, null);
+            service.publish(EventStreamService.DATA, Map.of("entityType", "Client"));
+
+            assertNotNull(received.poll(5, TimeUnit.SECONDS), "subscribed comment");
+            assertNotNull(received.poll(5, TimeUnit.SECONDS), "data event");
+        } finally {
+            unblock.countDown();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testSubscribersAreLimited() {
+        EventStreamService limited = new EventStreamService(3, 16, 1, 60000, false);
+        try {
+            limited.subscribe(EventStreamService.TOPICS, null);
+            assertThrows(ResponseStatusException.class, () -> limited.subscribe(EventStreamService.TOPICS, null));
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    @Test
+    public void testTopicsAreValidated() {
+        assertEquals(EventStreamService.TOPICS, EventStreamService.parseTopics(null));
+        assertEquals(Set.of("data", "low-stock"), EventStreamService.parseTopics("data, low-stock"));
+        assertThrows(ResponseStatusException.class, () -> EventStreamService.parseTopics("data,clients"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.entities.InventoryCostState;
+import com.example.cessionappbackend.entities.InventoryValuationCheckpoint.CostingMethod;
+import com.example.cessionappbackend.services.InventoryValuationService.CostLedger;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryCostLedgerTest {
+
+    @Test
+    public void testWeightedAverageCostsIssuesAtTheRunningAverage() {
+        CostLedger ledger = new CostLedger(CostingMethod.WEIGHTED_AVERAGE);
+        ledger.receive(10, new BigDecimal("100"));
+        ledger.receive(10, new BigDecimal("130"));
+
+        assertEquals(0, new BigDecimal("575").compareTo(ledger.issue(5, new BigDecimal("999"))));
+        assertEquals(15, ledger.getQuantity());
+        assertEquals(0, new BigDecimal("1725").compareTo(ledger.getValue()));
+    }
+
+    @Test
+    public void testFifoConsumesOldestLotsAndSurvivesAReload() {
+        CostLedger ledger = new CostLedger(CostingMethod.FIFO);
+        ledger.receive(3, new BigDecimal("100"));
+        ledger.receive(5, new BigDecimal("130"));
+        assertEquals(0, new BigDecimal("430").compareTo(ledger.issue(4, new BigDecimal("999"))));
+
+        InventoryCostState state = new InventoryCostState();
+        ledger.store(state);
+        assertEquals("4@130", state.getFifoLots());
+
+        CostLedger reloaded = CostLedger.load(state, CostingMethod.FIFO);
+        // Two units more than on hand are costed at the fallback
+        assertEquals(0, new BigDecimal("720").compareTo(reloaded.issue(6, new BigDecimal("100"))));
+        assertEquals(0, reloaded.getQuantity());
+        assertEquals(0, BigDecimal.ZERO.compareTo(reloaded.getValue()));
+    }
+
+    @Test
+    public void testReconcileTakesUntrackedStockInAndOut() {
+        CostLedger ledger = new CostLedger(CostingMethod.WEIGHTED_AVERAGE);
+        ledger.reconcile(4, new BigDecimal("50"));
+        assertEquals(4, ledger.getQuantity());
+        assertEquals(0, new BigDecimal("200").compareTo(ledger.getValue()));
+
+        ledger.reconcile(1, new BigDecimal("80"));
+        assertEquals(1, ledger.getQuantity());
+        assertEquals(0, new BigDecimal("50").compareTo(ledger.getValue()));
+    }
+}
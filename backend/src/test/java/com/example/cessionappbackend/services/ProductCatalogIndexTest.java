@@ -0,0 +1,92 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.dto.ProductCatalogSearchDTO;
+import com.example.cessionappbackend.dto.ProductDTO;
+import com.example.cessionappbackend.events.ProductCatalogChangeEvent;
+import com.example.cessionappbackend.repositories.ProductRepository;
+import com.example.cessionappbackend.repositories.ProductRepository.CatalogRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ProductCatalogIndexTest {
+
+    private ProductRepository productRepository;
+    private ProductCatalogIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        productRepository = mock(ProductRepository.class);
+        List<CatalogRow> rows = List.of(
+                row(1L, "Réfrigérateur Samsung", "RF-220", 10L, "Froid", "Samsung", 5, 2),
+                row(2L, "Four LG", "OV-10", 11L, "Cuisson", "LG", 1, 2),
+                row(3L, "Congélateur Samsung", "CG-300", 10L, "Froid", "Samsung", 0, 2));
+        when(productRepository.findCatalogRows()).thenReturn(rows);
+        index = new ProductCatalogIndex();
+        ReflectionTestUtils.setField(index, "productRepository", productRepository);
+        index.rebuild();
+    }
+
+    @Test
+    public void testTermsMatchWordPrefixesWithoutAccents() {
+        assertEquals(List.of("Réfrigérateur Samsung"), names(index.search("refri", null, null, null, 50)));
+        assertEquals(List.of("Congélateur Samsung", "Réfrigérateur Samsung"), names(index.search("SAMS", null, null, null, 50)));
+        assertEquals(List.of("Congélateur Samsung"), names(index.search("samsung cong", null, null, null, 50)));
+        assertEquals(List.of("Réfrigérateur Samsung"), names(index.search("rf220", null, null, null, 50)));
+        assertTrue(index.search("samsung four", null, null, null, 50).getProducts().isEmpty());
+    }
+
+    @Test
+    public void testFacetsAreCountedWithTheOtherFiltersApplied() {
+        ProductCatalogSearchDTO result = index.search(null, 10L, null, ProductCatalogIndex.StockState.IN_STOCK, 50);
+        assertEquals(List.of("Réfrigérateur Samsung"), names(result));
+        // Only "Froid" holds an in-stock product; within "Froid" one is in stock and one is sold out
+        assertEquals(1, result.getCategories().size());
+        assertEquals(2, result.getStockStates().size());
+        assertEquals(1, result.getSuppliers().size());
+
+        ProductCatalogSearchDTO all = index.search("", null, null, null, 1);
+        assertEquals(3, all.getTotal());
+        assertEquals(1, all.getProducts().size());
+        assertEquals("10", all.getCategories().get(0).getValue());
+        assertEquals(2, all.getCategories().get(0).getCount());
+    }
+
+    @Test
+    public void testChangedAndDeletedProductsAreReindexed() {
+        CatalogRow changed = row(2L, "Four encastrable LG", "OV-10", 11L, "Cuisson", "LG", 0, 2);
+        when(productRepository.findCatalogRowsByIdIn(anyCollection())).thenReturn(List.of(changed));
+        index.onCatalogChange(ProductCatalogChangeEvent.of(List.of(2L, 3L)));
+
+        assertEquals(List.of("Four encastrable LG"), names(index.search("encas", null, null, null, 50)));
+        assertTrue(index.search("congel", null, null, null, 50).getProducts().isEmpty());
+        assertEquals(List.of("Four encastrable LG"),
+                names(index.search(null, null, null, ProductCatalogIndex.StockState.OUT_OF_STOCK, 50)));
+        assertEquals(2, index.getStats().get("products"));
+    }
+
+    private static List<String> names(ProductCatalogSearchDTO result) {
+        return result.getProducts().stream().map(ProductDTO::getName).toList();
+    }
+
+    private static CatalogRow row(Long id, String name, String sku, Long categoryId, String categoryName,
+                                  String supplier, int stock, int reorderPoint) {
+        CatalogRow row = mock(CatalogRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getName()).thenReturn(name);
+        when(row.getSku()).thenReturn(sku);
+        when(row.getCategoryId()).thenReturn(categoryId);
+        when(row.getCategoryName()).thenReturn(categoryName);
+        when(row.getSupplier()).thenReturn(supplier);
+        when(row.getStockQuantity()).thenReturn(stock);
+        when(row.getReorderPoint()).thenReturn(reorderPoint);
+        return row;
+    }
+}
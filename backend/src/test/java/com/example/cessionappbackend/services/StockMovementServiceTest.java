@@ -0,0 +1,178 @@
+package com.example.cessionappbackend.services;
+
+import com.example.cessionappbackend.dto.ProfitabilityDTO;
+import com.example.cessionappbackend.dto.SaleRequestDTO;
+import com.example.cessionappbackend.dto.StockMovementDTO;
+import com.example.cessionappbackend.dto.StockMovementHistoryDTO;
+import com.example.cessionappbackend.entities.DailyProfit;
+import com.example.cessionappbackend.entities.Product;
+import com.example.cessionappbackend.repositories.ProductRepository;
+import com.example.cessionappbackend.repositories.StockMovementRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional: the concurrent sales must each commit on their own.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class StockMovementServiceTest {
+
+    @Autowired
+    private StockMovementService stockMovementService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private ProfitabilityRollupService profitabilityRollupService;
+
+    @Autowired
+    private FinancialCubeService financialCubeService;
+
+    private final List<Long> createdProducts = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        createdProducts.forEach(productRepository::deleteById);
+    }
+
+    @Test
+    public void testConcurrentSalesCannotOversell() throws Exception {
+        Long productId = createProduct("Last units", 5);
+        int buyers = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> sales = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            sales.add(executor.submit(() -> {
+                start.await();
+                try {
+                    stockMovementService.recordStockMovement(productId, -1, new BigDecimal("15.000"), null);
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int sold = 0;
+        for (Future<Boolean> sale : sales) {
+            if (sale.get(30, TimeUnit.SECONDS)) {
+                sold++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(5, sold);
+        assertEquals(0, productRepository.findStockQuantityById(productId));
+        assertEquals(5, stockMovementRepository.findByProductId(productId).size());
+    }
+
+    @Test
+    public void testSaleIsRecordedInFullOrNotAtAll() {
+        Long first = createProduct("Fridge", 3);
+        Long second = createProduct("Oven", 1);
+
+        List<StockMovementDTO> movements = stockMovementService.recordSale(List.of(
+                new SaleRequestDTO.Line(second, 1, null),
+                new SaleRequestDTO.Line(first, 2, new BigDecimal("900.000"))), "cart");
+        assertEquals(2, movements.size());
+        assertEquals(second, movements.get(0).getProductId());
+        assertEquals(1, movements.get(0).getPreviousQuantity());
+        assertEquals(0, movements.get(0).getNewQuantity());
+        assertEquals(0, new BigDecimal("15.000").compareTo(movements.get(0).getSellingPriceAtSale()));
+        assertEquals(1, productRepository.findStockQuantityById(first));
+
+        // The oven is sold out, so the fridge must not be taken either
+        assertThrows(RuntimeException.class, () -> stockMovementService.recordSale(List.of(
+                new SaleRequestDTO.Line(first, 1, null),
+                new SaleRequestDTO.Line(second, 1, null)), "cart"));
+        assertEquals(1, productRepository.findStockQuantityById(first));
+        assertEquals(2, stockMovementRepository.findByProductId(first).size() + stockMovementRepository.findByProductId(second).size());
+    }
+
+    @Test
+    public void testProductHistoryShowsStockLevelAfterEachMovement() {
+        Long productId = createProduct("Kettle", 10);
+        stockMovementService.recordStockMovement(productId, -3, new BigDecimal("15.000"), null);
+        stockMovementService.recordStockMovement(productId, 5, BigDecimal.ZERO, null);
+        stockMovementService.recordStockMovement(productId, -4, new BigDecimal("15.000"), null);
+
+        List<StockMovementHistoryDTO> history = stockMovementService
+                .getStockMovementsByProduct(productId, PageRequest.of(0, 10)).getContent();
+        assertEquals(List.of(8, 12, 7), history.stream().map(StockMovementHistoryDTO::getStockLevel).toList());
+        assertEquals("Kettle", history.get(0).getProductName());
+    }
+
+    @Test
+    public void testSalesAreRolledUpPerProductForRanking() {
+        Long productId = createProduct("Blender", 10);
+        stockMovementService.recordStockMovement(productId, -2, new BigDecimal("20.000"), null);
+        stockMovementService.recordSale(List.of(new SaleRequestDTO.Line(productId, 3, new BigDecimal("25.000"))), null);
+        stockMovementService.recordStockMovement(productId, 4, BigDecimal.ZERO, null);
+
+        LocalDate today = LocalDate.now();
+        ProfitabilityDTO blender = profitabilityRollupService
+                .getTop(DailyProfit.Dimension.PRODUCT, today, today, ProfitabilityRollupService.RankBy.UNITS, 100).stream()
+                .filter(row -> row.getId().equals(productId))
+                .findFirst().orElseThrow();
+        assertEquals("Blender", blender.getName());
+        assertEquals(0, new BigDecimal("115").compareTo(blender.getRevenue()));
+        assertEquals(0, new BigDecimal("50").compareTo(blender.getCost()));
+        assertEquals(0, new BigDecimal("65").compareTo(blender.getMargin()));
+        assertEquals(5, blender.getUnitsSold());
+        assertEquals(2, blender.getSaleCount());
+    }
+
+    @Test
+    public void testRebuiltMonthKeepsTheCostOfEarlierSales() {
+        LocalDate today = LocalDate.now();
+        // Start from a rebuilt month, so only this test's sale differs between the two paths
+        financialCubeService.rebuildSalesMonths(List.of(today));
+        Long productId = createProduct("Toaster", 10);
+        stockMovementService.recordStockMovement(productId, -2, new BigDecimal("20.000"), null);
+        BigDecimal recorded = financialCubeService.getMonth(UUID.randomUUID(), YearMonth.from(today)).getCostOfGoods();
+
+        Product product = productRepository.findById(productId).orElseThrow();
+        product.setPurchasePrice(new BigDecimal("30.000"));
+        productRepository.save(product);
+        financialCubeService.rebuildSalesMonths(List.of(today));
+
+        BigDecimal rebuilt = financialCubeService.getMonth(UUID.randomUUID(), YearMonth.from(today)).getCostOfGoods();
+        assertEquals(0, recorded.compareTo(rebuilt), "recorded " + recorded + ", rebuilt " + rebuilt);
+    }
+
+    private Long createProduct(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setStockQuantity(stock);
+        product.setReorderPoint(0);
+        product.setPurchasePrice(new BigDecimal("10.000"));
+        product.setSellingPrice(new BigDecimal("15.000"));
+        Long id = productRepository.save(product).getId();
+        createdProducts.add(id);
+        return id;
+    }
+}